@@ -0,0 +1,132 @@
+package geometries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The kinds of acceleration structures which {@link Geometries} may use
+ * for its bounded geometries.
+ */
+public enum Acceleration {
+
+    /**
+     * Bounding volume hierarchy built with the surface area heuristic -
+     * a good choice for most scenes
+     */
+    BOUNDING_VOLUME_HIERARCHY {
+        @Override
+        AccelerationStructure build(double[] bounds) {
+            return new BVH(bounds, SAHBuilder::build);
+        }
+
+        @Override
+        AccelerationStructure load(double[] bounds, ByteBuffer buffer) {
+            return new BVH(bounds, buffer);
+        }
+    },
+
+    /**
+     * Linear bounding volume hierarchy built from sorted Morton codes -
+     * builds several times faster than {@link #BOUNDING_VOLUME_HIERARCHY} and traces somewhat slower,
+     * a good choice for scenes which are rebuilt for every frame
+     */
+    LINEAR_BOUNDING_VOLUME_HIERARCHY {
+        @Override
+        AccelerationStructure build(double[] bounds) {
+            return new BVH(bounds, LinearBVHBuilder::build);
+        }
+
+        @Override
+        AccelerationStructure load(double[] bounds, ByteBuffer buffer) {
+            return new BVH(bounds, buffer);
+        }
+    },
+
+    /**
+     * Bounding volume hierarchy built with the surface area heuristic, whose node boxes are
+     * quantized to 16 bits relative to their parent boxes - a node takes less than a third of
+     * the memory of a {@link #BOUNDING_VOLUME_HIERARCHY} node, at the cost of decoding the boxes
+     */
+    COMPRESSED_BOUNDING_VOLUME_HIERARCHY {
+        @Override
+        AccelerationStructure build(double[] bounds) {
+            return new CompressedBVH(bounds, 16);
+        }
+    },
+
+    /**
+     * Bounding volume hierarchy whose node boxes are quantized to 8 bits relative to their
+     * parent boxes - the smallest nodes, and looser boxes than
+     * {@link #COMPRESSED_BOUNDING_VOLUME_HIERARCHY}
+     */
+    COMPRESSED_8_BIT_BOUNDING_VOLUME_HIERARCHY {
+        @Override
+        AccelerationStructure build(double[] bounds) {
+            return new CompressedBVH(bounds, 8);
+        }
+    },
+
+    /**
+     * Bounding volume hierarchy built with the surface area heuristic and collapsed to four children
+     * per node, whose child boxes are tested together and visited from the nearest -
+     * fewer and wider nodes than {@link #BOUNDING_VOLUME_HIERARCHY}
+     */
+    WIDE_BOUNDING_VOLUME_HIERARCHY {
+        @Override
+        AccelerationStructure build(double[] bounds) {
+            return new WideBVH(bounds);
+        }
+    },
+
+    /**
+     * Kd-tree built with the surface area heuristic, whose leaves are linked by ropes -
+     * tight cells for static scenes, traced without a stack
+     */
+    KD_TREE {
+        @Override
+        AccelerationStructure build(double[] bounds) {
+            return new KdTree(bounds);
+        }
+    },
+
+    /**
+     * Octree which is subdivided only where rays enter it - no build time and no memory
+     * for the regions no ray reaches, a good choice for huge sparse worlds which are seen in part
+     */
+    LAZY_OCTREE {
+        @Override
+        AccelerationStructure build(double[] bounds) {
+            return new LazyOctree(bounds);
+        }
+    },
+
+    /**
+     * Uniform grid of voxels traversed by 3D-DDA -
+     * a good choice for dense scenes of evenly spread geometries
+     */
+    UNIFORM_GRID {
+        @Override
+        AccelerationStructure build(double[] bounds) {
+            return new UniformGrid(bounds);
+        }
+    };
+
+    /**
+     * Builds the acceleration structure over primitives with the given bounds
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @return the structure
+     */
+    abstract AccelerationStructure build(double[] bounds);
+
+    /**
+     * Restores a structure saved by {@link Savable#save}
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param buffer the saved structure
+     * @return the structure, null if structures of this kind are not saved
+     * @throws IllegalArgumentException if the saved structure does not fit the primitives
+     */
+    AccelerationStructure load(double[] bounds, ByteBuffer buffer) {
+        return null;
+    }
+}
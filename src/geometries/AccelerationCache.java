@@ -0,0 +1,233 @@
+package geometries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Directory of built acceleration structures, so that an unchanged scene is not rebuilt
+ * every time the program starts. A structure is stored in a file named by its kind and by
+ * a SHA-256 hash of the primitive bounds it was built from, and it is loaded by mapping
+ * the file into memory and copying the node arrays out of the mapping in bulk. A file is written
+ * through its channel rather than a mapping, since a mapped file cannot be renamed on some
+ * systems (e.g. Windows) until the mapping is collected.
+ * A file starts with a header - a magic number, the format version, the full hash, the amount
+ * of primitives and the size and the CRC-32 checksum of the saved structure - and a file whose
+ * header does not match the scene, or whose checksum does not match its content, is ignored,
+ * so that the structure is rebuilt and the file is replaced.
+ * Only the structures which can be saved ({@link Savable}) are cached.
+ */
+final class AccelerationCache {
+
+    /**
+     * The first bytes of a cache file
+     */
+    private static final int MAGIC = 0x52544143;
+
+    /**
+     * Version of the file format - files of other versions are stale
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header of a cache file in bytes
+     */
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 32 + Integer.BYTES + 2 * Long.BYTES;
+
+    /**
+     * Amount of primitive bounds hashed at once
+     */
+    private static final int HASH_CHUNK = 1 << 12;
+
+    /**
+     * The directory of the cache files
+     */
+    private final Path directory;
+
+    /**
+     * Constructs a cache in a directory, which is created when the first structure is stored
+     *
+     * @param directory the directory
+     */
+    AccelerationCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Calculates the key of a structure - a SHA-256 hash of the file format version,
+     * the kind of the structure and the primitive bounds
+     *
+     * @param acceleration the kind of the structure
+     * @param bounds       primitive bounds - minimal and maximal x, y, z of every primitive
+     * @return the key
+     */
+    static byte[] key(Acceleration acceleration, double[] bounds) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ByteBuffer chunk = ByteBuffer.allocate(HASH_CHUNK * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        chunk.putInt(VERSION).put(acceleration.name().getBytes(StandardCharsets.US_ASCII)).flip();
+        digest.update(chunk);
+        for (int start = 0; start < bounds.length; start += HASH_CHUNK) {
+            chunk.clear();
+            chunk.asDoubleBuffer().put(bounds, start, Math.min(HASH_CHUNK, bounds.length - start));
+            chunk.limit(Math.min(HASH_CHUNK, bounds.length - start) * Double.BYTES);
+            digest.update(chunk);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Loads a structure from the cache. Only the saved structure is mapped, after its header matched,
+     * and the node arrays are copied out of the mapping, so the structure does not refer to the file.
+     *
+     * @param acceleration the kind of the structure
+     * @param bounds       primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param key          the key of the structure
+     * @return the structure, null if it is not cached, or if the cache file is stale or corrupt
+     */
+    AccelerationStructure load(Acceleration acceleration, double[] bounds, byte[] key) {
+        Path file = file(acceleration, key);
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) return null;
+            // the header is read, so that a stale file which is replaced later is never mapped
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining())
+                if (channel.read(header) < 0) return null;
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) return null;
+            byte[] savedKey = new byte[key.length];
+            header.get(savedKey);
+            if (!Arrays.equals(savedKey, key) || header.getInt() != bounds.length / 6
+                    || header.getLong() != length - HEADER_BYTES)
+                return null;
+            long checksum = header.getLong();
+            ByteBuffer payload = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, length - HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) return null;
+            return acceleration.load(bounds, payload);
+        } catch (IOException | RuntimeException e) {
+            // an unreadable or corrupt file is ignored, and the structure is rebuilt
+            return null;
+        }
+    }
+
+    /**
+     * Stores a structure in the cache, replacing the file of the same key atomically.
+     * A structure which cannot be saved is not stored, and a failure to write the file
+     * is ignored - the structure is rebuilt the next time.
+     *
+     * @param acceleration the kind of the structure
+     * @param key          the key of the structure
+     * @param structure    the structure
+     */
+    void store(Acceleration acceleration, byte[] key, AccelerationStructure structure) {
+        if (!(structure instanceof Savable savable)) return;
+        long payloadBytes = savable.getSavedBytes();
+        if (HEADER_BYTES + payloadBytes > Integer.MAX_VALUE) return;
+        Path file = file(acceleration, key);
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) (HEADER_BYTES + payloadBytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).put(key).putInt(structure.size).putLong(payloadBytes);
+            int checksumPosition = buffer.position();
+            buffer.putLong(0);
+            ByteBuffer payload = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            savable.save(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload.flip());
+            buffer.putLong(checksumPosition, crc.getValue()).clear();
+            try (FileChannel channel = FileChannel.open(temporary, WRITE)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            Files.move(temporary, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the cache only saves time - a structure which was not stored is rebuilt the next time
+            try {
+                if (temporary != null) Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // nothing more to clean up
+            }
+        }
+    }
+
+    /**
+     * Calculates the cache file of a structure
+     *
+     * @param acceleration the kind of the structure
+     * @param key          the key of the structure
+     * @return the file
+     */
+    Path file(Acceleration acceleration, byte[] key) {
+        return directory.resolve(acceleration.name().toLowerCase() + "-" + HexFormat.of().formatHex(key) + ".cache");
+    }
+
+    /**
+     * Writes integers at the position of a buffer, and advances the position
+     *
+     * @param buffer the buffer
+     * @param values the integers
+     */
+    static void put(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    /**
+     * Writes doubles at the position of a buffer, and advances the position
+     *
+     * @param buffer the buffer
+     * @param values the doubles
+     */
+    static void put(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+    }
+
+    /**
+     * Reads integers from the position of a buffer, and advances the position
+     *
+     * @param buffer the buffer
+     * @param values the array to fill
+     */
+    static void get(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    /**
+     * Reads doubles from the position of a buffer, and advances the position
+     *
+     * @param buffer the buffer
+     * @param values the array to fill
+     */
+    static void get(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+    }
+}
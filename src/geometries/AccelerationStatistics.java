@@ -0,0 +1,15 @@
+package geometries;
+
+/**
+ * Statistics of the acceleration structure of a {@link Geometries} collection
+ *
+ * @param acceleration the kind of the structure
+ * @param primitives   the amount of bounded geometries in the structure
+ * @param nodes        the amount of nodes (or cells) of the structure
+ * @param nodeBytes    the memory taken by the nodes (or cells) of the structure, in bytes
+ * @param buildMillis  the wall-clock time of building (or loading) the structure, in milliseconds
+ * @param loaded       whether the structure was loaded from the cache instead of built
+ */
+public record AccelerationStatistics(Acceleration acceleration, int primitives, int nodes, long nodeBytes,
+                                     double buildMillis, boolean loaded) {
+}
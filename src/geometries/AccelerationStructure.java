@@ -0,0 +1,127 @@
+package geometries;
+
+import primitives.Ray;
+
+/**
+ * Spatial index over a set of bounded primitives.
+ * An acceleration structure is built from the bounding boxes of the primitives only,
+ * and it reports the indices of the primitives which a ray may hit -
+ * testing the ray against the primitives themselves is left to the caller.
+ */
+abstract class AccelerationStructure {
+
+    /**
+     * Receives the primitives reported by a traversal
+     */
+    @FunctionalInterface
+    interface Visitor {
+        /**
+         * Receives a primitive which the ray may hit
+         *
+         * @param primitive the index of the primitive
+         * @return the distance from the head of the ray up to which the traversal goes on, negative to stop it
+         */
+        double visit(int primitive);
+    }
+
+    /**
+     * Receives the primitives reported by a traversal of a ray packet
+     */
+    @FunctionalInterface
+    interface PacketVisitor {
+        /**
+         * Receives a primitive which some rays of the packet may hit - the visitor records the hits
+         * in the hit records of the packet, which bound the traversal of the rays
+         *
+         * @param primitive the index of the primitive
+         * @param rays      the mask of the rays which may hit it
+         */
+        void visit(int primitive, long rays);
+    }
+
+    /**
+     * Primitive bounds - 6 values (minimal and maximal x, y, z) per primitive
+     */
+    protected final double[] bounds;
+
+    /**
+     * Amount of primitives in the structure
+     */
+    protected final int size;
+
+    /**
+     * Constructor for the common data of the structures
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     */
+    protected AccelerationStructure(double[] bounds) {
+        this.bounds = bounds;
+        this.size = bounds.length / 6;
+    }
+
+    /**
+     * Getter of the amount of nodes (or cells) of the structure
+     *
+     * @return the amount of nodes
+     */
+    abstract int getNodeCount();
+
+    /**
+     * Getter of the memory taken by the nodes (or cells) of the structure
+     *
+     * @return the memory in bytes
+     */
+    abstract long getNodeBytes();
+
+    /**
+     * Refits the structure to primitive bounds which were updated in place, keeping its topology.
+     * A structure which cannot be refitted, or whose quality degraded too much by refitting,
+     * must be rebuilt.
+     *
+     * @return true if the structure was refitted, false if it must be rebuilt
+     */
+    boolean refit() {
+        return false;
+    }
+
+    /**
+     * Reports the primitives which the ray may hit closer than a distance from its head.
+     * Nodes (or cells) which the ray enters beyond the distance are skipped, and the visitor
+     * may shorten the distance, or stop the traversal, whenever it receives a primitive.
+     *
+     * @param ray         the ray
+     * @param maxDistance the distance, infinite for the whole ray
+     * @param visitor     receives the indices of the primitives
+     */
+    abstract void traverse(Ray ray, double maxDistance, Visitor visitor);
+
+    /**
+     * Reports the primitives which the rays of a packet may hit closer than their hit records.
+     * Structures which have no packet traversal traverse the rays one by one.
+     *
+     * @param packet  the packet
+     * @param visitor receives the indices of the primitives, with the rays which may hit them
+     */
+    void traverse(RayPacket packet, PacketVisitor visitor) {
+        for (int k = 0; k < packet.size; ++k) {
+            Hit hit = packet.hits[k];
+            long ray = 1L << k;
+            traverse(packet.rays[k], hit.distance, primitive -> {
+                visitor.visit(primitive, ray);
+                return hit.distance;
+            });
+        }
+    }
+
+    /**
+     * Inverse of a ray direction component - a zero component gets a huge
+     * inverse of the same sign instead of an infinity, so that the slab test never
+     * multiplies zero by infinity
+     *
+     * @param d the direction component
+     * @return the inverse
+     */
+    static double inverse(double d) {
+        return d == 0 ? (1 / d > 0 ? Double.MAX_VALUE : -Double.MAX_VALUE) : 1 / d;
+    }
+}
@@ -0,0 +1,474 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bounding volume hierarchy (BVH) over a set of bounded primitives.
+ * The hierarchy knows nothing about the primitives themselves - it is built from their
+ * bounding boxes only, and it reports the indices of the primitives whose boxes are
+ * pierced by a ray. The tree is produced by a {@link Builder} - either top-down by the
+ * surface area heuristic ({@link SAHBuilder}), or from sorted Morton codes of the
+ * primitive centroids ({@link LinearBVHBuilder}).
+ * After the build the tree is flattened into arrays in depth-first order - the left child
+ * of an inner node follows it directly, so that a node only refers to its right child.
+ * A ray walks the arrays with a per-thread stack of pending right children, and nothing
+ * is allocated per ray.
+ */
+class BVH extends AccelerationStructure implements Savable {
+
+    /**
+     * Maximal amount of primitives in a leaf
+     */
+    static final int MAX_LEAF_SIZE = 4;
+
+    /**
+     * Estimated cost of testing a ray against a node box, relative to a primitive test
+     */
+    static final double TRAVERSAL_COST = 1d / 8;
+
+    /**
+     * Maximal growth of the SAH cost of a refitted hierarchy, relative to its cost when it was built -
+     * a hierarchy which degraded more than that is rebuilt
+     */
+    static final double MAX_REFIT_DEGRADATION = 1.5;
+
+    /**
+     * Factor which widens the far distance of a box hit, so that rounding errors
+     * never cull a box which is actually pierced by the ray
+     */
+    private static final double ROBUSTNESS = 1 + 1e-9;
+
+    /**
+     * The pool for building hierarchies. The pool is separate from the common pool,
+     * so that the build is not starved by parallel rendering threads waiting for it.
+     */
+    static final ForkJoinPool BUILD_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Node of the hierarchy - an inner node has two children,
+     * a leaf node refers to a range of the primitive order array
+     */
+    static final class Node {
+        double minX, minY, minZ, maxX, maxY, maxZ;
+        Node left, right;
+        int start, count;
+    }
+
+    /**
+     * Strategy of building the tree of a hierarchy
+     */
+    @FunctionalInterface
+    interface Builder {
+        /**
+         * Builds the tree over primitives with the given bounds
+         *
+         * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+         * @param order  array to fill with the primitive indices, ordered so that
+         *               every leaf refers to a continuous range
+         * @return the root of the tree, null if there are no primitives
+         */
+        Node build(double[] bounds, int[] order);
+    }
+
+    /**
+     * Primitive indices ordered so that every leaf refers to a continuous range
+     */
+    private final int[] order;
+
+    /**
+     * Node boxes in depth-first order - minimal and maximal x, y, z of every node
+     */
+    private final double[] nodeBounds;
+
+    /**
+     * Node references in depth-first order, two values per node: the amount of primitives and
+     * the first primitive in the order array of a leaf, or 0 and the index of the right child
+     * of an inner node
+     */
+    private final int[] nodes;
+
+    /**
+     * Amount of nodes in the hierarchy
+     */
+    private final int nodeCount;
+
+    /**
+     * Traversal stack of every rendering thread - deep enough for the deepest leaf
+     */
+    private final ThreadLocal<int[]> stacks;
+
+    /**
+     * Traversal stack of every rendering thread for ray packets - pending right children with their first rays
+     */
+    private final ThreadLocal<int[]> packetStacks;
+
+    /**
+     * The SAH cost of the hierarchy when it was built
+     */
+    private final double builtCost;
+
+    /**
+     * Builds the hierarchy over primitives with the given bounds
+     *
+     * @param bounds  primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param builder the strategy of building the tree
+     */
+    BVH(double[] bounds, Builder builder) {
+        super(bounds);
+        order = new int[size];
+        Node root = builder.build(bounds, order);
+        nodeCount = countNodes(root);
+        nodeBounds = new double[nodeCount * 6];
+        nodes = new int[nodeCount * 2];
+        if (root != null) flatten(root, 0);
+        int depth = depth(root);
+        stacks = ThreadLocal.withInitial(() -> new int[depth]);
+        packetStacks = ThreadLocal.withInitial(() -> new int[2 * depth]);
+        builtCost = cost();
+    }
+
+    /**
+     * Restores a hierarchy saved by {@link #save}
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param buffer the saved hierarchy
+     * @throws IllegalArgumentException if the saved hierarchy does not fit the primitives
+     */
+    BVH(double[] bounds, ByteBuffer buffer) {
+        super(bounds);
+        nodeCount = buffer.getInt();
+        if (nodeCount < 0 || nodeCount > 2 * size)
+            throw new IllegalArgumentException("Wrong amount of nodes in a saved hierarchy");
+        order = new int[size];
+        nodeBounds = new double[nodeCount * 6];
+        nodes = new int[nodeCount * 2];
+        AccelerationCache.get(buffer, order);
+        AccelerationCache.get(buffer, nodeBounds);
+        AccelerationCache.get(buffer, nodes);
+        int depth = checkedDepth();
+        stacks = ThreadLocal.withInitial(() -> new int[depth]);
+        packetStacks = ThreadLocal.withInitial(() -> new int[2 * depth]);
+        builtCost = cost();
+    }
+
+    /**
+     * Checks that the node arrays make a tree over the primitives, and calculates its amount of levels -
+     * in depth-first order the children of a node follow it, so a single forward sweep reaches all the levels
+     *
+     * @return the amount of levels
+     * @throws IllegalArgumentException if the node arrays do not make a tree over the primitives
+     */
+    private int checkedDepth() {
+        for (int primitive : order)
+            if (primitive < 0 || primitive >= size)
+                throw new IllegalArgumentException("Wrong primitive in a saved hierarchy");
+        int[] levels = new int[nodeCount];
+        int depth = 0;
+        if (nodeCount > 0) levels[0] = 1;
+        for (int node = 0; node < nodeCount; ++node) {
+            int count = nodes[node * 2], offset = nodes[node * 2 + 1];
+            if (levels[node] == 0 || count < 0 || offset < 0)
+                throw new IllegalArgumentException("Wrong node in a saved hierarchy");
+            depth = Math.max(depth, levels[node]);
+            if (count > 0) {
+                if (offset > size - count)
+                    throw new IllegalArgumentException("Wrong leaf in a saved hierarchy");
+            } else {
+                if (offset <= node + 1 || offset >= nodeCount)
+                    throw new IllegalArgumentException("Wrong inner node in a saved hierarchy");
+                levels[node + 1] = levels[offset] = levels[node] + 1;
+            }
+        }
+        return depth;
+    }
+
+    @Override
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public long getSavedBytes() {
+        return Integer.BYTES + (long) order.length * Integer.BYTES + getNodeBytes();
+    }
+
+    @Override
+    public void save(ByteBuffer buffer) {
+        buffer.putInt(nodeCount);
+        AccelerationCache.put(buffer, order);
+        AccelerationCache.put(buffer, nodeBounds);
+        AccelerationCache.put(buffer, nodes);
+    }
+
+    @Override
+    long getNodeBytes() {
+        return (long) nodeBounds.length * Double.BYTES + (long) nodes.length * Integer.BYTES;
+    }
+
+    /**
+     * Counts the nodes of a sub-tree
+     *
+     * @param node the root of the sub-tree
+     * @return the amount of nodes
+     */
+    static int countNodes(Node node) {
+        return node == null ? 0 : 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    /**
+     * Calculates the amount of levels of a sub-tree
+     *
+     * @param node the root of the sub-tree
+     * @return the amount of levels
+     */
+    static int depth(Node node) {
+        return node == null ? 0 : 1 + Math.max(depth(node.left), depth(node.right));
+    }
+
+    /**
+     * Recursively stores a sub-tree in the node arrays in depth-first order
+     *
+     * @param node  the root of the sub-tree
+     * @param index the index of the root in the arrays
+     * @return the index following the sub-tree
+     */
+    private int flatten(Node node, int index) {
+        int b = index * 6;
+        nodeBounds[b] = node.minX;
+        nodeBounds[b + 1] = node.minY;
+        nodeBounds[b + 2] = node.minZ;
+        nodeBounds[b + 3] = node.maxX;
+        nodeBounds[b + 4] = node.maxY;
+        nodeBounds[b + 5] = node.maxZ;
+        if (node.left == null) {
+            nodes[index * 2] = node.count;
+            nodes[index * 2 + 1] = node.start;
+            return index + 1;
+        }
+        int right = flatten(node.left, index + 1);
+        nodes[index * 2 + 1] = right;
+        return flatten(node.right, right);
+    }
+
+    /**
+     * Refits the node boxes bottom-up to the current primitive bounds - in depth-first order
+     * the children of a node follow it, so a single backward sweep refits the whole hierarchy.
+     * The hierarchy must be rebuilt if its SAH cost grew by more than {@link #MAX_REFIT_DEGRADATION}
+     * since it was built.
+     */
+    @Override
+    boolean refit() {
+        for (int node = nodeCount - 1; node >= 0; --node) {
+            int b = node * 6, count = nodes[node * 2], offset = nodes[node * 2 + 1];
+            if (count > 0) {
+                for (int j = 0; j < 3; ++j) {
+                    nodeBounds[b + j] = Double.POSITIVE_INFINITY;
+                    nodeBounds[b + j + 3] = Double.NEGATIVE_INFINITY;
+                }
+                for (int i = offset; i < offset + count; ++i) {
+                    int p = order[i] * 6;
+                    for (int j = 0; j < 3; ++j) {
+                        nodeBounds[b + j] = Math.min(nodeBounds[b + j], bounds[p + j]);
+                        nodeBounds[b + j + 3] = Math.max(nodeBounds[b + j + 3], bounds[p + j + 3]);
+                    }
+                }
+            } else {
+                int l = b + 6, r = offset * 6;
+                for (int j = 0; j < 3; ++j) {
+                    nodeBounds[b + j] = Math.min(nodeBounds[l + j], nodeBounds[r + j]);
+                    nodeBounds[b + j + 3] = Math.max(nodeBounds[l + j + 3], nodeBounds[r + j + 3]);
+                }
+            }
+        }
+        return cost() <= builtCost * MAX_REFIT_DEGRADATION;
+    }
+
+    /**
+     * Calculates the SAH cost of the hierarchy - the expected cost of tracing a ray which pierces
+     * the root box, relative to a primitive test
+     *
+     * @return the cost, 0 if the hierarchy is empty or its root box is flat
+     */
+    double cost() {
+        if (nodeCount == 0) return 0;
+        double cost = 0;
+        for (int node = 0; node < nodeCount; ++node) {
+            int count = nodes[node * 2];
+            cost += area(node) * (count > 0 ? count : TRAVERSAL_COST);
+        }
+        double area = area(0);
+        return area > 0 ? cost / area : 0;
+    }
+
+    /**
+     * Calculates the surface area of a node box
+     *
+     * @param node the index of the node
+     * @return the surface area
+     */
+    private double area(int node) {
+        int b = node * 6;
+        double dx = nodeBounds[b + 3] - nodeBounds[b], dy = nodeBounds[b + 4] - nodeBounds[b + 1];
+        double dz = nodeBounds[b + 5] - nodeBounds[b + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Sets the bounds of a node
+     *
+     * @param node  the node
+     * @param boxes array of boxes - 6 values per box
+     * @param index index of the node box in the array
+     * @return the node
+     */
+    static Node bounded(Node node, double[] boxes, int index) {
+        int b = index * 6;
+        node.minX = boxes[b];
+        node.minY = boxes[b + 1];
+        node.minZ = boxes[b + 2];
+        node.maxX = boxes[b + 3];
+        node.maxY = boxes[b + 4];
+        node.maxZ = boxes[b + 5];
+        return node;
+    }
+
+    /**
+     * Sets the box of a leaf to the union of the bounds of its primitives
+     *
+     * @param node   the leaf
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param order  the primitive order array
+     * @return the leaf
+     */
+    static Node boundLeaf(Node node, double[] bounds, int[] order) {
+        node.minX = node.minY = node.minZ = Double.POSITIVE_INFINITY;
+        node.maxX = node.maxY = node.maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = node.start; i < node.start + node.count; ++i) {
+            int b = order[i] * 6;
+            node.minX = Math.min(node.minX, bounds[b]);
+            node.minY = Math.min(node.minY, bounds[b + 1]);
+            node.minZ = Math.min(node.minZ, bounds[b + 2]);
+            node.maxX = Math.max(node.maxX, bounds[b + 3]);
+            node.maxY = Math.max(node.maxY, bounds[b + 4]);
+            node.maxZ = Math.max(node.maxZ, bounds[b + 5]);
+        }
+        return node;
+    }
+
+    /**
+     * Sets the box of an inner node to the union of the boxes of its children
+     *
+     * @param node the inner node
+     * @return the node
+     */
+    static Node boundInner(Node node) {
+        node.minX = Math.min(node.left.minX, node.right.minX);
+        node.minY = Math.min(node.left.minY, node.right.minY);
+        node.minZ = Math.min(node.left.minZ, node.right.minZ);
+        node.maxX = Math.max(node.left.maxX, node.right.maxX);
+        node.maxY = Math.max(node.left.maxY, node.right.maxY);
+        node.maxZ = Math.max(node.left.maxZ, node.right.maxZ);
+        return node;
+    }
+
+    /**
+     * Turns a node into a leaf
+     *
+     * @param node  the node
+     * @param start the first primitive of the leaf
+     * @param count the amount of primitives in the leaf
+     * @return the node
+     */
+    static Node leaf(Node node, int start, int count) {
+        node.start = start;
+        node.count = count;
+        return node;
+    }
+
+    @Override
+    void traverse(Ray ray, double maxDistance, Visitor visitor) {
+        if (nodeCount == 0) return;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double ix = inverse(dir.getX()), iy = inverse(dir.getY()), iz = inverse(dir.getZ());
+        double[] boxes = nodeBounds;
+        int[] stack = stacks.get();
+        int top = 0, node = 0;
+        while (true) {
+            int b = node * 6;
+            if (hitBox(boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3], boxes[b + 4], boxes[b + 5],
+                    ox, oy, oz, ix, iy, iz, maxDistance)) {
+                int count = nodes[node * 2], offset = nodes[node * 2 + 1];
+                if (count == 0) {
+                    // visit the left child next, and the right child later
+                    stack[top++] = offset;
+                    ++node;
+                    continue;
+                }
+                for (int i = offset; i < offset + count; ++i)
+                    if ((maxDistance = visitor.visit(order[i])) < 0) return;
+            }
+            if (top == 0) return;
+            node = stack[--top];
+        }
+    }
+
+    /**
+     * The packet descends into every node hit by one of its rays. A node is culled for the whole
+     * packet by the interval test of the packet, or else by testing the rays from the first one
+     * which hit the parent, until one hits the node. The rays of a leaf are tested one by one,
+     * so that a primitive is reported to the rays which hit the leaf only.
+     */
+    @Override
+    void traverse(RayPacket packet, PacketVisitor visitor) {
+        if (nodeCount == 0) return;
+        double[] boxes = nodeBounds;
+        int[] stack = packetStacks.get();
+        int top = 0, node = 0, first = 0;
+        while (true) {
+            first = packet.firstHit(boxes, node * 6, first);
+            if (first < packet.size) {
+                int count = nodes[node * 2], offset = nodes[node * 2 + 1];
+                if (count == 0) {
+                    // visit the left child next, and the right child later - both from the same first ray
+                    stack[top++] = offset;
+                    stack[top++] = first;
+                    ++node;
+                    continue;
+                }
+                long rays = packet.hits(boxes, node * 6, first);
+                for (int i = offset; i < offset + count; ++i)
+                    visitor.visit(order[i], rays);
+            }
+            if (top == 0) return;
+            first = stack[--top];
+            node = stack[--top];
+        }
+    }
+
+    /**
+     * Slab test of a ray against an axis-aligned box
+     *
+     * @return true if the ray pierces the box in front of its head, closer than tMax
+     */
+    static boolean hitBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                          double ox, double oy, double oz, double ix, double iy, double iz, double tMax) {
+        double t1 = (minX - ox) * ix, t2 = (maxX - ox) * ix;
+        double tNear = Math.min(t1, t2), tFar = Math.max(t1, t2);
+        t1 = (minY - oy) * iy;
+        t2 = (maxY - oy) * iy;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+        t1 = (minZ - oz) * iz;
+        t2 = (maxZ - oz) * iz;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(Math.min(tFar, Math.max(t1, t2)), tMax) * ROBUSTNESS;
+        return tFar >= 0 && tNear <= tFar;
+    }
+}
@@ -0,0 +1,130 @@
+package geometries;
+
+import primitives.Point;
+
+import java.util.List;
+
+/**
+ * Axis-aligned bounding box (AABB) of a bounded intersectable.
+ * The box is used by the acceleration structures of {@link Geometries}
+ * in order to skip geometries which a ray cannot hit.
+ */
+public class BoundingBox {
+
+    /**
+     * Minimal x coordinate of the box
+     */
+    public final double minX;
+    /**
+     * Minimal y coordinate of the box
+     */
+    public final double minY;
+    /**
+     * Minimal z coordinate of the box
+     */
+    public final double minZ;
+    /**
+     * Maximal x coordinate of the box
+     */
+    public final double maxX;
+    /**
+     * Maximal y coordinate of the box
+     */
+    public final double maxY;
+    /**
+     * Maximal z coordinate of the box
+     */
+    public final double maxZ;
+
+    /**
+     * Constructs a bounding box from its minimal and maximal coordinates.
+     *
+     * @param minX minimal x coordinate
+     * @param minY minimal y coordinate
+     * @param minZ minimal z coordinate
+     * @param maxX maximal x coordinate
+     * @param maxY maximal y coordinate
+     * @param maxZ maximal z coordinate
+     * @throws IllegalArgumentException if a minimal coordinate is greater than the maximal one
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        if (minX > maxX || minY > maxY || minZ > maxZ)
+            throw new IllegalArgumentException("Minimal coordinates of a bounding box must not exceed the maximal ones");
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest bounding box containing all the given points.
+     *
+     * @param points the points to bound
+     * @return the bounding box of the points
+     */
+    public static BoundingBox of(List<Point> points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Point point : points) {
+            minX = Math.min(minX, point.getX());
+            minY = Math.min(minY, point.getY());
+            minZ = Math.min(minZ, point.getZ());
+            maxX = Math.max(maxX, point.getX());
+            maxY = Math.max(maxY, point.getY());
+            maxZ = Math.max(maxZ, point.getZ());
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Constructs the smallest bounding box containing both this box and another one.
+     *
+     * @param other the other box
+     * @return the union of the boxes
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Calculates the surface area of the box
+     *
+     * @return the surface area
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Checks whether a point lays inside the box (or on its boundary)
+     *
+     * @param point the point
+     * @return true if the point is inside the box
+     */
+    public boolean contains(Point point) {
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        return minX <= x && x <= maxX && minY <= y && y <= maxY && minZ <= z && z <= maxZ;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        return obj instanceof BoundingBox other
+                && minX == other.minX && minY == other.minY && minZ == other.minZ
+                && maxX == other.maxX && maxY == other.maxY && maxZ == other.maxZ;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) Math.round(minX + minY + minZ + maxX + maxY + maxZ);
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{(" + minX + "," + minY + "," + minZ + ")-(" + maxX + "," + maxY + "," + maxZ + ")}";
+    }
+}
@@ -0,0 +1,293 @@
+package geometries;
+
+import geometries.BVH.Node;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+
+import static geometries.BVH.countNodes;
+import static geometries.BVH.depth;
+import static geometries.BVH.hitBox;
+
+/**
+ * Bounding volume hierarchy with quantized node boxes, for scenes whose memory is the bottleneck.
+ * The tree is built like {@link BVH} (by {@link SAHBuilder}) and stored in depth-first order,
+ * but only the root box is stored in full precision - the box of every node is stored as
+ * 8 or 16 bit offsets on a lattice over the box of its parent. A node takes 10 bytes
+ * (8 bit offsets) or 16 bytes (16 bit offsets) instead of the 56 bytes of a {@link BVH} node.
+ * The boxes are quantized conservatively: minimums are rounded down and maximums up, against
+ * the very arithmetic which decodes them, so that a decoded box always contains the exact one.
+ * The traversal decodes the boxes on its way down, and the per-thread stack keeps the decoded box
+ * of the parent of every pending node.
+ */
+class CompressedBVH extends AccelerationStructure {
+
+    /**
+     * Amount of low bits of a node reference which hold the amount of primitives of a leaf
+     */
+    private static final int COUNT_BITS = 3;
+
+    /**
+     * Traversal stack of a rendering thread - pending nodes with the decoded boxes of their parents
+     */
+    private static final class Stack {
+        private final int[] nodes;
+        private final double[] boxes;
+
+        /**
+         * Constructs a stack
+         *
+         * @param depth the maximal amount of pending nodes
+         */
+        private Stack(int depth) {
+            nodes = new int[depth];
+            boxes = new double[depth * 6];
+        }
+    }
+
+    /**
+     * Amount of bits of a quantized coordinate - 8 or 16
+     */
+    private final int bits;
+
+    /**
+     * The largest quantized coordinate
+     */
+    private final int levels;
+
+    /**
+     * Primitive indices ordered so that every leaf refers to a continuous range
+     */
+    private final int[] order;
+
+    /**
+     * The box of the root in full precision - minimal and maximal x, y, z
+     */
+    private final double[] rootBounds = new double[6];
+
+    /**
+     * Quantized node boxes in depth-first order - minimal and maximal x, y, z of every node,
+     * relative to the box of its parent, one byte per coordinate of 8 bits (two bytes of 16 bits)
+     */
+    private final byte[] quantized;
+
+    /**
+     * Node references in depth-first order - the amount of primitives of a leaf in the low
+     * {@link #COUNT_BITS} bits and its first primitive in the order array above them,
+     * or 0 in the low bits and the index of the right child above them for an inner node
+     */
+    private final int[] nodes;
+
+    /**
+     * Amount of nodes in the hierarchy
+     */
+    private final int nodeCount;
+
+    /**
+     * Traversal stack of every rendering thread - deep enough for the deepest leaf
+     */
+    private final ThreadLocal<Stack> stacks;
+
+    /**
+     * Builds the hierarchy over primitives with the given bounds
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param bits   amount of bits of a quantized coordinate - 8 or 16
+     */
+    CompressedBVH(double[] bounds, int bits) {
+        super(bounds);
+        // a node reference holds up to 2 * size nodes above the count bits
+        if (size >= 1 << (Integer.SIZE - 2 - COUNT_BITS))
+            throw new IllegalArgumentException("Too many primitives for a compressed hierarchy");
+        this.bits = bits;
+        levels = (1 << bits) - 1;
+        order = new int[size];
+        Node root = SAHBuilder.build(bounds, order);
+        nodeCount = countNodes(root);
+        quantized = new byte[nodeCount * 6 * bits / 8];
+        nodes = new int[nodeCount];
+        if (root != null) {
+            rootBounds[0] = root.minX;
+            rootBounds[1] = root.minY;
+            rootBounds[2] = root.minZ;
+            rootBounds[3] = root.maxX;
+            rootBounds[4] = root.maxY;
+            rootBounds[5] = root.maxZ;
+            flatten(root, 0, rootBounds);
+        }
+        int depth = depth(root);
+        stacks = ThreadLocal.withInitial(() -> new Stack(depth));
+    }
+
+    @Override
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    long getNodeBytes() {
+        return quantized.length + (long) nodes.length * Integer.BYTES + (long) rootBounds.length * Double.BYTES;
+    }
+
+    /**
+     * Recursively stores a sub-tree in the node arrays in depth-first order
+     *
+     * @param node   the root of the sub-tree
+     * @param index  the index of the root in the arrays
+     * @param parent the decoded box of the parent of the root
+     * @return the index following the sub-tree
+     */
+    private int flatten(Node node, int index, double[] parent) {
+        double[] exact = {node.minX, node.minY, node.minZ, node.maxX, node.maxY, node.maxZ};
+        double[] box = new double[6];
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = parent[axis], max = parent[axis + 3], scale = (max - min) / levels;
+            int qMin = quantizeMin(exact[axis], min, scale);
+            int qMax = quantizeMax(exact[axis + 3], min, max, scale);
+            store(index * 6 + axis, qMin);
+            store(index * 6 + axis + 3, qMax);
+            box[axis] = decodeMin(qMin, min, scale);
+            box[axis + 3] = decodeMax(qMax, min, max, scale);
+        }
+        if (node.left == null) {
+            nodes[index] = node.start << COUNT_BITS | node.count;
+            return index + 1;
+        }
+        int right = flatten(node.left, index + 1, box);
+        nodes[index] = right << COUNT_BITS;
+        return flatten(node.right, right, box);
+    }
+
+    /**
+     * Quantizes a minimal coordinate - the largest lattice coordinate which decodes to at most the coordinate
+     *
+     * @param coordinate the coordinate
+     * @param min        the minimal coordinate of the parent box
+     * @param scale      the size of a lattice cell
+     * @return the quantized coordinate
+     */
+    private int quantizeMin(double coordinate, double min, double scale) {
+        if (scale <= 0) return 0;
+        int q = (int) Math.max(0, Math.min(levels, Math.floor((coordinate - min) / scale)));
+        while (q > 0 && decodeMin(q, min, scale) > coordinate) --q;
+        return q;
+    }
+
+    /**
+     * Quantizes a maximal coordinate - the smallest lattice coordinate which decodes to at least the coordinate
+     *
+     * @param coordinate the coordinate
+     * @param min        the minimal coordinate of the parent box
+     * @param max        the maximal coordinate of the parent box
+     * @param scale      the size of a lattice cell
+     * @return the quantized coordinate
+     */
+    private int quantizeMax(double coordinate, double min, double max, double scale) {
+        if (scale <= 0) return levels;
+        int q = (int) Math.max(0, Math.min(levels, Math.ceil((coordinate - min) / scale)));
+        while (q < levels && decodeMax(q, min, max, scale) < coordinate) ++q;
+        return q;
+    }
+
+    /**
+     * Decodes a quantized minimal coordinate
+     *
+     * @param q     the quantized coordinate
+     * @param min   the minimal coordinate of the parent box
+     * @param scale the size of a lattice cell
+     * @return the coordinate
+     */
+    private static double decodeMin(int q, double min, double scale) {
+        return min + q * scale;
+    }
+
+    /**
+     * Decodes a quantized maximal coordinate - the last lattice coordinate is the parent maximum exactly
+     *
+     * @param q     the quantized coordinate
+     * @param min   the minimal coordinate of the parent box
+     * @param max   the maximal coordinate of the parent box
+     * @param scale the size of a lattice cell
+     * @return the coordinate
+     */
+    private double decodeMax(int q, double min, double max, double scale) {
+        return q == levels ? max : min + q * scale;
+    }
+
+    /**
+     * Stores a quantized coordinate
+     *
+     * @param index the index of the coordinate
+     * @param q     the quantized coordinate
+     */
+    private void store(int index, int q) {
+        if (bits == 8)
+            quantized[index] = (byte) q;
+        else {
+            quantized[index * 2] = (byte) (q >>> 8);
+            quantized[index * 2 + 1] = (byte) q;
+        }
+    }
+
+    /**
+     * Loads a quantized coordinate
+     *
+     * @param index the index of the coordinate
+     * @return the quantized coordinate
+     */
+    private int load(int index) {
+        return bits == 8 ? quantized[index] & 0xFF
+                : (quantized[index * 2] & 0xFF) << 8 | quantized[index * 2 + 1] & 0xFF;
+    }
+
+    @Override
+    void traverse(Ray ray, double maxDistance, Visitor visitor) {
+        if (nodeCount == 0) return;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double ix = inverse(dir.getX()), iy = inverse(dir.getY()), iz = inverse(dir.getZ());
+        Stack stack = stacks.get();
+        int top = 0, node = 0;
+        double px0 = rootBounds[0], py0 = rootBounds[1], pz0 = rootBounds[2];
+        double px1 = rootBounds[3], py1 = rootBounds[4], pz1 = rootBounds[5];
+        while (true) {
+            // decode the box of the node on the lattice of its parent box
+            int q = node * 6;
+            double sx = (px1 - px0) / levels, sy = (py1 - py0) / levels, sz = (pz1 - pz0) / levels;
+            double x0 = decodeMin(load(q), px0, sx), y0 = decodeMin(load(q + 1), py0, sy);
+            double z0 = decodeMin(load(q + 2), pz0, sz);
+            double x1 = decodeMax(load(q + 3), px0, px1, sx), y1 = decodeMax(load(q + 4), py0, py1, sy);
+            double z1 = decodeMax(load(q + 5), pz0, pz1, sz);
+            if (hitBox(x0, y0, z0, x1, y1, z1, ox, oy, oz, ix, iy, iz, maxDistance)) {
+                int reference = nodes[node], count = reference & (1 << COUNT_BITS) - 1;
+                int offset = reference >>> COUNT_BITS;
+                if (count == 0) {
+                    // visit the left child next, and the right child later - both inside this box
+                    int b = top * 6;
+                    stack.nodes[top++] = offset;
+                    stack.boxes[b] = px0 = x0;
+                    stack.boxes[b + 1] = py0 = y0;
+                    stack.boxes[b + 2] = pz0 = z0;
+                    stack.boxes[b + 3] = px1 = x1;
+                    stack.boxes[b + 4] = py1 = y1;
+                    stack.boxes[b + 5] = pz1 = z1;
+                    ++node;
+                    continue;
+                }
+                for (int i = offset; i < offset + count; ++i)
+                    if ((maxDistance = visitor.visit(order[i])) < 0) return;
+            }
+            if (top == 0) return;
+            node = stack.nodes[--top];
+            int b = top * 6;
+            px0 = stack.boxes[b];
+            py0 = stack.boxes[b + 1];
+            pz0 = stack.boxes[b + 2];
+            px1 = stack.boxes[b + 3];
+            py1 = stack.boxes[b + 4];
+            pz1 = stack.boxes[b + 5];
+        }
+    }
+}
@@ -67,13 +67,32 @@ public class Cylinder extends Tube {
     }
 
     /**
-     * @param ray the ray
+     * The box bounds the two bases of the cylinder - each base is a disk
+     * which extends along every axis by radius * sqrt(1 - d^2),
+     * where d is the matching coordinate of the (unit) axis direction.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        Point o1 = axisRay.getP0();
+        Vector dir = axisRay.getDir();
+        Point o2 = o1.add(dir.scale(height));
+        double ex = radius * Math.sqrt(Math.max(0, 1 - dir.getX() * dir.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - dir.getY() * dir.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - dir.getZ() * dir.getZ()));
+        return new BoundingBox(Math.min(o1.getX(), o2.getX()) - ex, Math.min(o1.getY(), o2.getY()) - ey,
+                Math.min(o1.getZ(), o2.getZ()) - ez, Math.max(o1.getX(), o2.getX()) + ex,
+                Math.max(o1.getY(), o2.getY()) + ey, Math.max(o1.getZ(), o2.getZ()) + ez);
+    }
+
+    /**
+     * @param ray         the ray
+     * @param maxDistance the distance from the head of the ray - farther points are ignored
      * @return list of intersection points
      */
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
         List<GeoPoint> res = new ArrayList<>();
-        List<GeoPoint> lst = super.findGeoIntersectionsHelper(ray);
+        List<GeoPoint> lst = super.findGeoIntersectionsHelper(ray, maxDistance);
         if (lst != null)
             for (GeoPoint geoPoint : lst) {
                 double distance = alignZero(geoPoint.point.subtract(axisRay.getP0()).dotProduct(axisRay.getDir()));
@@ -1,7 +1,12 @@
 package geometries;
 
+import primitives.Double3;
+import primitives.Point;
 import primitives.Ray;
+import primitives.Vector;
 
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -11,6 +16,10 @@ import java.util.List;
  * It is composed of a list of geometries.
  * It is used to find intersections between a ray and the geometries in the collection.
  * It is used to find the closest intersection point to a given point.
+ * The bounded geometries of the collection are organized in an acceleration structure
+ * (a bounding volume hierarchy unless another {@link Acceleration} is chosen),
+ * which is built the first time the collection is traced - or loaded from a cache directory
+ * ({@link #setAccelerationCache}) if it was built for the same geometries before.
  */
 public class Geometries extends Intersectable {
 
@@ -19,6 +28,133 @@ public class Geometries extends Intersectable {
      */
     private final List<Intersectable> geometriesList = new LinkedList<>();
 
+    /**
+     * The kind of acceleration structure over the bounded geometries
+     */
+    private Acceleration acceleration = Acceleration.BOUNDING_VOLUME_HIERARCHY;
+
+    /**
+     * The cache of built acceleration structures, null if structures are not cached
+     */
+    private AccelerationCache cache;
+
+    /**
+     * The bounded geometries, indexed the same as in the acceleration structure
+     */
+    private Intersectable[] bounded;
+
+    /**
+     * The unbounded geometries (e.g. planes), which are tested against every ray
+     */
+    private Intersectable[] unbounded;
+
+    /**
+     * The acceleration structure over the bounded geometries, null until the collection is traced
+     */
+    private volatile AccelerationStructure accelerator;
+
+    /**
+     * The wall-clock time of building the acceleration structure, in milliseconds
+     */
+    private double buildMillis;
+
+    /**
+     * Whether the acceleration structure was loaded from the cache instead of built
+     */
+    private boolean loaded;
+
+    /**
+     * Amount of changes of the collection - added geometries, a new kind of structure or cache and refits
+     */
+    private long modifications;
+
+    /**
+     * The apex of the view volume of the last culling
+     */
+    private Point cullApex;
+
+    /**
+     * The normals of the view volume of the last culling
+     */
+    private Vector[] cullNormals;
+
+    /**
+     * The changes of the collection and its nested collections at the last culling
+     */
+    private long cullModifications;
+
+    /**
+     * The result of the last culling, null before the first culling
+     */
+    private Geometries culled;
+
+    /**
+     * Traversal visitor of every rendering thread for the closest hit
+     */
+    private final ThreadLocal<ClosestHitVisitor> closestHitVisitors = ThreadLocal.withInitial(ClosestHitVisitor::new);
+
+    /**
+     * Traversal visitor of every rendering thread for ray packets
+     */
+    private final ThreadLocal<PacketVisitor> packetVisitors = ThreadLocal.withInitial(PacketVisitor::new);
+
+    /**
+     * Traversal visitor of every rendering thread for the transparency
+     */
+    private final ThreadLocal<TransparencyVisitor> transparencyVisitors =
+            ThreadLocal.withInitial(TransparencyVisitor::new);
+
+    /**
+     * Traversal visitor which records the closest hit of a ray, and shortens the traversal to it.
+     * A visitor is reused by the queries of a thread, so that a query creates no objects.
+     */
+    private final class ClosestHitVisitor implements AccelerationStructure.Visitor {
+        private Ray ray;
+        private Hit hit;
+        private boolean found;
+
+        @Override
+        public double visit(int primitive) {
+            found |= bounded[primitive].findClosestHitHelper(ray, hit);
+            return hit.distance;
+        }
+    }
+
+    /**
+     * Traversal visitor which records the closest hits of a packet of rays, with the packet itself -
+     * one per thread
+     */
+    private final class PacketVisitor implements AccelerationStructure.PacketVisitor {
+        private final RayPacket packet = new RayPacket();
+
+        @Override
+        public void visit(int primitive, long rays) {
+            Intersectable geometry = bounded[primitive];
+            for (; rays != 0; rays &= rays - 1) {
+                int k = Long.numberOfTrailingZeros(rays);
+                geometry.findClosestHitHelper(packet.rays[k], packet.hits[k]);
+            }
+        }
+    }
+
+    /**
+     * Traversal visitor which multiplies the transparency of a ray, and stops the traversal once it is blocked.
+     * A visitor is reused by the queries of a thread.
+     */
+    private final class TransparencyVisitor implements AccelerationStructure.Visitor {
+        private Ray ray;
+        private double maxDistance;
+        private Double3 ktr;
+        private double minTransparency;
+        private Hit occluder;
+
+        @Override
+        public double visit(int primitive) {
+            ktr = bounded[primitive].findTransparencyHelper(ray, maxDistance, ktr, minTransparency, occluder);
+            return ktr == Double3.ZERO ? -1 : maxDistance;
+        }
+    }
+
     /**
      * Constructs a geometries object from a list of geometries.
      */
@@ -39,27 +175,327 @@ public class Geometries extends Intersectable {
      *
      * @param geometries The geometries to add.
      */
-    public void add(Intersectable... geometries) {
+    public synchronized void add(Intersectable... geometries) {
         this.geometriesList.addAll(List.of(geometries));
+        accelerator = null;
+        ++modifications;
+    }
+
+    /**
+     * Sets the kind of acceleration structure over the bounded geometries
+     *
+     * @param acceleration the kind of acceleration structure
+     * @return this
+     */
+    public synchronized Geometries setAcceleration(Acceleration acceleration) {
+        this.acceleration = acceleration;
+        accelerator = null;
+        ++modifications;
+        return this;
+    }
+
+    /**
+     * Sets a directory for caching the acceleration structure between runs. A structure is stored
+     * in the directory after it is built, and it is loaded instead of built as long as the bounding
+     * boxes of the geometries do not change. A stale or corrupt cache file is rebuilt.
+     *
+     * @param directory the cache directory, null for not caching
+     * @return this
+     */
+    public synchronized Geometries setAccelerationCache(Path directory) {
+        cache = directory == null ? null : new AccelerationCache(directory);
+        accelerator = null;
+        ++modifications;
+        return this;
+    }
+
+    /**
+     * Refits the acceleration structure to geometries which were moved in place
+     * (e.g. by {@link Sphere#setCenter} or {@link Triangle#setVertices}), keeping its topology.
+     * Nested collections are refitted first. The structure is rebuilt the next time the collection
+     * is traced instead, if it cannot be refitted or if refitting degraded its quality too much.
+     * The collection must not be traced while it is refitted.
+     *
+     * @return true if the structure was refitted, false if it will be rebuilt
+     */
+    public synchronized boolean refit() {
+        ++modifications;
+        for (var geometry : geometriesList)
+            if (geometry instanceof Geometries nested) nested.refit();
+
+        AccelerationStructure structure = accelerator;
+        if (structure == null) return false;
+        for (int i = 0; i < bounded.length; ++i) {
+            BoundingBox box = bounded[i].getBoundingBox();
+            if (box == null) {
+                accelerator = null;
+                return false;
+            }
+            setBounds(structure.bounds, i, box);
+        }
+        if (structure.refit()) return true;
+        accelerator = null;
+        return false;
+    }
+
+    /**
+     * Culls the geometries which lie entirely outside a view volume (e.g. the frustum of a camera),
+     * bounded by planes through a common apex. A geometry is culled if its bounding box is entirely
+     * outside any of the planes; unbounded geometries are always kept, and nested collections are culled
+     * recursively. The culled collection has the same kind of acceleration structure as this one, but it is
+     * not cached between runs, since it changes with the view. The result is reused - with its acceleration
+     * structure - by the next culling through the same volume, as long as the geometries do not change.
+     *
+     * @param apex    the common point of the bounding planes (e.g. the position of a camera)
+     * @param normals the normals of the bounding planes, towards the inside of the volume
+     * @return the geometries inside the volume - this collection itself if none is culled
+     */
+    public synchronized Geometries cull(Point apex, Vector... normals) {
+        long changes = getModifications();
+        if (culled != null && changes == cullModifications && apex.equals(cullApex)
+                && Arrays.equals(normals, cullNormals))
+            return culled;
+
+        Geometries visible = new Geometries().setAcceleration(acceleration);
+        boolean anyCulled = false;
+        for (var geometry : geometriesList) {
+            Intersectable kept = geometry;
+            if (geometry instanceof Geometries nested) {
+                Geometries nestedVisible = nested.cull(apex, normals);
+                kept = nestedVisible.geometriesList.isEmpty() ? null : nestedVisible;
+            } else if (isOutside(geometry.getBoundingBox(), apex, normals))
+                kept = null;
+            if (kept != null) visible.geometriesList.add(kept);
+            anyCulled |= kept != geometry;
+        }
+        cullApex = apex;
+        cullNormals = normals.clone();
+        cullModifications = changes;
+        culled = anyCulled ? visible : this;
+        return culled;
+    }
+
+    /**
+     * Counts the changes of the collection and of its nested collections
+     *
+     * @return the amount of changes, which grows with every change
+     */
+    private synchronized long getModifications() {
+        long sum = modifications;
+        for (var geometry : geometriesList)
+            if (geometry instanceof Geometries nested) sum += nested.getModifications();
+        return sum;
+    }
+
+    /**
+     * Checks whether a bounding box is entirely outside any of the planes of a view volume -
+     * the corner of the box farthest along the normal of a plane is behind the plane
+     *
+     * @param box     the bounding box, null for an unbounded geometry
+     * @param apex    the common point of the planes
+     * @param normals the normals of the planes, towards the inside of the volume
+     * @return true if the box is outside the volume
+     */
+    private static boolean isOutside(BoundingBox box, Point apex, Vector[] normals) {
+        if (box == null) return false;
+        for (Vector normal : normals) {
+            double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+            if (nx * ((nx > 0 ? box.maxX : box.minX) - apex.getX())
+                    + ny * ((ny > 0 ? box.maxY : box.minY) - apex.getY())
+                    + nz * ((nz > 0 ? box.maxZ : box.minZ) - apex.getZ()) < 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the statistics of the acceleration structure, the structure is built if it is not built yet
+     *
+     * @return the statistics
+     */
+    public AccelerationStatistics getAccelerationStatistics() {
+        AccelerationStructure structure = accelerator;
+        if (structure == null) structure = buildAccelerator();
+        return new AccelerationStatistics(acceleration, bounded.length, structure.getNodeCount(),
+                structure.getNodeBytes(), buildMillis, loaded);
+    }
+
+    /**
+     * The box of a collection bounds all its geometries,
+     * the collection is unbounded if any of them is unbounded (or if it is empty).
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = null;
+        for (var geometry : geometriesList) {
+            BoundingBox geometryBox = geometry.getBoundingBox();
+            if (geometryBox == null) return null;
+            box = box == null ? geometryBox : box.union(geometryBox);
+        }
+        return box;
     }
 
     /**
      * Find Geometry intersections list.
      *
-     * @param ray the ray
+     * @param ray         the ray
+     * @param maxDistance the distance from the head of the ray - farther nodes and intersections are skipped
      * @return the list of intersection points
      */
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<GeoPoint> intersections = null;
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        AccelerationStructure structure = accelerator;
+        if (structure == null) structure = buildAccelerator();
+
+        List<GeoPoint> intersections = new LinkedList<>();
+        structure.traverse(ray, maxDistance, i -> {
+            addIntersections(intersections, bounded[i], ray, maxDistance);
+            return maxDistance;
+        });
+        for (var geometry : unbounded)
+            addIntersections(intersections, geometry, ray, maxDistance);
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * The unbounded geometries are tested first, and every hit shortens the distance of the record,
+     * so that the traversal skips the nodes beyond the closest hit so far.
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        AccelerationStructure structure = accelerator;
+        if (structure == null) structure = buildAccelerator();
+
+        boolean found = false;
+        for (var geometry : unbounded)
+            found |= geometry.findClosestHitHelper(ray, hit);
+        ClosestHitVisitor visitor = closestHitVisitors.get();
+        visitor.ray = ray;
+        visitor.hit = hit;
+        visitor.found = found;
+        structure.traverse(ray, hit.distance, visitor);
+        visitor.ray = null;
+        visitor.hit = null;
+        return visitor.found;
+    }
+
+    /**
+     * The unbounded geometries are tested ray by ray, and the packet is traced through the acceleration structure
+     */
+    @Override
+    protected void findClosestHitsHelper(Ray[] rays, Hit[] hits, int size) {
+        AccelerationStructure structure = accelerator;
+        if (structure == null) structure = buildAccelerator();
+
+        for (var geometry : unbounded)
+            for (int k = 0; k < size; ++k)
+                geometry.findClosestHitHelper(rays[k], hits[k]);
+        PacketVisitor visitor = packetVisitors.get();
+        visitor.packet.set(rays, hits, size);
+        structure.traverse(visitor.packet, visitor);
+        visitor.packet.rays = null;
+        visitor.packet.hits = null;
+    }
+
+    /**
+     * The unbounded geometries are tested first, as they often block the whole ray,
+     * and the traversal of the bounded geometries stops as soon as the ray is blocked.
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minTransparency,
+                                             Hit occluder) {
+        AccelerationStructure structure = accelerator;
+        if (structure == null) structure = buildAccelerator();
+
+        for (var geometry : unbounded) {
+            ktr = geometry.findTransparencyHelper(ray, maxDistance, ktr, minTransparency, occluder);
+            if (ktr == Double3.ZERO) return ktr;
+        }
+        TransparencyVisitor visitor = transparencyVisitors.get();
+        visitor.ray = ray;
+        visitor.maxDistance = maxDistance;
+        visitor.ktr = ktr;
+        visitor.minTransparency = minTransparency;
+        visitor.occluder = occluder;
+        structure.traverse(ray, maxDistance, visitor);
+        visitor.ray = null;
+        visitor.occluder = null;
+        return visitor.ktr;
+    }
+
+    /**
+     * Adds the intersections of a ray with a geometry to a list
+     *
+     * @param intersections the list
+     * @param geometry      the geometry
+     * @param ray           the ray
+     * @param maxDistance   the distance from the head of the ray - farther intersections are not added
+     */
+    private static void addIntersections(List<GeoPoint> intersections, Intersectable geometry, Ray ray,
+                                         double maxDistance) {
+        var geometryIntersections = geometry.findGeoIntersections(ray, maxDistance);
+        if (geometryIntersections != null) intersections.addAll(geometryIntersections);
+    }
+
+    /**
+     * Splits the geometries into bounded and unbounded ones,
+     * and builds the acceleration structure over the bounded geometries (or loads it from the cache)
+     *
+     * @return the acceleration structure
+     */
+    private synchronized AccelerationStructure buildAccelerator() {
+        if (accelerator != null) return accelerator;
+        long start = System.nanoTime();
 
+        List<Intersectable> boundedList = new LinkedList<>();
+        List<Intersectable> unboundedList = new LinkedList<>();
+        List<BoundingBox> boxes = new LinkedList<>();
         for (var geometry : geometriesList) {
-            var geometryIntersections = geometry.findGeoIntersections(ray);
-            if (geometryIntersections != null) {
-                if (intersections == null) intersections = new LinkedList<>();
-                intersections.addAll(geometryIntersections);
+            BoundingBox box = geometry.getBoundingBox();
+            if (box == null)
+                unboundedList.add(geometry);
+            else {
+                boundedList.add(geometry);
+                boxes.add(box);
             }
         }
-        return intersections;
+
+        double[] bounds = new double[boxes.size() * 6];
+        int i = 0;
+        for (BoundingBox box : boxes)
+            setBounds(bounds, i++, box);
+
+        bounded = boundedList.toArray(new Intersectable[0]);
+        unbounded = unboundedList.toArray(new Intersectable[0]);
+        AccelerationStructure structure = null;
+        byte[] key = null;
+        if (cache != null) {
+            key = AccelerationCache.key(acceleration, bounds);
+            structure = cache.load(acceleration, bounds, key);
+        }
+        loaded = structure != null;
+        if (structure == null) {
+            structure = acceleration.build(bounds);
+            if (cache != null) cache.store(acceleration, key, structure);
+        }
+        buildMillis = (System.nanoTime() - start) / 1e6;
+        return accelerator = structure;
+    }
+
+    /**
+     * Copies a bounding box into an array of primitive bounds
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param index  the index of the primitive
+     * @param box    the bounding box of the primitive
+     */
+    private static void setBounds(double[] bounds, int index, BoundingBox box) {
+        int b = index * 6;
+        bounds[b] = box.minX;
+        bounds[b + 1] = box.minY;
+        bounds[b + 2] = box.minZ;
+        bounds[b + 3] = box.maxX;
+        bounds[b + 4] = box.maxY;
+        bounds[b + 5] = box.maxZ;
     }
 }
@@ -3,6 +3,7 @@ package geometries;
 import primitives.Color;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
 
@@ -69,4 +70,38 @@ public abstract class Geometry extends Intersectable {
      * @return the normal vector at the given point
      */
     public abstract Vector getNormal(Point point);
+
+    /**
+     * A geometry calculates the distance of its closest intersection, without creating its point
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        return hit.offer(findClosestDistance(ray, hit.distance), this);
+    }
+
+    /**
+     * helper function that calculates the distance of the closest intersection of a ray up to a distance
+     * from its head - geometries which can calculate it on coordinates, without creating points, override it
+     *
+     * @param ray         the ray
+     * @param maxDistance the distance - farther intersections are ignored
+     * @return the distance of the closest intersection, {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        var intersections = findGeoIntersectionsHelper(ray, maxDistance);
+        double closest = Double.POSITIVE_INFINITY;
+        if (intersections != null)
+            for (GeoPoint intersection : intersections)
+                closest = Math.min(closest, intersection.point.distance(ray.getP0()));
+        return closest;
+    }
+
+    /**
+     * Fills in the normal at the point of a hit record of the geometry
+     *
+     * @param hit the record, whose point is set
+     */
+    protected void fillNormal(Hit hit) {
+        hit.setNormal(getNormal(hit.getPoint()));
+    }
 }
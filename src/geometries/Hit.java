@@ -0,0 +1,119 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Vector;
+
+/**
+ * Mutable record of the closest intersection of a ray - its distance from the head of the ray,
+ * its geometry, its point and the normal of the geometry at the point.
+ * A record is meant to be reused (e.g. by every thread of the ray tracer), so that finding the
+ * closest intersection creates no objects: the geometries shorten the distance of the record as
+ * the ray hits them, and only the closest geometry fills in the point and the normal.
+ * A record also receives the geometry which blocks a shadow ray
+ * ({@link Intersectable#findTransparency(primitives.Ray, double, double, Hit)}).
+ */
+public class Hit {
+
+    /**
+     * The distance from the head of the ray - the distance up to which intersections are looked for,
+     * and the distance of the closest intersection once it is found
+     */
+    public double distance;
+
+    /**
+     * The geometry of the closest intersection, null if none is found yet
+     */
+    public Geometry geometry;
+
+    /**
+     * Coordinates of the point of the closest intersection
+     */
+    public double x, y, z;
+
+    /**
+     * Coordinates of the normal of the geometry at the point of the closest intersection
+     */
+    public double normalX, normalY, normalZ;
+
+    /**
+     * Barycentric coordinates of the point of the closest intersection on a triangle - the weights of
+     * its second and third vertices (the weight of the first one is 1 - u - v).
+     * They are set by triangles and meshes only.
+     */
+    public double u, v;
+
+    /**
+     * The index of the face of a mesh the intersection is on. It is set by meshes only.
+     */
+    public int face;
+
+    /**
+     * Clears the record before looking for the closest intersection of a ray
+     *
+     * @param maxDistance the distance up to which intersections are looked for
+     * @return the record
+     */
+    public Hit reset(double maxDistance) {
+        distance = maxDistance;
+        geometry = null;
+        return this;
+    }
+
+    /**
+     * Records an intersection if it is the closest one found so far
+     *
+     * @param intersectionDistance the distance of the intersection, {@link Double#POSITIVE_INFINITY} if there is none
+     * @param intersected          the geometry of the intersection
+     * @return true if the intersection was recorded
+     */
+    boolean offer(double intersectionDistance, Geometry intersected) {
+        // the first intersection may be a little beyond the distance, by the accuracy of the geometries
+        if (intersectionDistance == Double.POSITIVE_INFINITY
+                || intersectionDistance >= distance && geometry != null)
+            return false;
+        distance = intersectionDistance;
+        geometry = intersected;
+        return true;
+    }
+
+    /**
+     * Sets the point of the intersection on a ray, at the distance of the record
+     *
+     * @param p0  the head of the ray
+     * @param dir the direction of the ray
+     */
+    void setPoint(Point p0, Vector dir) {
+        x = p0.getX() + dir.getX() * distance;
+        y = p0.getY() + dir.getY() * distance;
+        z = p0.getZ() + dir.getZ() * distance;
+    }
+
+    /**
+     * Sets the normal at the point of the intersection
+     *
+     * @param normal the normal
+     */
+    void setNormal(Vector normal) {
+        normalX = normal.getX();
+        normalY = normal.getY();
+        normalZ = normal.getZ();
+    }
+
+    /**
+     * Creates the point of the intersection
+     *
+     * @return the point
+     */
+    public Point getPoint() {
+        return new Point(x, y, z);
+    }
+
+    /**
+     * Creates the normal at the point of the intersection
+     *
+     * @return the normal
+     */
+    public Vector getNormal() {
+        return new Vector(normalX, normalY, normalZ);
+    }
+}
@@ -0,0 +1,221 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A placed copy of a shared intersectable (usually a {@link Geometries} of an asset).
+ * The instance holds a transformation from the object space of the shared intersectable
+ * to the world, and it traces a ray by transforming the ray into object space with the
+ * cached inverse transformation. The shared intersectable, with its own acceleration
+ * structure, is stored once no matter how many instances refer to it.
+ * A {@link Geometries} of instances builds its acceleration structure over the world
+ * bounding boxes of the instances, which makes a two-level hierarchy.
+ */
+public class Instance extends Intersectable {
+
+    /**
+     * The shared intersectable, in object space
+     */
+    private final Intersectable geometry;
+
+    /**
+     * The transformation from object space to the world
+     */
+    private Matrix transform;
+
+    /**
+     * The transformation from the world to object space
+     */
+    private Matrix inverse;
+
+    /**
+     * The transformation of normals from object space to the world (the inverse transposed)
+     */
+    private Matrix normalTransform;
+
+    /**
+     * Constructs an instance of a shared intersectable.
+     *
+     * @param geometry  the shared intersectable
+     * @param transform the transformation from object space to the world
+     * @throws IllegalArgumentException if the transformation has no inverse
+     */
+    public Instance(Intersectable geometry, Matrix transform) {
+        this.geometry = geometry;
+        setTransform(transform);
+    }
+
+    /**
+     * Returns the transformation from object space to the world.
+     *
+     * @return the transformation
+     */
+    public Matrix getTransform() {
+        return transform;
+    }
+
+    /**
+     * Moves the instance by setting a new transformation from object space to the world.
+     * A collection containing the instance must be refitted ({@link Geometries#refit()})
+     * before it is traced again.
+     *
+     * @param transform the transformation
+     * @return this
+     * @throws IllegalArgumentException if the transformation has no inverse
+     */
+    public Instance setTransform(Matrix transform) {
+        Matrix newInverse = transform.inverse();
+        this.transform = transform;
+        inverse = newInverse;
+        normalTransform = newInverse.transpose();
+        return this;
+    }
+
+    /**
+     * The box of an instance bounds the transformed corners of the box of the shared intersectable.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = geometry.getBoundingBox();
+        if (box == null) return null;
+        List<Point> corners = new ArrayList<>(8);
+        for (int i = 0; i < 8; ++i)
+            corners.add(transform.transformPoint(new Point((i & 1) == 0 ? box.minX : box.maxX,
+                    (i & 2) == 0 ? box.minY : box.maxY, (i & 4) == 0 ? box.minZ : box.maxZ)));
+        return BoundingBox.of(corners);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        return place(geometry.findGeoIntersections(toObject(ray), toObject(ray, maxDistance)));
+    }
+
+    /**
+     * The record is searched in object space, where distances are scaled by the length of the transformed
+     * direction, and the recorded geometry is placed by the instance
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        double maxDistance = hit.distance;
+        double scale = inverse.transformVector(ray.getDir()).length();
+        if (maxDistance != Double.POSITIVE_INFINITY) hit.distance = maxDistance * scale;
+        if (!geometry.findClosestHitHelper(toObject(ray), hit)) {
+            hit.distance = maxDistance;
+            return false;
+        }
+        hit.distance /= scale;
+        hit.geometry = new InstancedGeometry(hit.geometry);
+        return true;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minTransparency,
+                                             Hit occluder) {
+        // the shared geometry has the materials of the instance, so its intersections need not be placed
+        ktr = geometry.findTransparencyHelper(toObject(ray), toObject(ray, maxDistance), ktr, minTransparency,
+                occluder);
+        // only the occluder is placed, so that it can be tested against rays in the world
+        if (ktr == Double3.ZERO && occluder != null) occluder.geometry = new InstancedGeometry(occluder.geometry);
+        return ktr;
+    }
+
+    /**
+     * Transforms a ray from the world into object space
+     *
+     * @param ray the ray in the world
+     * @return the ray in object space
+     */
+    private Ray toObject(Ray ray) {
+        return new Ray(inverse.transformPoint(ray.getP0()), inverse.transformVector(ray.getDir()));
+    }
+
+    /**
+     * Transforms a distance along a ray from the world into object space -
+     * the transformation may scale the ray
+     *
+     * @param ray      the ray in the world
+     * @param distance the distance from the head of the ray in the world
+     * @return the distance from the head of the ray in object space
+     */
+    private double toObject(Ray ray, double distance) {
+        return distance == Double.POSITIVE_INFINITY ? distance
+                : distance * inverse.transformVector(ray.getDir()).length();
+    }
+
+    /**
+     * Places intersections found in object space in the world
+     *
+     * @param intersections the intersections in object space, may be null
+     * @return the intersections in the world, null if there are none
+     */
+    private List<GeoPoint> place(List<GeoPoint> intersections) {
+        if (intersections == null) return null;
+        List<GeoPoint> result = new ArrayList<>(intersections.size());
+        for (GeoPoint intersection : intersections)
+            result.add(new GeoPoint(new InstancedGeometry(intersection.geometry),
+                    transform.transformPoint(intersection.point)));
+        return result;
+    }
+
+    /**
+     * A geometry of the shared intersectable as it is placed by the instance - it has
+     * the emission and the material of the shared geometry, and world space normals.
+     */
+    private final class InstancedGeometry extends Geometry {
+
+        /**
+         * The shared geometry, in object space
+         */
+        private final Geometry geometry;
+
+        /**
+         * Constructs the placed geometry
+         *
+         * @param geometry the shared geometry
+         */
+        private InstancedGeometry(Geometry geometry) {
+            this.geometry = geometry;
+        }
+
+        @Override
+        public Color getEmission() {
+            return geometry.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return geometry.getMaterial();
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return normalTransform.transformVector(geometry.getNormal(inverse.transformPoint(point))).normalize();
+        }
+
+        /**
+         * The shared geometry fills in the record at the point in object space (so that it may use what
+         * it recorded in the record), and the normal is placed in the world
+         */
+        @Override
+        protected void fillNormal(Hit hit) {
+            double x = hit.x, y = hit.y, z = hit.z;
+            Point point = inverse.transformPoint(new Point(x, y, z));
+            hit.x = point.getX();
+            hit.y = point.getY();
+            hit.z = point.getZ();
+            geometry.fillNormal(hit);
+            hit.x = x;
+            hit.y = y;
+            hit.z = z;
+            hit.setNormal(normalTransform.transformVector(hit.getNormal()).normalize());
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            return place(geometry.findGeoIntersections(toObject(ray), toObject(ray, maxDistance)));
+        }
+    }
+}
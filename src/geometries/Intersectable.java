@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 
@@ -71,14 +72,179 @@ public abstract class Intersectable {
      * @return a list of all intersections points
      */
     public final List<GeoPoint> findGeoIntersections(Ray ray) {
-        return findGeoIntersectionsHelper(ray);
+        return findGeoIntersections(ray, Double.POSITIVE_INFINITY);
     }
 
     /**
-     * helper function that returns a list of all intersections of a ray
+     * function that returns a list of the intersections of a ray up to a distance from its head
      *
-     * @param ray the ray to check for intersections
-     * @return a list of all intersections points
+     * @param ray         the ray to check for intersections
+     * @param maxDistance the distance - farther intersections are ignored
+     * @return a list of the intersections points up to the distance
+     */
+    public final List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
+        return findGeoIntersectionsHelper(ray, maxDistance);
+    }
+
+    /**
+     * Finds the closest intersection of a ray
+     *
+     * @param ray the ray
+     * @return the closest intersection point, null if there is none
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest intersection of a ray up to a distance from its head.
+     * Unlike {@link #findGeoIntersections(Ray, double)}, no list of intersections is built -
+     * the intersectables shorten the distance as they are hit, and only the closest hit becomes a point.
+     *
+     * @param ray         the ray
+     * @param maxDistance the distance - farther intersections are ignored
+     * @return the closest intersection point, null if there is none
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        Hit hit = new Hit().reset(maxDistance);
+        return findClosestHit(ray, hit) ? new GeoPoint(hit.geometry, hit.getPoint()) : null;
+    }
+
+    /**
+     * Finds the closest intersection of a ray up to the distance of a hit record, and fills the record in -
+     * the query creates no objects for the geometries which can calculate their intersections on coordinates
+     *
+     * @param ray the ray
+     * @param hit the record, whose distance is the distance up to which intersections are looked for
+     * @return true if an intersection is found and recorded, false if there is none (the record is cleared)
+     */
+    public final boolean findClosestHit(Ray ray, Hit hit) {
+        if (!findClosestHitHelper(ray, hit)) return false;
+        hit.setPoint(ray.getP0(), ray.getDir());
+        hit.geometry.fillNormal(hit);
+        return true;
+    }
+
+    /**
+     * Finds the closest intersections of a packet of coherent rays (e.g. the primary rays of a tile of pixels)
+     * up to the distances of their hit records, and fills the records in. Collections trace the packet
+     * through their acceleration structure together, other intersectables trace the rays one by one.
+     *
+     * @param rays the rays
+     * @param hits the records of the rays - a record whose geometry remains null has no intersection
+     * @param size the amount of rays, at most 64
+     */
+    public final void findClosestHits(Ray[] rays, Hit[] hits, int size) {
+        findClosestHitsHelper(rays, hits, size);
+        for (int k = 0; k < size; ++k) {
+            Hit hit = hits[k];
+            if (hit.geometry == null) continue;
+            hit.setPoint(rays[k].getP0(), rays[k].getDir());
+            hit.geometry.fillNormal(hit);
+        }
+    }
+
+    /**
+     * helper function that records the distances and the geometries of the closest intersections of a packet
+     * of rays, if they are closer than the distances of their hit records
+     *
+     * @param rays the rays
+     * @param hits the records of the rays
+     * @param size the amount of rays
+     */
+    protected void findClosestHitsHelper(Ray[] rays, Hit[] hits, int size) {
+        for (int k = 0; k < size; ++k)
+            findClosestHitHelper(rays[k], hits[k]);
+    }
+
+    /**
+     * helper function that records the distance and the geometry of the closest intersection of a ray,
+     * if it is closer than the distance of a hit record
+     *
+     * @param ray the ray
+     * @param hit the record
+     * @return true if an intersection was recorded
+     */
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        var intersections = findGeoIntersectionsHelper(ray, hit.distance);
+        if (intersections == null) return false;
+        GeoPoint closest = ray.findClosestGeoPoint(intersections);
+        return hit.offer(closest.point.distance(ray.getP0()), closest.geometry);
+    }
+
+    /**
+     * Calculates the transparency of the intersectable along a ray up to a distance from its head -
+     * the product of the transparency (kT) of the materials at the intersections. The calculation
+     * stops at the first intersection which leaves the transparency below a threshold,
+     * so that a shadow ray blocked by an opaque geometry needs only the first hit.
+     *
+     * @param ray             the ray
+     * @param maxDistance     the distance - farther intersections are ignored
+     * @param minTransparency the transparency below which the ray is blocked
+     * @return the transparency, {@link Double3#ZERO} if the ray is blocked
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance, double minTransparency) {
+        return findTransparencyHelper(ray, maxDistance, Double3.ONE, minTransparency, null);
+    }
+
+    /**
+     * Calculates the transparency of the intersectable along a ray up to a distance from its head,
+     * and reports the geometry which blocks the ray (see {@link #findTransparency(Ray, double, double)}).
+     * The geometry is the one whose intersection left the transparency below the threshold - testing it
+     * alone first is a cheap way to find that a nearby ray is blocked too.
+     *
+     * @param ray             the ray
+     * @param maxDistance     the distance - farther intersections are ignored
+     * @param minTransparency the transparency below which the ray is blocked
+     * @param occluder        receives the geometry which blocks the ray, it is not changed if the ray is not blocked
+     * @return the transparency, {@link Double3#ZERO} if the ray is blocked
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance, double minTransparency, Hit occluder) {
+        return findTransparencyHelper(ray, maxDistance, Double3.ONE, minTransparency, occluder);
+    }
+
+    /**
+     * helper function that multiplies the transparency of a ray by the transparency of the intersectable
+     * up to a distance from the head of the ray
+     *
+     * @param ray             the ray
+     * @param maxDistance     the distance - farther intersections are ignored
+     * @param ktr             the transparency of the ray so far
+     * @param minTransparency the transparency below which the ray is blocked
+     * @param occluder        receives the geometry which blocks the ray, may be null
+     * @return the transparency, {@link Double3#ZERO} if the ray is blocked
+     */
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minTransparency,
+                                             Hit occluder) {
+        var intersections = findGeoIntersectionsHelper(ray, maxDistance);
+        if (intersections == null) return ktr;
+        for (GeoPoint intersection : intersections) {
+            ktr = ktr.product(intersection.geometry.getMaterial().kT);
+            if (ktr.lowerThan(minTransparency)) {
+                if (occluder != null) occluder.geometry = intersection.geometry;
+                return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * Returns the axis-aligned bounding box of the intersectable.
+     * Intersectables which are infinite (e.g. planes and tubes) have no bounding box,
+     * and they are tested against every ray.
+     *
+     * @return the bounding box, or null if the intersectable is unbounded
+     */
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
+    /**
+     * helper function that returns a list of the intersections of a ray up to a distance from its head
+     *
+     * @param ray         the ray to check for intersections
+     * @param maxDistance the distance - farther intersections are ignored
+     * @return a list of the intersections points up to the distance
      */
-    protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray);
+    protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
 }
\ No newline at end of file
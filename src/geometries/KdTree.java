@@ -0,0 +1,462 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+
+/**
+ * Kd-tree over a set of bounded primitives, for static scenes.
+ * Every inner node splits its box by an axis aligned plane where the surface area heuristic
+ * predicts the cheapest traversal, the candidate planes are the bounds of the primitives.
+ * A split which cuts off an empty part of the box gets a bonus, so that empty space is
+ * separated early. A primitive which crosses a plane (or lies on it) is referred by both sides,
+ * and it is reported once per ray thanks to a per-thread {@link Mailbox}.
+ * Every leaf has a rope for each of its six faces - the smallest node which contains all the
+ * leaves across the face - so that a ray walks from leaf to leaf without a stack: it leaves
+ * a leaf through the face it exits, and descends from the rope of the face to the leaf which
+ * contains the exit point.
+ */
+class KdTree extends AccelerationStructure {
+
+    /**
+     * Estimated cost of stepping through a node, relative to the cost of testing a primitive
+     */
+    private static final double TRAVERSAL_COST = BVH.TRAVERSAL_COST;
+
+    /**
+     * Fraction of the cost of a split which cuts off an empty part of its node
+     */
+    private static final double EMPTY_BONUS = 0.2;
+
+    /**
+     * Marker of a leaf in the low bits of a node reference, instead of the split axis
+     */
+    private static final int LEAF = 3;
+
+    /**
+     * Factor which widens the far distance of the tree box hit against rounding errors
+     */
+    private static final double ROBUSTNESS = 1 + 1e-9;
+
+    /**
+     * Node of the tree while it is built
+     */
+    private static final class Node {
+        private final double[] box;
+        private int axis = LEAF;
+        private double split;
+        private Node left, right;
+        private int[] primitives;
+        private int index, leaf;
+
+        /**
+         * Constructs a leaf
+         *
+         * @param box        the box of the node - minimal and maximal x, y, z
+         * @param primitives the primitives overlapping the box
+         */
+        private Node(double[] box, int[] primitives) {
+            this.box = box;
+            this.primitives = primitives;
+        }
+    }
+
+    /**
+     * The box of the tree - minimal and maximal x, y, z
+     */
+    private final double[] treeBounds = new double[6];
+
+    /**
+     * Node references in depth-first order - the index of the right child above the split axis
+     * in the low 2 bits for an inner node (its left child follows it), or the index of the leaf
+     * above {@link #LEAF} for a leaf
+     */
+    private final int[] nodes;
+
+    /**
+     * The coordinate of the split plane of every inner node
+     */
+    private final double[] splits;
+
+    /**
+     * The box of every leaf - minimal and maximal x, y, z
+     */
+    private final double[] leafBounds;
+
+    /**
+     * The ropes of every leaf - the node across every face (minimal and maximal x, y, z),
+     * or -1 for a face on the box of the tree
+     */
+    private final int[] ropes;
+
+    /**
+     * Start of the primitive range of every leaf in {@link #leafPrimitives},
+     * the range of leaf l is leafStart[l]..leafStart[l+1]
+     */
+    private final int[] leafStart;
+
+    /**
+     * Primitive indices of all the leaves
+     */
+    private final int[] leafPrimitives;
+
+    /**
+     * Mailbox of every rendering thread
+     */
+    private final ThreadLocal<Mailbox> mailboxes;
+
+    /**
+     * Builds the tree over primitives with the given bounds
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     */
+    KdTree(double[] bounds) {
+        super(bounds);
+        Arrays.fill(treeBounds, 0, 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(treeBounds, 3, 6, Double.NEGATIVE_INFINITY);
+        int[] all = new int[size];
+        for (int i = 0; i < size; ++i) {
+            all[i] = i;
+            for (int axis = 0; axis < 3; ++axis) {
+                treeBounds[axis] = Math.min(treeBounds[axis], bounds[i * 6 + axis]);
+                treeBounds[axis + 3] = Math.max(treeBounds[axis + 3], bounds[i * 6 + axis + 3]);
+            }
+        }
+        if (size == 0) Arrays.fill(treeBounds, 0);
+
+        int maxDepth = (int) Math.round(8 + 1.3 * Math.log(Math.max(1, size)) / Math.log(2));
+        Node root = build(new Node(treeBounds.clone(), all), maxDepth);
+
+        // number the nodes in depth-first order and the leaves, then store them
+        int[] counts = new int[3]; // nodes, leaves, leaf primitives
+        number(root, counts);
+        nodes = new int[counts[0]];
+        splits = new double[counts[0]];
+        leafBounds = new double[counts[1] * 6];
+        ropes = new int[counts[1] * 6];
+        leafStart = new int[counts[1] + 1];
+        leafPrimitives = new int[counts[2]];
+        store(root);
+        Node[] rootRopes = new Node[6];
+        connect(root, rootRopes);
+
+        mailboxes = ThreadLocal.withInitial(() -> new Mailbox(size));
+    }
+
+    /**
+     * Recursively splits a node by the surface area heuristic
+     *
+     * @param node     the node, a leaf with its primitives
+     * @param maxDepth the amount of levels which may still be added below the node
+     * @return the node
+     */
+    private Node build(Node node, int maxDepth) {
+        int[] primitives = node.primitives;
+        int n = primitives.length;
+        double[] box = node.box;
+        double area = area(box);
+        if (n == 0 || maxDepth == 0 || area <= 0) return node;
+
+        double bestCost = n;
+        int bestAxis = -1;
+        double bestSplit = 0;
+        double[] mins = new double[n], maxs = new double[n], planes = new double[n];
+        for (int axis = 0; axis < 3; ++axis) {
+            double lower = box[axis], upper = box[axis + 3];
+            if (upper <= lower) continue;
+            // the bounds of the primitives inside the node, those of no extent apart
+            int m = 0, p = 0;
+            for (int primitive : primitives) {
+                double min = Math.max(lower, bounds[primitive * 6 + axis]);
+                double max = Math.min(upper, bounds[primitive * 6 + axis + 3]);
+                if (min == max)
+                    planes[p++] = min;
+                else {
+                    mins[m] = min;
+                    maxs[m++] = max;
+                }
+            }
+            Arrays.sort(mins, 0, m);
+            Arrays.sort(maxs, 0, m);
+            Arrays.sort(planes, 0, p);
+
+            // sweep the candidate planes in increasing order - a primitive is on the left of a plane
+            // if it starts before it, on the right if it ends after it, and on both if it lies on it
+            int i = 0, j = 0, k = 0;
+            while (i < m || j < m || k < p) {
+                double plane = Double.POSITIVE_INFINITY;
+                if (i < m) plane = mins[i];
+                if (j < m) plane = Math.min(plane, maxs[j]);
+                if (k < p) plane = Math.min(plane, planes[k]);
+                int startedBefore = i, planarBefore = k;
+                while (i < m && mins[i] == plane) ++i;
+                while (j < m && maxs[j] == plane) ++j;
+                while (k < p && planes[k] == plane) ++k;
+                if (plane > lower && plane < upper) {
+                    int leftCount = startedBefore + k, rightCount = m - j + p - planarBefore;
+                    double cost = TRAVERSAL_COST + (leftCount * area(box, axis, lower, plane)
+                            + rightCount * area(box, axis, plane, upper)) / area;
+                    if (leftCount == 0 || rightCount == 0) cost *= 1 - EMPTY_BONUS;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestSplit = plane;
+                    }
+                }
+            }
+        }
+        if (bestAxis < 0) return node;
+
+        int leftCount = 0, rightCount = 0;
+        for (int primitive : primitives) {
+            if (isLeft(primitive, bestAxis, bestSplit)) ++leftCount;
+            if (isRight(primitive, bestAxis, bestSplit)) ++rightCount;
+        }
+        int[] left = new int[leftCount], right = new int[rightCount];
+        leftCount = rightCount = 0;
+        for (int primitive : primitives) {
+            if (isLeft(primitive, bestAxis, bestSplit)) left[leftCount++] = primitive;
+            if (isRight(primitive, bestAxis, bestSplit)) right[rightCount++] = primitive;
+        }
+        double[] leftBox = box.clone(), rightBox = box.clone();
+        leftBox[bestAxis + 3] = rightBox[bestAxis] = bestSplit;
+
+        node.axis = bestAxis;
+        node.split = bestSplit;
+        node.primitives = null;
+        node.left = build(new Node(leftBox, left), maxDepth - 1);
+        node.right = build(new Node(rightBox, right), maxDepth - 1);
+        return node;
+    }
+
+    /**
+     * Checks whether a primitive belongs to the left side of a split plane -
+     * it starts before the plane, or it lies on it
+     *
+     * @param primitive the primitive
+     * @param axis      the axis of the plane
+     * @param split     the coordinate of the plane
+     * @return true if the primitive is on the left
+     */
+    private boolean isLeft(int primitive, int axis, double split) {
+        double min = bounds[primitive * 6 + axis];
+        return min < split || min == split && bounds[primitive * 6 + axis + 3] == split;
+    }
+
+    /**
+     * Checks whether a primitive belongs to the right side of a split plane -
+     * it ends after the plane, or it lies on it
+     *
+     * @param primitive the primitive
+     * @param axis      the axis of the plane
+     * @param split     the coordinate of the plane
+     * @return true if the primitive is on the right
+     */
+    private boolean isRight(int primitive, int axis, double split) {
+        double max = bounds[primitive * 6 + axis + 3];
+        return max > split || max == split && bounds[primitive * 6 + axis] == split;
+    }
+
+    /**
+     * Calculates the surface area of a box
+     *
+     * @param box the box - minimal and maximal x, y, z
+     * @return the surface area
+     */
+    private static double area(double[] box) {
+        double dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Calculates the surface area of a box with other bounds along an axis
+     *
+     * @param box   the box - minimal and maximal x, y, z
+     * @param axis  the axis
+     * @param lower the minimal coordinate along the axis
+     * @param upper the maximal coordinate along the axis
+     * @return the surface area
+     */
+    private static double area(double[] box, int axis, double lower, double upper) {
+        double a = box[(axis + 1) % 3 + 3] - box[(axis + 1) % 3];
+        double b = box[(axis + 2) % 3 + 3] - box[(axis + 2) % 3];
+        return 2 * (a * b + (upper - lower) * (a + b));
+    }
+
+    /**
+     * Recursively numbers the nodes of a sub-tree in depth-first order, and its leaves
+     *
+     * @param node   the root of the sub-tree
+     * @param counts the amounts of nodes, leaves and leaf primitives numbered so far
+     */
+    private static void number(Node node, int[] counts) {
+        node.index = counts[0]++;
+        if (node.axis == LEAF) {
+            node.leaf = counts[1]++;
+            counts[2] += node.primitives.length;
+            return;
+        }
+        number(node.left, counts);
+        number(node.right, counts);
+    }
+
+    /**
+     * Recursively stores a numbered sub-tree in the node and leaf arrays
+     *
+     * @param node the root of the sub-tree
+     */
+    private void store(Node node) {
+        if (node.axis == LEAF) {
+            nodes[node.index] = node.leaf << 2 | LEAF;
+            System.arraycopy(node.box, 0, leafBounds, node.leaf * 6, 6);
+            int start = leafStart[node.leaf];
+            System.arraycopy(node.primitives, 0, leafPrimitives, start, node.primitives.length);
+            leafStart[node.leaf + 1] = start + node.primitives.length;
+            return;
+        }
+        nodes[node.index] = node.right.index << 2 | node.axis;
+        splits[node.index] = node.split;
+        store(node.left);
+        store(node.right);
+    }
+
+    /**
+     * Recursively sets the ropes of the leaves of a sub-tree. The rope of a leaf face is pushed
+     * down the tree across the face as long as the face lies on one side of the split plane.
+     *
+     * @param node      the root of the sub-tree
+     * @param nodeRopes the nodes across the faces of the root (null outside the tree)
+     */
+    private void connect(Node node, Node[] nodeRopes) {
+        if (node.axis == LEAF) {
+            for (int face = 0; face < 6; ++face) {
+                int faceAxis = face % 3;
+                Node rope = nodeRopes[face];
+                while (rope != null && rope.axis != LEAF) {
+                    if (rope.axis == faceAxis)
+                        rope = face < 3 ? rope.right : rope.left;
+                    else if (rope.split <= node.box[rope.axis])
+                        rope = rope.right;
+                    else if (rope.split >= node.box[rope.axis + 3])
+                        rope = rope.left;
+                    else break;
+                }
+                ropes[node.leaf * 6 + face] = rope == null ? -1 : rope.index;
+            }
+            return;
+        }
+        Node[] leftRopes = nodeRopes.clone(), rightRopes = nodeRopes.clone();
+        leftRopes[node.axis + 3] = node.right;
+        rightRopes[node.axis] = node.left;
+        connect(node.left, leftRopes);
+        connect(node.right, rightRopes);
+    }
+
+    @Override
+    int getNodeCount() {
+        return nodes.length;
+    }
+
+    @Override
+    long getNodeBytes() {
+        return (long) splits.length * Double.BYTES + (long) leafBounds.length * Double.BYTES
+                + (long) (nodes.length + ropes.length + leafStart.length + leafPrimitives.length) * Integer.BYTES;
+    }
+
+    /**
+     * Selects the coordinate of a point or a vector along an axis
+     *
+     * @param axis the axis - 0 for x, 1 for y, 2 for z
+     * @param x    the x coordinate
+     * @param y    the y coordinate
+     * @param z    the z coordinate
+     * @return the coordinate along the axis
+     */
+    private static double coordinate(int axis, double x, double y, double z) {
+        return switch (axis) {
+            case 0 -> x;
+            case 1 -> y;
+            default -> z;
+        };
+    }
+
+    /**
+     * Descends from a node to the leaf which contains a point. A point on a split plane
+     * goes to the side the ray heads to.
+     *
+     * @param node      the node
+     * @param px        x coordinate of the point
+     * @param py        y coordinate of the point
+     * @param pz        z coordinate of the point
+     * @param ix        inverse of the x component of the ray direction
+     * @param iy        inverse of the y component of the ray direction
+     * @param iz        inverse of the z component of the ray direction
+     * @param entryAxis the axis of the face through which the ray enters the node (its side
+     *                  is chosen by the direction alone), or -1
+     * @return the index of the leaf
+     */
+    private int locate(int node, double px, double py, double pz, double ix, double iy, double iz, int entryAxis) {
+        while (true) {
+            int reference = nodes[node], axis = reference & 3;
+            if (axis == LEAF) return reference >>> 2;
+            double split = splits[node], coordinate = coordinate(axis, px, py, pz);
+            double inverse = coordinate(axis, ix, iy, iz);
+            boolean left = axis == entryAxis ? inverse > 0
+                    : coordinate < split || coordinate == split && inverse < 0;
+            node = left ? node + 1 : reference >>> 2;
+        }
+    }
+
+    @Override
+    void traverse(Ray ray, double maxDistance, Visitor visitor) {
+        if (size == 0) return;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double ix = inverse(dx), iy = inverse(dy), iz = inverse(dz);
+
+        // clip the ray by the tree box
+        double tNear = Double.NEGATIVE_INFINITY, tFar = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; ++axis) {
+            double origin = coordinate(axis, ox, oy, oz), inverse = coordinate(axis, ix, iy, iz);
+            double t1 = (treeBounds[axis] - origin) * inverse;
+            double t2 = (treeBounds[axis + 3] - origin) * inverse;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        tFar = Math.min(tFar, maxDistance) * ROBUSTNESS;
+        if (tFar < 0 || tNear > tFar) return;
+
+        double t = Math.max(tNear, 0);
+        int leaf = locate(0, ox + dx * t, oy + dy * t, oz + dz * t, ix, iy, iz, -1);
+
+        Mailbox mailbox = mailboxes.get();
+        mailbox.nextRay();
+        while (true) {
+            for (int i = leafStart[leaf]; i < leafStart[leaf + 1]; ++i) {
+                int primitive = leafPrimitives[i];
+                if (mailbox.mark(primitive) && (maxDistance = visitor.visit(primitive)) < 0) return;
+            }
+            tFar = Math.min(tFar, maxDistance * ROBUSTNESS);
+
+            // leave the leaf through the face of the nearest exit
+            double exit = Double.POSITIVE_INFINITY;
+            int exitFace = 0;
+            for (int axis = 0; axis < 3; ++axis) {
+                double inverse = coordinate(axis, ix, iy, iz);
+                int face = inverse > 0 ? axis + 3 : axis;
+                double tExit = (leafBounds[leaf * 6 + face] - coordinate(axis, ox, oy, oz)) * inverse;
+                if (tExit < exit) {
+                    exit = tExit;
+                    exitFace = face;
+                }
+            }
+            int rope = ropes[leaf * 6 + exitFace];
+            if (rope < 0 || exit > tFar) return;
+            leaf = locate(rope, ox + dx * exit, oy + dy * exit, oz + dz * exit, ix, iy, iz, exitFace % 3);
+        }
+    }
+}
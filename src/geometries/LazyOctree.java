@@ -0,0 +1,247 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static geometries.BVH.hitBox;
+
+/**
+ * Octree over a set of bounded primitives, which is subdivided lazily - a node is split
+ * into its eight octants only when a ray first enters it. Regions which no ray ever enters
+ * (most of a huge sparse world, whose small part is seen by the camera) are never subdivided,
+ * so they take neither build time nor memory. The first ray to enter a node subdivides it
+ * under the lock of the node, and publishes the children through a volatile field, so that
+ * rays of other rendering threads either wait for the children or see them complete.
+ * A primitive which overlaps several octants is referred by all of them, and it is reported
+ * once per ray thanks to a per-thread {@link Mailbox}.
+ */
+class LazyOctree extends AccelerationStructure {
+
+    /**
+     * Maximal amount of primitives of a node which is not subdivided
+     */
+    private static final int LEAF_SIZE = 8;
+
+    /**
+     * Maximal amount of levels below the root
+     */
+    private static final int MAX_DEPTH = 16;
+
+    /**
+     * The children of a node which is never subdivided
+     */
+    private static final Node[] LEAF = new Node[0];
+
+    /**
+     * Estimated memory of a node besides its primitive references, in bytes
+     */
+    private static final int NODE_BYTES = 6 * Double.BYTES + 4 * Integer.BYTES;
+
+    /**
+     * Node of the tree - the children of an inner node are its non-empty octants
+     */
+    private static final class Node {
+        private final double[] box;
+        private final int depth;
+        private int[] primitives;
+        private volatile Node[] children;
+
+        /**
+         * Constructs a node which is not subdivided yet
+         *
+         * @param box        the box of the node - minimal and maximal x, y, z
+         * @param depth      the level of the node below the root
+         * @param primitives the primitives overlapping the box
+         */
+        private Node(double[] box, int depth, int[] primitives) {
+            this.box = box;
+            this.depth = depth;
+            this.primitives = primitives;
+        }
+    }
+
+    /**
+     * The root of the tree
+     */
+    private final Node root;
+
+    /**
+     * Amount of nodes created so far
+     */
+    private final AtomicInteger nodeCount = new AtomicInteger(1);
+
+    /**
+     * Memory of the nodes created so far, in bytes
+     */
+    private final AtomicLong nodeBytes = new AtomicLong();
+
+    /**
+     * Traversal stack of every rendering thread - deep enough for the deepest node
+     */
+    private final ThreadLocal<Node[]> stacks = ThreadLocal.withInitial(() -> new Node[MAX_DEPTH * 7 + 1]);
+
+    /**
+     * Mailbox of every rendering thread
+     */
+    private final ThreadLocal<Mailbox> mailboxes;
+
+    /**
+     * Creates the root of the tree over primitives with the given bounds - the tree is subdivided by rays
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     */
+    LazyOctree(double[] bounds) {
+        super(bounds);
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        int[] all = new int[size];
+        for (int i = 0; i < size; ++i) {
+            all[i] = i;
+            for (int axis = 0; axis < 3; ++axis) {
+                box[axis] = Math.min(box[axis], bounds[i * 6 + axis]);
+                box[axis + 3] = Math.max(box[axis + 3], bounds[i * 6 + axis + 3]);
+            }
+        }
+        root = new Node(box, 0, all);
+        nodeBytes.set(NODE_BYTES + (long) size * Integer.BYTES);
+        mailboxes = ThreadLocal.withInitial(() -> new Mailbox(size));
+    }
+
+    /**
+     * The amount of nodes subdivided so far - it grows as rays enter new regions
+     */
+    @Override
+    int getNodeCount() {
+        return nodeCount.get();
+    }
+
+    /**
+     * The memory of the nodes subdivided so far - it grows as rays enter new regions
+     */
+    @Override
+    long getNodeBytes() {
+        return nodeBytes.get();
+    }
+
+    /**
+     * Returns the children of a node, subdividing it if no ray entered it before
+     *
+     * @param node the node
+     * @return the children, {@link #LEAF} if the node is a leaf
+     */
+    private Node[] children(Node node) {
+        Node[] children = node.children;
+        if (children != null) return children;
+        synchronized (node) {
+            if (node.children == null) node.children = subdivide(node);
+            return node.children;
+        }
+    }
+
+    /**
+     * Splits a node into its non-empty octants. A node of a few primitives, a node at the maximal
+     * depth and a node whose primitives all overlap every octant of it are not split.
+     *
+     * @param node the node
+     * @return the children of the node, {@link #LEAF} if it is not split
+     */
+    private Node[] subdivide(Node node) {
+        int[] primitives = node.primitives;
+        if (primitives.length <= LEAF_SIZE || node.depth == MAX_DEPTH) return LEAF;
+        double[] box = node.box;
+        double cx = (box[0] + box[3]) / 2, cy = (box[1] + box[4]) / 2, cz = (box[2] + box[5]) / 2;
+
+        // the octants overlapped by every primitive, as bits of a mask
+        int[] masks = new int[primitives.length];
+        int[] counts = new int[8];
+        for (int i = 0; i < primitives.length; ++i) {
+            int b = primitives[i] * 6;
+            int xs = side(bounds[b], bounds[b + 3], cx), ys = side(bounds[b + 1], bounds[b + 4], cy);
+            int zs = side(bounds[b + 2], bounds[b + 5], cz);
+            for (int octant = 0; octant < 8; ++octant)
+                if ((xs & 1 << (octant & 1)) != 0 && (ys & 1 << (octant >> 1 & 1)) != 0
+                        && (zs & 1 << (octant >> 2)) != 0) {
+                    masks[i] |= 1 << octant;
+                    ++counts[octant];
+                }
+        }
+        int children = 0;
+        boolean progress = false;
+        for (int count : counts)
+            if (count > 0) {
+                ++children;
+                progress |= count < primitives.length;
+            }
+        if (!progress) return LEAF;
+
+        Node[] result = new Node[children];
+        int c = 0;
+        long bytes = 0;
+        for (int octant = 0; octant < 8; ++octant) {
+            if (counts[octant] == 0) continue;
+            int[] octantPrimitives = new int[counts[octant]];
+            int k = 0;
+            for (int i = 0; i < primitives.length; ++i)
+                if ((masks[i] & 1 << octant) != 0) octantPrimitives[k++] = primitives[i];
+            double[] octantBox = {
+                    (octant & 1) == 0 ? box[0] : cx, (octant & 2) == 0 ? box[1] : cy, (octant & 4) == 0 ? box[2] : cz,
+                    (octant & 1) == 0 ? cx : box[3], (octant & 2) == 0 ? cy : box[4], (octant & 4) == 0 ? cz : box[5]};
+            result[c++] = new Node(octantBox, node.depth + 1, octantPrimitives);
+            bytes += NODE_BYTES + (long) octantPrimitives.length * Integer.BYTES;
+        }
+        // an inner node refers to its primitives through its children only
+        node.primitives = null;
+        nodeCount.addAndGet(children);
+        nodeBytes.addAndGet(bytes - (long) primitives.length * Integer.BYTES);
+        return result;
+    }
+
+    /**
+     * Calculates the halves of a node overlapped by a primitive along an axis
+     *
+     * @param min    the minimal coordinate of the primitive
+     * @param max    the maximal coordinate of the primitive
+     * @param center the center of the node
+     * @return bit 0 for the lower half, bit 1 for the upper half
+     */
+    private static int side(double min, double max, double center) {
+        return (min <= center ? 1 : 0) | (max >= center ? 2 : 0);
+    }
+
+    @Override
+    void traverse(Ray ray, double maxDistance, Visitor visitor) {
+        if (size == 0) return;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double ix = inverse(dir.getX()), iy = inverse(dir.getY()), iz = inverse(dir.getZ());
+        Node[] stack = stacks.get();
+        Mailbox mailbox = mailboxes.get();
+        mailbox.nextRay();
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            stack[top] = null;
+            double[] box = node.box;
+            if (!hitBox(box[0], box[1], box[2], box[3], box[4], box[5], ox, oy, oz, ix, iy, iz, maxDistance)) continue;
+            Node[] children = children(node);
+            if (children == LEAF) {
+                // the cells of a sparse world are much larger than their primitives - test the primitive boxes too
+                for (int primitive : node.primitives) {
+                    int b = primitive * 6;
+                    if (mailbox.mark(primitive) && hitBox(bounds[b], bounds[b + 1], bounds[b + 2],
+                            bounds[b + 3], bounds[b + 4], bounds[b + 5], ox, oy, oz, ix, iy, iz, maxDistance)
+                            && (maxDistance = visitor.visit(primitive)) < 0)
+                        return;
+                }
+            } else
+                for (Node child : children)
+                    stack[top++] = child;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package geometries;
+
+import geometries.BVH.Node;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import static geometries.BVH.BUILD_POOL;
+import static geometries.BVH.MAX_LEAF_SIZE;
+import static geometries.BVH.boundInner;
+import static geometries.BVH.boundLeaf;
+import static geometries.BVH.leaf;
+
+/**
+ * Builder of a linear {@link BVH} (LBVH) from Morton codes of the primitive centroids.
+ * The centroids are quantized on a 1024<sup>3</sup> lattice over their bounds, and the bits of the
+ * three coordinates are interleaved into a 30 bit Morton code, so that sorting the codes orders
+ * the primitives along a Z-order space filling curve. The codes are sorted by a radix sort, and
+ * the inner nodes of the radix tree of the sorted codes are found independently of each other
+ * (Karras, "Maximizing Parallelism in the Construction of BVHs, Octrees, and k-d Trees", 2012).
+ * Finally, the tree is emitted top-down: small ranges are collapsed into leaves and the node
+ * boxes are united bottom-up. Every step takes linear time, so the build is much faster than
+ * {@link SAHBuilder}, at the cost of somewhat slower traversal - a good choice for scenes
+ * which are rebuilt for every frame.
+ */
+final class LinearBVHBuilder {
+
+    /**
+     * Amount of bits of a Morton code per axis
+     */
+    private static final int BITS_PER_AXIS = 10;
+
+    /**
+     * Amount of bits sorted by a single radix sort pass
+     */
+    private static final int RADIX_BITS = 10;
+
+    /**
+     * Minimal amount of primitives for computing the codes and the radix tree in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+    /**
+     * Primitive bounds - minimal and maximal x, y, z of every primitive
+     */
+    private final double[] bounds;
+
+    /**
+     * Primitive indices sorted by their Morton codes
+     */
+    private final int[] order;
+
+    /**
+     * Sorted Morton codes, codes[i] is the code of primitive order[i]
+     */
+    private final int[] codes;
+
+    /**
+     * Splits of the inner nodes of the radix tree - the left child of an inner node ends at
+     * the sorted primitive splits[i], and the right child starts right after it
+     */
+    private final int[] splits;
+
+    /**
+     * Constructs the builder
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param order  the primitive order array to fill
+     */
+    private LinearBVHBuilder(double[] bounds, int[] order) {
+        this.bounds = bounds;
+        this.order = order;
+        int size = order.length;
+        codes = new int[size];
+        splits = new int[size - 1];
+    }
+
+    /**
+     * Builds a linear hierarchy from Morton codes of the primitive centroids
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param order  the primitive order array to fill
+     * @return the root of the hierarchy, null if there are no primitives
+     */
+    static Node build(double[] bounds, int[] order) {
+        if (order.length == 0) return null;
+        LinearBVHBuilder builder = new LinearBVHBuilder(bounds, order);
+        builder.computeCodes();
+        builder.sort();
+        builder.buildRadixTree();
+        return order.length <= MAX_LEAF_SIZE ? builder.emitLeaf(0, order.length)
+                : builder.emit(0, 0, order.length - 1);
+    }
+
+    /**
+     * Runs an action for every index of a range, in parallel on the build pool if the range is large
+     *
+     * @param count  the amount of indices
+     * @param action the action
+     */
+    private static void forEach(int count, IntConsumer action) {
+        if (count < PARALLEL_THRESHOLD)
+            for (int i = 0; i < count; ++i) action.accept(i);
+        else
+            BUILD_POOL.submit(() -> IntStream.range(0, count).parallel().forEach(action)).join();
+    }
+
+    /**
+     * Computes the Morton codes of the primitive centroids, and fills the order array with the identity
+     */
+    private void computeCodes() {
+        int size = order.length;
+        double minX = Double.POSITIVE_INFINITY, minY = minX, minZ = minX;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+        for (int b = 0; b < size * 6; b += 6) {
+            double x = bounds[b] + bounds[b + 3], y = bounds[b + 1] + bounds[b + 4], z = bounds[b + 2] + bounds[b + 5];
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        // the centroids are kept doubled (min + max) - the scale absorbs the factor of 2
+        int cells = 1 << BITS_PER_AXIS;
+        double x0 = minX, y0 = minY, z0 = minZ;
+        double scaleX = scale(maxX - minX, cells), scaleY = scale(maxY - minY, cells), scaleZ = scale(maxZ - minZ, cells);
+        forEach(size, i -> {
+            int b = i * 6;
+            order[i] = i;
+            codes[i] = spread(quantize(bounds[b] + bounds[b + 3], x0, scaleX, cells)) << 2
+                    | spread(quantize(bounds[b + 1] + bounds[b + 4], y0, scaleY, cells)) << 1
+                    | spread(quantize(bounds[b + 2] + bounds[b + 5], z0, scaleZ, cells));
+        });
+    }
+
+    /**
+     * Calculates the amount of lattice cells per unit of length along an axis
+     *
+     * @param extent the extent of the centroids along the axis
+     * @param cells  the amount of lattice cells along the axis
+     * @return the amount of cells per unit of length, 0 if all the centroids have the same coordinate
+     */
+    private static double scale(double extent, int cells) {
+        return extent > 0 ? cells / extent : 0;
+    }
+
+    /**
+     * Quantizes a centroid coordinate on the lattice
+     *
+     * @param coordinate the coordinate
+     * @param min        the minimal coordinate of the centroids
+     * @param scale      the amount of lattice cells per unit of length
+     * @param cells      the amount of lattice cells
+     * @return the lattice cell of the coordinate
+     */
+    private static int quantize(double coordinate, double min, double scale, int cells) {
+        return Math.min(cells - 1, (int) ((coordinate - min) * scale));
+    }
+
+    /**
+     * Spreads the 10 low bits of a value, so that there are two zero bits between every two bits
+     *
+     * @param value the value
+     * @return the spread value
+     */
+    private static int spread(int value) {
+        value = (value | value << 16) & 0x030000FF;
+        value = (value | value << 8) & 0x0300F00F;
+        value = (value | value << 4) & 0x030C30C3;
+        return (value | value << 2) & 0x09249249;
+    }
+
+    /**
+     * Sorts the codes together with the order array by a least significant digit radix sort
+     */
+    private void sort() {
+        int size = order.length;
+        int[] codesFrom = codes, orderFrom = order;
+        int[] codesTo = new int[size], orderTo = new int[size];
+        int[] offsets = new int[1 << RADIX_BITS];
+        int mask = (1 << RADIX_BITS) - 1;
+        for (int shift = 0; shift < 3 * BITS_PER_AXIS; shift += RADIX_BITS) {
+            Arrays.fill(offsets, 0);
+            for (int i = 0; i < size; ++i)
+                ++offsets[codesFrom[i] >>> shift & mask];
+            int offset = 0;
+            for (int digit = 0; digit < offsets.length; ++digit) {
+                int count = offsets[digit];
+                offsets[digit] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < size; ++i) {
+                int position = offsets[codesFrom[i] >>> shift & mask]++;
+                codesTo[position] = codesFrom[i];
+                orderTo[position] = orderFrom[i];
+            }
+            int[] temp = codesFrom;
+            codesFrom = codesTo;
+            codesTo = temp;
+            temp = orderFrom;
+            orderFrom = orderTo;
+            orderTo = temp;
+        }
+        if (codesFrom != codes) {
+            System.arraycopy(codesFrom, 0, codes, 0, size);
+            System.arraycopy(orderFrom, 0, order, 0, size);
+        }
+    }
+
+    /**
+     * Calculates the length of the common prefix of two sorted codes -
+     * equal codes are told apart by their positions
+     *
+     * @param i the position of the first code
+     * @param j the position of the second code
+     * @return the length of the common prefix, -1 if the second position is out of range
+     */
+    private int delta(int i, int j) {
+        if (j < 0 || j >= codes.length) return -1;
+        int difference = codes[i] ^ codes[j];
+        return difference == 0 ? 32 + Integer.numberOfLeadingZeros(i ^ j) : Integer.numberOfLeadingZeros(difference);
+    }
+
+    /**
+     * Finds the splits of all the inner nodes of the radix tree - node 0 is the root, and an inner node
+     * which spans more than one primitive is numbered by the end of its range nearest to its parent split
+     */
+    private void buildRadixTree() {
+        forEach(order.length - 1, this::buildInnerNode);
+    }
+
+    /**
+     * Finds the range and the split of an inner node of the radix tree
+     *
+     * @param i the inner node
+     */
+    private void buildInnerNode(int i) {
+        // the direction of the range, and an upper bound of its length
+        int direction = delta(i, i + 1) - delta(i, i - 1) >= 0 ? 1 : -1;
+        int deltaMin = delta(i, i - direction);
+        int maxLength = 2;
+        while (delta(i, i + maxLength * direction) > deltaMin) maxLength <<= 1;
+
+        // the other end of the range by binary search
+        int length = 0;
+        for (int step = maxLength >>> 1; step > 0; step >>>= 1)
+            if (delta(i, i + (length + step) * direction) > deltaMin) length += step;
+        int j = i + length * direction;
+
+        // the split position by binary search
+        int deltaNode = delta(i, j);
+        int split = 0;
+        for (int step = (length + 1) >>> 1; ; step = (step + 1) >>> 1) {
+            if (delta(i, i + (split + step) * direction) > deltaNode) split += step;
+            if (step == 1) break;
+        }
+        splits[i] = i + split * direction + Math.min(direction, 0);
+    }
+
+    /**
+     * Emits the sub-tree of an inner node of the radix tree, a range of at most
+     * {@link BVH#MAX_LEAF_SIZE} primitives is emitted as a single leaf.
+     * The left child of a node is the inner node numbered by the split (the end of its range),
+     * and the right child is the inner node numbered by the split + 1 (the start of its range).
+     *
+     * @param inner the inner node
+     * @param first the first sorted primitive of the node (inclusive)
+     * @param last  the last sorted primitive of the node (inclusive)
+     * @return the root of the sub-tree
+     */
+    private Node emit(int inner, int first, int last) {
+        if (last - first < MAX_LEAF_SIZE) return emitLeaf(first, last + 1);
+        int split = splits[inner];
+        Node node = new Node();
+        node.left = emit(split, first, split);
+        node.right = emit(split + 1, split + 1, last);
+        return boundInner(node);
+    }
+
+    /**
+     * Emits a leaf over a range of sorted primitives
+     *
+     * @param start the first sorted primitive (inclusive)
+     * @param end   the last sorted primitive (exclusive)
+     * @return the leaf
+     */
+    private Node emitLeaf(int start, int end) {
+        return boundLeaf(leaf(new Node(), start, end - start), bounds, order);
+    }
+}
@@ -0,0 +1,54 @@
+package geometries;
+
+import java.util.Arrays;
+
+/**
+ * Mailbox of the primitives which were already tested against the current ray.
+ * Spatial subdivisions (grids, trees of cells) refer to a primitive from every cell
+ * it overlaps, so a ray may meet the same primitive many times. The mailbox stamps
+ * every tested primitive with the number of the current ray, so that the primitive
+ * is reported once per ray. A mailbox must not be shared between threads.
+ */
+final class Mailbox {
+
+    /**
+     * The number of the last ray which tested every primitive
+     */
+    private final int[] stamps;
+
+    /**
+     * The number of the current ray
+     */
+    private int ray = 0;
+
+    /**
+     * Constructs a mailbox for the given amount of primitives
+     *
+     * @param size the amount of primitives
+     */
+    Mailbox(int size) {
+        stamps = new int[size];
+    }
+
+    /**
+     * Starts a new ray - all the primitives become untested
+     */
+    void nextRay() {
+        if (++ray == 0) { // the counter wrapped around - forget the old stamps
+            Arrays.fill(stamps, 0);
+            ray = 1;
+        }
+    }
+
+    /**
+     * Marks a primitive as tested by the current ray
+     *
+     * @param primitive the index of the primitive
+     * @return true if the primitive was not tested by the current ray yet
+     */
+    boolean mark(int primitive) {
+        if (stamps[primitive] == ray) return false;
+        stamps[primitive] = ray;
+        return true;
+    }
+}
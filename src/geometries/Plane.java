@@ -71,17 +71,41 @@ public class Plane extends Geometry {
     }
 
     /**
-     * @param ray the ray
+     * @param ray         the ray
+     * @param maxDistance the distance from the head of the ray - a farther point is ignored
      * @return list of intersection points
      */
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
         double nv = normal.dotProduct(ray.getDir());
         // if the ray is parallel to the plane or if the ray starts on the plane
         if (isZero(nv) || q0.equals(ray.getP0())) return null;
 
         double t = normal.dotProduct(q0.subtract(ray.getP0())) / nv;
-        // if the intersection is behind the ray
-        return alignZero(t) > 0 ? List.of(new GeoPoint(this, ray.getPoint(t))) : null;
+        // if the intersection is behind the ray or beyond the distance
+        return alignZero(t) > 0 && alignZero(t - maxDistance) <= 0 ? List.of(new GeoPoint(this, ray.getPoint(t))) : null;
     }
-}
\ No newline at end of file
+
+    /**
+     * @param ray         the ray
+     * @param maxDistance the distance from the head of the ray - a farther point is ignored
+     * @return the distance of the intersection point, {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        double nv = normal.dotProduct(ray.getDir());
+        // if the ray is parallel to the plane or if the ray starts on the plane
+        if (isZero(nv) || q0.equals(p0)) return Double.POSITIVE_INFINITY;
+
+        double t = (normal.getX() * (q0.getX() - p0.getX()) + normal.getY() * (q0.getY() - p0.getY())
+                + normal.getZ() * (q0.getZ() - p0.getZ())) / nv;
+        // if the intersection is behind the ray or beyond the distance
+        return alignZero(t) > 0 && alignZero(t - maxDistance) <= 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected void fillNormal(Hit hit) {
+        hit.setNormal(normal);
+    }
+}
@@ -20,12 +20,18 @@ public class Polygon extends Geometry {
     /**
      * List of polygon's vertices
      */
-    protected final List<Point> vertices;
+    protected List<Point> vertices;
     /**
      * Associated plane in which the polygon lays
      */
-    protected final Plane plane;
+    protected Plane plane;
     private final int size;
+    /**
+     * Normals of the edges in the plane of the polygon, towards its inside (3 coordinates per edge),
+     * and their dot products with the first vertex of every edge - a point of the plane is inside
+     * the polygon if it is in front of all the edges
+     */
+    private double[] edgeNormals, edgeOffsets;
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -59,7 +65,10 @@ public class Polygon extends Geometry {
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
         plane = new Plane(vertices[0], vertices[1], vertices[2]);
-        if (size == 3) return; // no need for more tests for a Triangle
+        if (size == 3) { // no need for more tests for a Triangle
+            setEdgeNormals();
+            return;
+        }
 
         Vector n = plane.getNormal();
         // Subtracting any subsequent points will throw an IllegalArgumentException
@@ -87,6 +96,37 @@ public class Polygon extends Geometry {
             if (positive != (edge1.crossProduct(edge2).dotProduct(n) > 0))
                 throw new IllegalArgumentException("All vertices must be ordered and the polygon must be convex");
         }
+        setEdgeNormals();
+    }
+
+    /**
+     * Calculates the normals of the edges in the plane of the polygon, towards its inside,
+     * once the vertices are validated
+     */
+    protected void setEdgeNormals() {
+        Vector n = plane.getNormal();
+        double nx = n.getX(), ny = n.getY(), nz = n.getZ();
+        edgeNormals = new double[size * 3];
+        edgeOffsets = new double[size];
+        // the inside of a convex polygon is on the same side of all the edges - the side of the third vertex
+        Point third = vertices.get(2);
+        double sign = 0;
+        for (int i = 0; i < size; ++i) {
+            Point from = vertices.get(i), to = vertices.get(i == size - 1 ? 0 : i + 1);
+            double ex = to.getX() - from.getX(), ey = to.getY() - from.getY(), ez = to.getZ() - from.getZ();
+            double mx = ny * ez - nz * ey, my = nz * ex - nx * ez, mz = nx * ey - ny * ex;
+            double length = Math.sqrt(mx * mx + my * my + mz * mz);
+            if (sign == 0)
+                sign = mx * (third.getX() - from.getX()) + my * (third.getY() - from.getY())
+                        + mz * (third.getZ() - from.getZ()) > 0 ? 1 : -1;
+            mx *= sign / length;
+            my *= sign / length;
+            mz *= sign / length;
+            edgeNormals[i * 3] = mx;
+            edgeNormals[i * 3 + 1] = my;
+            edgeNormals[i * 3 + 2] = mz;
+            edgeOffsets[i] = mx * from.getX() + my * from.getY() + mz * from.getZ();
+        }
     }
 
     @Override
@@ -94,44 +134,72 @@ public class Polygon extends Geometry {
         return plane.getNormal();
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.of(vertices);
+    }
+
     /**
-     * @param ray the ray
+     * @param ray         the ray
+     * @param maxDistance the distance from the head of the ray - farther points are ignored
      * @return list of intersection points
      */
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-
-        List<GeoPoint> planeIntersections = plane.findGeoIntersections(ray);
-
-        if (planeIntersections == null || !isRayOnPolygon(ray)) return null;
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double distance = findClosestDistance(ray, maxDistance);
+        if (distance == Double.POSITIVE_INFINITY) return null;
 
         var result = new LinkedList<GeoPoint>();
-        result.add(new GeoPoint(this, planeIntersections.get(0).point));
+        result.add(new GeoPoint(this, ray.getPoint(distance)));
 
         return result;
     }
 
+    /**
+     * @param ray         the ray
+     * @param maxDistance the distance from the head of the ray - a farther point is ignored
+     * @return the distance of the intersection point, {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        double distance = plane.findClosestDistance(ray, maxDistance);
+        return distance != Double.POSITIVE_INFINITY && isOnPolygon(ray, distance) ? distance : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected void fillNormal(Hit hit) {
+        hit.setNormal(plane.getNormal());
+    }
+
     /**
      * @param ray The ray to check if the intersection is on polygon.
      * @return <b>True</b> if on polygon, <b>false</b> otherwise.
      */
     public boolean isRayOnPolygon(Ray ray) {
-        Vector v1, v2;
-        v1 = vertices.get(0).subtract(ray.getP0());
-        v2 = vertices.get(1).subtract(ray.getP0());
-
-        double prevN = ray.getDir().dotProduct((v1.crossProduct(v2)).normalize());
-        double curN;
-        if (alignZero(prevN) == 0) return false;
-
-        for (int i = 1; i < vertices.size(); i++) {
-            v1 = v2;
-            v2 = vertices.get((i + 1) % vertices.size()).subtract(ray.getP0());
-            curN = ray.getDir().dotProduct((v1.crossProduct(v2)).normalize());
-            if (alignZero(curN) == 0 || alignZero(curN * prevN) < 0)
+        Vector n = plane.getNormal();
+        double nv = n.dotProduct(ray.getDir());
+        if (isZero(nv)) return false;
+        // the line of the ray crosses the plane at the first vertex, whichever side of the head it is
+        Point p0 = ray.getP0(), q0 = vertices.get(0);
+        double distance = (n.getX() * (q0.getX() - p0.getX()) + n.getY() * (q0.getY() - p0.getY())
+                + n.getZ() * (q0.getZ() - p0.getZ())) / nv;
+        return isOnPolygon(ray, distance);
+    }
+
+    /**
+     * @param ray      The ray which crosses the plane of the polygon.
+     * @param distance The distance of the intersection with the plane from the head of the ray.
+     * @return <b>True</b> if the intersection is inside the polygon (not on an edge), <b>false</b> otherwise.
+     */
+    private boolean isOnPolygon(Ray ray, double distance) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double x = p0.getX() + dir.getX() * distance;
+        double y = p0.getY() + dir.getY() * distance;
+        double z = p0.getZ() + dir.getZ() * distance;
+        for (int i = 0, e = 0; i < size; ++i, e += 3)
+            if (alignZero(edgeNormals[e] * x + edgeNormals[e + 1] * y + edgeNormals[e + 2] * z - edgeOffsets[i]) <= 0)
                 return false;
-            prevN = curN;
-        }
         return true;
     }
 }
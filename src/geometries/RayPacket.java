@@ -0,0 +1,197 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Packet of up to {@link #MAX_SIZE} coherent rays (e.g. the primary rays of a tile of pixels)
+ * traversed through an acceleration structure together. The packet keeps the origins and the
+ * inverse directions of its rays, and the ranges of both over the packet - when the directions of
+ * all the rays have the same signs, the ranges bound the whole packet (a frustum for rays of a common
+ * origin), so that a box missed by the ranges is culled for the packet by a single interval test.
+ * The rays of a packet are referred by bits of a mask. A packet is reused for all the packets of a thread.
+ */
+final class RayPacket {
+
+    /**
+     * Maximal amount of rays in a packet - the bits of a mask
+     */
+    static final int MAX_SIZE = Long.SIZE;
+
+    /**
+     * Factor which widens the far distance of a box hit against rounding errors
+     */
+    private static final double ROBUSTNESS = 1 + 1e-9;
+
+    /**
+     * The rays of the packet
+     */
+    Ray[] rays;
+
+    /**
+     * The hit records of the rays - their distances bound the traversal of every ray
+     */
+    Hit[] hits;
+
+    /**
+     * Amount of rays in the packet
+     */
+    int size;
+
+    /**
+     * Origins of the rays, 3 values per ray
+     */
+    private final double[] origins = new double[MAX_SIZE * 3];
+
+    /**
+     * Inverse directions of the rays, 3 values per ray
+     */
+    private final double[] inverses = new double[MAX_SIZE * 3];
+
+    /**
+     * Minimal and maximal origin coordinates over the packet, per axis
+     */
+    private final double[] originMin = new double[3], originMax = new double[3];
+
+    /**
+     * Minimal and maximal inverse direction components over the packet, per axis
+     */
+    private final double[] inverseMin = new double[3], inverseMax = new double[3];
+
+    /**
+     * Whether the directions of all the rays have the same signs, so that the interval test is valid
+     */
+    private boolean coherent;
+
+    /**
+     * Sets the rays of the packet
+     *
+     * @param rays the rays
+     * @param hits the hit records of the rays
+     * @param size the amount of rays, at most {@link #MAX_SIZE}
+     * @return the packet
+     */
+    RayPacket set(Ray[] rays, Hit[] hits, int size) {
+        if (size > MAX_SIZE) throw new IllegalArgumentException("A packet has at most " + MAX_SIZE + " rays");
+        this.rays = rays;
+        this.hits = hits;
+        this.size = size;
+        coherent = true;
+        for (int k = 0; k < size; ++k) {
+            Point p0 = rays[k].getP0();
+            Vector dir = rays[k].getDir();
+            origins[k * 3] = p0.getX();
+            origins[k * 3 + 1] = p0.getY();
+            origins[k * 3 + 2] = p0.getZ();
+            inverses[k * 3] = AccelerationStructure.inverse(dir.getX());
+            inverses[k * 3 + 1] = AccelerationStructure.inverse(dir.getY());
+            inverses[k * 3 + 2] = AccelerationStructure.inverse(dir.getZ());
+        }
+        for (int axis = 0; axis < 3; ++axis) {
+            originMin[axis] = inverseMin[axis] = Double.POSITIVE_INFINITY;
+            originMax[axis] = inverseMax[axis] = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < size; ++k) {
+                originMin[axis] = Math.min(originMin[axis], origins[k * 3 + axis]);
+                originMax[axis] = Math.max(originMax[axis], origins[k * 3 + axis]);
+                inverseMin[axis] = Math.min(inverseMin[axis], inverses[k * 3 + axis]);
+                inverseMax[axis] = Math.max(inverseMax[axis], inverses[k * 3 + axis]);
+            }
+            coherent &= inverseMin[axis] > 0 || inverseMax[axis] < 0;
+        }
+        return this;
+    }
+
+    /**
+     * Finds the first ray of the packet, from a given one, which hits a box closer than its hit record
+     *
+     * @param box   the box - minimal and maximal x, y, z at an offset of an array
+     * @param b     the offset of the box
+     * @param first the first ray to test
+     * @return the index of the ray, the size of the packet if no ray hits the box
+     */
+    int firstHit(double[] box, int b, int first) {
+        if (coherent && missed(box, b)) return size;
+        for (int k = first; k < size; ++k)
+            if (hit(box, b, k)) return k;
+        return size;
+    }
+
+    /**
+     * Calculates the rays of the packet, from a given one, which hit a box closer than their hit records
+     *
+     * @param box   the box - minimal and maximal x, y, z at an offset of an array
+     * @param b     the offset of the box
+     * @param first the first ray to test
+     * @return the mask of the rays
+     */
+    long hits(double[] box, int b, int first) {
+        long mask = 0;
+        for (int k = first; k < size; ++k)
+            if (hit(box, b, k)) mask |= 1L << k;
+        return mask;
+    }
+
+    /**
+     * Slab test of a ray of the packet against a box
+     *
+     * @param box the box - minimal and maximal x, y, z at an offset of an array
+     * @param b   the offset of the box
+     * @param k   the index of the ray
+     * @return true if the ray hits the box closer than its hit record
+     */
+    private boolean hit(double[] box, int b, int k) {
+        int r = k * 3;
+        return BVH.hitBox(box[b], box[b + 1], box[b + 2], box[b + 3], box[b + 4], box[b + 5],
+                origins[r], origins[r + 1], origins[r + 2], inverses[r], inverses[r + 1], inverses[r + 2],
+                hits[k].distance);
+    }
+
+    /**
+     * Interval test of the whole packet against a box - the entry distance of every ray is at least
+     * the largest lower bound of the slab entries, and its exit distance is at most the smallest upper
+     * bound of the slab exits
+     *
+     * @param box the box - minimal and maximal x, y, z at an offset of an array
+     * @param b   the offset of the box
+     * @return true if every ray of the packet surely misses the box
+     */
+    private boolean missed(double[] box, int b) {
+        double nearBound = Double.NEGATIVE_INFINITY, farBound = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; ++axis) {
+            boolean positive = inverseMin[axis] > 0;
+            double near = positive ? box[b + axis] : box[b + axis + 3];
+            double far = positive ? box[b + axis + 3] : box[b + axis];
+            nearBound = Math.max(nearBound, lowerProduct(near - originMax[axis], near - originMin[axis], axis));
+            farBound = Math.min(farBound, upperProduct(far - originMax[axis], far - originMin[axis], axis));
+        }
+        farBound *= ROBUSTNESS;
+        return farBound < 0 || nearBound > farBound;
+    }
+
+    /**
+     * Lower bound of the product of an interval by the inverse direction interval of an axis
+     *
+     * @param low  the lower end of the interval
+     * @param high the upper end of the interval
+     * @param axis the axis
+     * @return the lower bound
+     */
+    private double lowerProduct(double low, double high, int axis) {
+        return Math.min(Math.min(low * inverseMin[axis], low * inverseMax[axis]),
+                Math.min(high * inverseMin[axis], high * inverseMax[axis]));
+    }
+
+    /**
+     * Upper bound of the product of an interval by the inverse direction interval of an axis
+     *
+     * @param low  the lower end of the interval
+     * @param high the upper end of the interval
+     * @param axis the axis
+     * @return the upper bound
+     */
+    private double upperProduct(double low, double high, int axis) {
+        return Math.max(Math.max(low * inverseMin[axis], low * inverseMax[axis]),
+                Math.max(high * inverseMin[axis], high * inverseMax[axis]));
+    }
+}
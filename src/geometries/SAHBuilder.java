@@ -0,0 +1,499 @@
+package geometries;
+
+import geometries.BVH.Node;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+import static geometries.BVH.BUILD_POOL;
+import static geometries.BVH.MAX_LEAF_SIZE;
+import static geometries.BVH.TRAVERSAL_COST;
+import static geometries.BVH.bounded;
+import static geometries.BVH.leaf;
+
+/**
+ * Top-down builder of a {@link BVH} by the surface area heuristic (SAH).
+ * Every node is split where the SAH predicts the cheapest traversal, the candidate splits
+ * are the boundaries of {@link #BINS} equal bins of the centroids along every axis.
+ * The build runs on the build pool: large sub-trees are built in parallel,
+ * and the primitives of large nodes are binned in parallel.
+ * The builder produces high quality trees, at the cost of a slower build than {@link LinearBVHBuilder}.
+ */
+final class SAHBuilder {
+
+    /**
+     * Amount of bins along every axis for the split candidates
+     */
+    private static final int BINS = 16;
+
+    /**
+     * Minimal amount of primitives of a node for building its children in parallel
+     */
+    private static final int PARALLEL_BUILD_THRESHOLD = 1 << 10;
+
+    /**
+     * Minimal amount of primitives of a range for binning it in parallel
+     */
+    private static final int PARALLEL_BINNING_THRESHOLD = 1 << 15;
+
+    /**
+     * Bins of a range of primitives - amount of primitives and bounds of every bin along every axis,
+     * together with the bounds of the whole range. Small ranges use less than {@link #BINS} bins.
+     */
+    private static final class Bins {
+        private final int[] counts = new int[3 * BINS];
+        private final double[] boxes = new double[3 * BINS * 6];
+        private final double[] box = new double[6];
+        private int binCount;
+
+        /**
+         * Constructs empty bins
+         *
+         * @param binCount the amount of bins along every axis
+         */
+        private Bins(int binCount) {
+            clear(binCount);
+        }
+
+        /**
+         * Empties the bins
+         *
+         * @param binCount the amount of bins along every axis
+         */
+        private void clear(int binCount) {
+            this.binCount = binCount;
+            Arrays.fill(counts, 0);
+            empty(boxes);
+            empty(box);
+        }
+
+        /**
+         * Merges the bins of another range into these bins
+         *
+         * @param other the other bins
+         * @return this
+         */
+        private Bins merge(Bins other) {
+            for (int i = 0; i < counts.length; ++i)
+                counts[i] += other.counts[i];
+            unite(boxes, other.boxes);
+            unite(box, other.box);
+            return this;
+        }
+    }
+
+    /**
+     * Scratch arrays of a sequential build, shared by all the nodes of a sub-tree
+     */
+    private static final class Scratch {
+        private final Bins bins = new Bins(BINS);
+        private final double[] leftAreas = new double[BINS];
+        private final int[] leftCounts = new int[BINS];
+        private final double[] box = new double[6];
+    }
+
+    /**
+     * Primitive indices, ordered by the build so that every leaf refers to a continuous range
+     */
+    private final int[] order;
+
+    /**
+     * Primitive bounds in the order of the order array - the build keeps them next to
+     * the order, so that the sweeps over a range of primitives read continuous memory
+     */
+    private double[] orderedBounds;
+
+    /**
+     * Primitive centroids in the order of the order array - 3 values per primitive
+     */
+    private double[] orderedCentroids;
+
+    /**
+     * Constructs the builder
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param order  the primitive order array to fill
+     */
+    private SAHBuilder(double[] bounds, int[] order) {
+        int size = order.length;
+        this.order = order;
+        orderedBounds = bounds.clone();
+        orderedCentroids = new double[size * 3];
+        for (int i = 0; i < size; ++i) {
+            order[i] = i;
+            for (int axis = 0; axis < 3; ++axis)
+                orderedCentroids[i * 3 + axis] = (bounds[i * 6 + axis] + bounds[i * 6 + 3 + axis]) / 2;
+        }
+    }
+
+    /**
+     * Builds a hierarchy by the surface area heuristic
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param order  the primitive order array to fill
+     * @return the root of the hierarchy, null if there are no primitives
+     */
+    static Node build(double[] bounds, int[] order) {
+        if (order.length == 0) return null;
+        SAHBuilder builder = new SAHBuilder(bounds, order);
+        return BUILD_POOL.invoke(new RecursiveTask<>() {
+            @Override
+            protected Node compute() {
+                return builder.new BuildTask(0, order.length, builder.centroidBounds(0, order.length)).compute();
+            }
+        });
+    }
+
+    /**
+     * Empties an array of boxes (sets infinite minimums and negative infinite maximums)
+     *
+     * @param boxes the array - 6 values per box
+     */
+    private static void empty(double[] boxes) {
+        for (int i = 0; i < boxes.length; i += 6)
+            for (int j = 0; j < 3; ++j) {
+                boxes[i + j] = Double.POSITIVE_INFINITY;
+                boxes[i + j + 3] = Double.NEGATIVE_INFINITY;
+            }
+    }
+
+    /**
+     * Unites boxes with other boxes, box by box
+     *
+     * @param boxes  the boxes to grow
+     * @param others the other boxes
+     */
+    private static void unite(double[] boxes, double[] others) {
+        for (int i = 0; i < boxes.length; i += 6)
+            for (int j = 0; j < 3; ++j) {
+                boxes[i + j] = Math.min(boxes[i + j], others[i + j]);
+                boxes[i + j + 3] = Math.max(boxes[i + j + 3], others[i + j + 3]);
+            }
+    }
+
+    /**
+     * Unites a box with a box of an array of boxes
+     *
+     * @param box   the box to grow
+     * @param boxes the array of boxes
+     * @param index the index of the other box in the array
+     */
+    private static void uniteBox(double[] box, double[] boxes, int index) {
+        int b = index * 6;
+        for (int j = 0; j < 3; ++j) {
+            box[j] = Math.min(box[j], boxes[b + j]);
+            box[j + 3] = Math.max(box[j + 3], boxes[b + j + 3]);
+        }
+    }
+
+    /**
+     * Calculates the surface area of a box in an array of boxes
+     *
+     * @param boxes the boxes - 6 values per box
+     * @param index the index of the box
+     * @return the surface area
+     */
+    private static double area(double[] boxes, int index) {
+        int b = index * 6;
+        double dx = boxes[b + 3] - boxes[b], dy = boxes[b + 4] - boxes[b + 1], dz = boxes[b + 5] - boxes[b + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Calculates the bounds of the centroids of a range of primitives,
+     * a large range is split between two parallel tasks (must be called from the build pool)
+     *
+     * @param start the first primitive (inclusive)
+     * @param end   the last primitive (exclusive)
+     * @return the bounds - minimal and maximal x, y, z
+     */
+    private double[] centroidBounds(int start, int end) {
+        if (end - start >= PARALLEL_BINNING_THRESHOLD) {
+            int middle = (start + end) >>> 1;
+            RecursiveTask<double[]> left = new RecursiveTask<>() {
+                @Override
+                protected double[] compute() {
+                    return centroidBounds(start, middle);
+                }
+            };
+            left.fork();
+            double[] box = centroidBounds(middle, end);
+            unite(box, left.join());
+            return box;
+        }
+
+        double[] box = new double[6];
+        empty(box);
+        double[] centroids = orderedCentroids;
+        for (int i = start; i < end; ++i) {
+            int c = i * 3;
+            for (int axis = 0; axis < 3; ++axis) {
+                box[axis] = Math.min(box[axis], centroids[c + axis]);
+                box[axis + 3] = Math.max(box[axis + 3], centroids[c + axis]);
+            }
+        }
+        return box;
+    }
+
+    /**
+     * Calculates the bin of a centroid coordinate
+     *
+     * @param coordinate the centroid coordinate
+     * @param min        the minimal centroid coordinate of the range
+     * @param scale      the amount of bins per unit of length
+     * @param binCount   the amount of bins
+     * @return the bin
+     */
+    private static int bin(double coordinate, double min, double scale, int binCount) {
+        return Math.min(binCount - 1, (int) ((coordinate - min) * scale));
+    }
+
+    /**
+     * Chooses the amount of bins for a range - a range smaller than {@link #BINS}
+     * gets a bin per primitive
+     *
+     * @param count the amount of primitives in the range
+     * @return the amount of bins
+     */
+    private static int binCount(int count) {
+        return Math.min(BINS, count);
+    }
+
+    /**
+     * Sorts a range of primitives into bins along every axis
+     *
+     * @param start       the first primitive (inclusive)
+     * @param end         the last primitive (exclusive)
+     * @param centroidBox bounds of the centroids of the node being split
+     * @param bins        the bins to fill
+     */
+    private void binRange(int start, int end, double[] centroidBox, Bins bins) {
+        int binCount = bins.binCount;
+        double scaleX = scale(centroidBox, 0, binCount);
+        double scaleY = scale(centroidBox, 1, binCount);
+        double scaleZ = scale(centroidBox, 2, binCount);
+        double[] box = bins.box, boxes = bins.boxes;
+        double[] bounds = orderedBounds, centroids = orderedCentroids;
+        for (int i = start; i < end; ++i) {
+            int b = i * 6, c = i * 3;
+            for (int j = 0; j < 3; ++j) {
+                box[j] = Math.min(box[j], bounds[b + j]);
+                box[j + 3] = Math.max(box[j + 3], bounds[b + j + 3]);
+            }
+            int binX = bin(centroids[c], centroidBox[0], scaleX, binCount);
+            int binY = BINS + bin(centroids[c + 1], centroidBox[1], scaleY, binCount);
+            int binZ = 2 * BINS + bin(centroids[c + 2], centroidBox[2], scaleZ, binCount);
+            ++bins.counts[binX];
+            ++bins.counts[binY];
+            ++bins.counts[binZ];
+            for (int j = 0; j < 3; ++j) {
+                double min = bounds[b + j], max = bounds[b + j + 3];
+                boxes[binX * 6 + j] = Math.min(boxes[binX * 6 + j], min);
+                boxes[binX * 6 + j + 3] = Math.max(boxes[binX * 6 + j + 3], max);
+                boxes[binY * 6 + j] = Math.min(boxes[binY * 6 + j], min);
+                boxes[binY * 6 + j + 3] = Math.max(boxes[binY * 6 + j + 3], max);
+                boxes[binZ * 6 + j] = Math.min(boxes[binZ * 6 + j], min);
+                boxes[binZ * 6 + j + 3] = Math.max(boxes[binZ * 6 + j + 3], max);
+            }
+        }
+    }
+
+    /**
+     * Calculates the amount of bins per unit of length along an axis
+     *
+     * @param centroidBox bounds of the centroids of the node being split
+     * @param axis        the axis
+     * @param binCount    the amount of bins
+     * @return the amount of bins per unit of length, 0 if all the centroids have the same coordinate
+     */
+    private static double scale(double[] centroidBox, int axis, int binCount) {
+        double extent = centroidBox[axis + 3] - centroidBox[axis];
+        return extent > 0 ? binCount / extent : 0;
+    }
+
+    /**
+     * Task which sorts a range of primitives into bins along every axis.
+     * A large range is split between two parallel sub-tasks, and their bins are merged.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class BinningTask extends RecursiveTask<Bins> {
+        private final int start, end;
+        private final double[] centroidBox;
+
+        /**
+         * Constructs the task
+         *
+         * @param start       the first primitive (inclusive)
+         * @param end         the last primitive (exclusive)
+         * @param centroidBox bounds of the centroids of the node being split
+         */
+        private BinningTask(int start, int end, double[] centroidBox) {
+            this.start = start;
+            this.end = end;
+            this.centroidBox = centroidBox;
+        }
+
+        @Override
+        protected Bins compute() {
+            if (end - start >= PARALLEL_BINNING_THRESHOLD) {
+                int middle = (start + end) >>> 1;
+                BinningTask left = new BinningTask(start, middle, centroidBox);
+                left.fork();
+                Bins right = new BinningTask(middle, end, centroidBox).compute();
+                return left.join().merge(right);
+            }
+            Bins bins = new Bins(BINS);
+            binRange(start, end, centroidBox, bins);
+            return bins;
+        }
+    }
+
+    /**
+     * Task which builds the sub-tree over a large range of the primitive order array -
+     * the primitives are binned in parallel, and the children are built by two parallel tasks.
+     * Small ranges are built sequentially.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private final class BuildTask extends RecursiveTask<Node> {
+        private final int start, end;
+        private final double[] centroidBox;
+
+        /**
+         * Constructs the task
+         *
+         * @param start       the first primitive (inclusive)
+         * @param end         the last primitive (exclusive)
+         * @param centroidBox bounds of the centroids of the range
+         */
+        private BuildTask(int start, int end, double[] centroidBox) {
+            this.start = start;
+            this.end = end;
+            this.centroidBox = centroidBox;
+        }
+
+        @Override
+        protected Node compute() {
+            Scratch scratch = new Scratch();
+            if (end - start < PARALLEL_BUILD_THRESHOLD) return build(start, end, centroidBox, scratch);
+
+            Bins bins = new BinningTask(start, end, centroidBox).compute();
+            Node node = bounded(new Node(), bins.box, 0);
+            int middle = split(start, end, centroidBox, bins, scratch);
+            BuildTask left = new BuildTask(start, middle, centroidBounds(start, middle));
+            left.fork();
+            node.right = new BuildTask(middle, end, centroidBounds(middle, end)).compute();
+            node.left = left.join();
+            return node;
+        }
+    }
+
+    /**
+     * Recursively builds the sub-tree over a range of the primitive order array on the current thread
+     *
+     * @param start       the first primitive (inclusive)
+     * @param end         the last primitive (exclusive)
+     * @param centroidBox bounds of the centroids of the range
+     * @param scratch     scratch arrays of the build
+     * @return the root of the sub-tree
+     */
+    private Node build(int start, int end, double[] centroidBox, Scratch scratch) {
+        Node node = new Node();
+        if (end - start == 1) return leaf(bounded(node, orderedBounds, start), start, 1);
+
+        Bins bins = scratch.bins;
+        bins.clear(binCount(end - start));
+        binRange(start, end, centroidBox, bins);
+        bounded(node, bins.box, 0);
+        int middle = split(start, end, centroidBox, bins, scratch);
+        if (middle < 0) return leaf(node, start, end - start);
+
+        node.left = build(start, middle, centroidBounds(start, middle), scratch);
+        node.right = build(middle, end, centroidBounds(middle, end), scratch);
+        return node;
+    }
+
+    /**
+     * Chooses the split of a binned range with the lowest estimated cost,
+     * and partitions the range accordingly
+     *
+     * @param start       the first primitive (inclusive)
+     * @param end         the last primitive (exclusive)
+     * @param centroidBox bounds of the centroids of the range
+     * @param bins        the bins of the range
+     * @param scratch     scratch arrays of the build
+     * @return the first primitive of the right side, or -1 if the range should be a leaf
+     */
+    private int split(int start, int end, double[] centroidBox, Bins bins, Scratch scratch) {
+        int count = end - start;
+        double area = area(bins.box, 0);
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1, bestBin = 0;
+        double[] leftAreas = scratch.leftAreas, box = scratch.box;
+        int[] leftCounts = scratch.leftCounts;
+        int binCount = bins.binCount;
+        for (int axis = 0; axis < 3; ++axis) {
+            if (centroidBox[axis + 3] <= centroidBox[axis]) continue;
+            empty(box);
+            int leftCount = 0;
+            for (int i = 0; i < binCount - 1; ++i) {
+                int index = axis * BINS + i;
+                leftCount += bins.counts[index];
+                uniteBox(box, bins.boxes, index);
+                leftCounts[i] = leftCount;
+                leftAreas[i] = leftCount == 0 ? 0 : area(box, 0);
+            }
+            empty(box);
+            int rightCount = 0;
+            for (int i = binCount - 1; i > 0; --i) {
+                int index = axis * BINS + i;
+                rightCount += bins.counts[index];
+                uniteBox(box, bins.boxes, index);
+                if (rightCount == 0 || leftCounts[i - 1] == 0) continue;
+                double cost = TRAVERSAL_COST
+                        + (leftAreas[i - 1] * leftCounts[i - 1] + area(box, 0) * rightCount) / area;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = i - 1;
+                }
+            }
+        }
+
+        if (count <= MAX_LEAF_SIZE && (bestAxis < 0 || bestCost >= count)) return -1;
+        if (bestAxis < 0) return start + count / 2; // all the centroids coincide - split in the middle
+
+        // move the primitives of the bins up to the best bin to the left side
+        double min = centroidBox[bestAxis];
+        double scale = scale(centroidBox, bestAxis, binCount);
+        int i = start, j = end - 1;
+        while (i <= j) {
+            if (bin(orderedCentroids[i * 3 + bestAxis], min, scale, binCount) <= bestBin)
+                ++i;
+            else
+                swap(i, j--);
+        }
+        return i;
+    }
+
+    /**
+     * Swaps two primitives in the order array, together with their ordered bounds and centroids
+     *
+     * @param i the position of the first primitive
+     * @param j the position of the second primitive
+     */
+    private void swap(int i, int j) {
+        int temp = order[i];
+        order[i] = order[j];
+        order[j] = temp;
+        for (int k = 0; k < 6; ++k) {
+            double value = orderedBounds[i * 6 + k];
+            orderedBounds[i * 6 + k] = orderedBounds[j * 6 + k];
+            orderedBounds[j * 6 + k] = value;
+        }
+        for (int k = 0; k < 3; ++k) {
+            double value = orderedCentroids[i * 3 + k];
+            orderedCentroids[i * 3 + k] = orderedCentroids[j * 3 + k];
+            orderedCentroids[j * 3 + k] = value;
+        }
+    }
+}
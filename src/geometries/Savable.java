@@ -0,0 +1,24 @@
+package geometries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An acceleration structure which can be saved, so that {@link AccelerationCache} can store it
+ * and restore it by {@link Acceleration#load} without building it again
+ */
+interface Savable {
+
+    /**
+     * Getter of the size of the structure when it is saved
+     *
+     * @return the size in bytes
+     */
+    long getSavedBytes();
+
+    /**
+     * Saves the structure at the position of a buffer
+     *
+     * @param buffer the buffer, with at least {@link #getSavedBytes()} bytes remaining
+     */
+    void save(ByteBuffer buffer);
+}
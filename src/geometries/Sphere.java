@@ -16,7 +16,7 @@ public class Sphere extends RadialGeometry {
     /**
      * The center point of the sphere.
      */
-    private final Point center;
+    private Point center;
 
     /**
      * Constructs a sphere with a given radius and center point.
@@ -29,6 +29,18 @@ public class Sphere extends RadialGeometry {
         this.center = center;
     }
 
+    /**
+     * Moves the sphere to a new center point. A collection containing the sphere
+     * must be refitted ({@link Geometries#refit()}) before it is traced again.
+     *
+     * @param center The new center point of the sphere.
+     * @return this
+     */
+    public Sphere setCenter(Point center) {
+        this.center = center;
+        return this;
+    }
+
     /**
      * Gets the normal vector to the sphere at a given point.
      *
@@ -41,14 +53,61 @@ public class Sphere extends RadialGeometry {
     }
 
     /**
-     * @param ray the ray to find intersections with
+     * @param ray         the ray to find intersections with
+     * @param maxDistance the distance from the head of the ray - farther points are ignored
+     * @return the distance of the closest intersection point, {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        // Ray starts at the center of the sphere
+        if (center.equals(p0))
+            return alignZero(radius - maxDistance) <= 0 ? radius : Double.POSITIVE_INFINITY;
+
+        // the same calculation as of all the points, on coordinates
+        Vector dir = ray.getDir();
+        double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+        double tm = ux * dir.getX() + uy * dir.getY() + uz * dir.getZ();
+        double dSquared = ux * ux + uy * uy + uz * uz - tm * tm;
+        double thSquared = radiusSquared - dSquared;
+        if (alignZero(thSquared) <= 0) return Double.POSITIVE_INFINITY;
+
+        double th = Math.sqrt(thSquared);
+        double t2 = tm - th;
+        if (alignZero(t2) > 0)
+            return alignZero(t2 - maxDistance) <= 0 ? t2 : Double.POSITIVE_INFINITY;
+        double t1 = tm + th;
+        return alignZero(t1) > 0 && alignZero(t1 - maxDistance) <= 0 ? t1 : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * The normal is calculated on coordinates, as by {@link #getNormal(Point)}
+     */
+    @Override
+    protected void fillNormal(Hit hit) {
+        double dx = hit.x - center.getX(), dy = hit.y - center.getY(), dz = hit.z - center.getZ();
+        double scale = 1 / Math.sqrt(dx * dx + dy * dy + dz * dz);
+        hit.normalX = dx * scale;
+        hit.normalY = dy * scale;
+        hit.normalZ = dz * scale;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
+    /**
+     * @param ray         the ray to find intersections with
+     * @param maxDistance the distance from the head of the ray - farther points are ignored
      * @return list of intersection points
      */
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
         // Ray starts at the center of the sphere
         if (center.equals(ray.getP0()))
-            return List.of(new GeoPoint(this, ray.getPoint(radius)));
+            return alignZero(radius - maxDistance) <= 0 ? List.of(new GeoPoint(this, ray.getPoint(radius))) : null;
 
         Vector u = center.subtract(ray.getP0());
         // Not the other way around to not break LoD
@@ -63,8 +122,13 @@ public class Sphere extends RadialGeometry {
         if (alignZero(t1) <= 0) return null;
 
         double t2 = tm - th;
-        return alignZero(t2) > 0 ?
+        // the nearer point is beyond the distance as well
+        if (alignZero(t2 - maxDistance) > 0) return null;
+        boolean t1InRange = alignZero(t1 - maxDistance) <= 0;
+        if (alignZero(t2) <= 0)
+            return t1InRange ? List.of(new GeoPoint(this,ray.getPoint(t1))) : null;
+        return t1InRange ?
                 List.of(new GeoPoint(this ,ray.getPoint(t2)), new GeoPoint(this,ray.getPoint(t1))) :
-                List.of(new GeoPoint(this,ray.getPoint(t1)));
+                List.of(new GeoPoint(this,ray.getPoint(t2)));
     }
 }
@@ -7,12 +7,35 @@ import primitives.Vector;
 import java.util.List;
 
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * Represents a triangle in 3D space.
+ * A ray is intersected with the triangle by the Moller-Trumbore algorithm, over the first vertex and the two
+ * edges from it, which are kept as coordinates - so that intersecting a ray creates no objects.
  */
 public class Triangle extends Polygon {
 
+    /**
+     * Coordinates of the first vertex
+     */
+    private double ax, ay, az;
+
+    /**
+     * Coordinates of the edge from the first vertex to the second one
+     */
+    private double e1x, e1y, e1z;
+
+    /**
+     * Coordinates of the edge from the first vertex to the third one
+     */
+    private double e2x, e2y, e2z;
+
+    /**
+     * Inverse of the length of the cross product of the edges (twice the area of the triangle)
+     */
+    private double inverseArea;
+
     /**
      * Constructs a triangle with the given vertices.
      *
@@ -22,38 +45,99 @@ public class Triangle extends Polygon {
      */
     public Triangle(Point p1, Point p2, Point p3) {
         super(p1, p2, p3);
+        setEdges();
+    }
+
+    /**
+     * Moves the vertices of the triangle. A collection containing the triangle
+     * must be refitted ({@link Geometries#refit()}) before it is traced again.
+     *
+     * @param p1 The new first vertex of the triangle.
+     * @param p2 The new second vertex of the triangle.
+     * @param p3 The new third vertex of the triangle.
+     * @return this
+     * @throws IllegalArgumentException if the vertices do not form a triangle
+     */
+    public Triangle setVertices(Point p1, Point p2, Point p3) {
+        Plane newPlane = new Plane(p1, p2, p3);
+        vertices = List.of(p1, p2, p3);
+        plane = newPlane;
+        setEdgeNormals();
+        setEdges();
+        return this;
+    }
+
+    /**
+     * Keeps the first vertex and the edges from it as coordinates
+     */
+    private void setEdges() {
+        Point a = vertices.get(0), b = vertices.get(1), c = vertices.get(2);
+        ax = a.getX();
+        ay = a.getY();
+        az = a.getZ();
+        e1x = b.getX() - ax;
+        e1y = b.getY() - ay;
+        e1z = b.getZ() - az;
+        e2x = c.getX() - ax;
+        e2y = c.getY() - ay;
+        e2z = c.getZ() - az;
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        inverseArea = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
     }
 
     /**
-     * @param ray the ray to find intersections with
+     * @param ray         the ray to find intersections with
+     * @param maxDistance the distance from the head of the ray - farther points are ignored
      * @return list of intersection points
      */
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        var intersection = plane.findGeoIntersections(ray);
-        if (intersection == null) return null;
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double distance = findClosestDistance(ray, maxDistance);
+        return distance == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(distance)));
+    }
 
+    /**
+     * @param ray         the ray
+     * @param maxDistance the distance from the head of the ray - a farther point is ignored
+     * @return the distance of the intersection point, {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
         Point p0 = ray.getP0();
         Vector dir = ray.getDir();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+
+        // p = dir x e2, and the determinant is the (scaled) cosine of the angle of the ray with the normal
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double determinant = e1x * px + e1y * py + e1z * pz;
+        if (isZero(determinant * inverseArea)) return Double.POSITIVE_INFINITY; // the ray is parallel to the plane
+        double inverseDeterminant = 1 / determinant;
+
+        // the barycentric coordinates of the point of the plane - a point on an edge is not on the triangle
+        double tx = p0.getX() - ax, ty = p0.getY() - ay, tz = p0.getZ() - az;
+        double u = alignZero((tx * px + ty * py + tz * pz) * inverseDeterminant);
+        if (u <= 0 || alignZero(u - 1) >= 0) return Double.POSITIVE_INFINITY;
+        double qx = ty * e1z - tz * e1y, qy = tz * e1x - tx * e1z, qz = tx * e1y - ty * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * inverseDeterminant);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return Double.POSITIVE_INFINITY;
+
+        double distance = (e2x * qx + e2y * qy + e2z * qz) * inverseDeterminant;
+        // if the intersection is behind the ray or beyond the distance
+        return alignZero(distance) > 0 && alignZero(distance - maxDistance) <= 0 ? distance : Double.POSITIVE_INFINITY;
+    }
 
-        // take care of the 1st edge
-        Vector v1 = vertices.get(0).subtract(p0);
-        Vector v2 = vertices.get(1).subtract(p0);
-        Vector n1 = v1.crossProduct(v2).normalize();
-        double s1 = alignZero(dir.dotProduct(n1));
-        if (s1 == 0) return null;
-
-        // take care of the 2nd edge
-        Vector v3 = vertices.get(2).subtract(p0);
-        Vector n2 = v2.crossProduct(v3).normalize();
-        double s2 = alignZero(dir.dotProduct(n2));
-        if (s1 * s2 <= 0) return null;
-
-        Vector n3 = v3.crossProduct(v1).normalize();
-        double s3 = alignZero(dir.dotProduct(n3));
-        if (s1 * s3 <= 0) return null;
-
-        intersection.get(0).geometry = this;
-        return intersection;
+    /**
+     * The barycentric coordinates of the point are filled in with the normal
+     */
+    @Override
+    protected void fillNormal(Hit hit) {
+        super.fillNormal(hit);
+        double wx = hit.x - ax, wy = hit.y - ay, wz = hit.z - az;
+        double d11 = e1x * e1x + e1y * e1y + e1z * e1z, d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+        double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+        double w1 = wx * e1x + wy * e1y + wz * e1z, w2 = wx * e2x + wy * e2y + wz * e2z;
+        double inverseDenominator = 1 / (d11 * d22 - d12 * d12);
+        hit.u = (d22 * w1 - d12 * w2) * inverseDenominator;
+        hit.v = (d11 * w2 - d12 * w1) * inverseDenominator;
     }
 }
\ No newline at end of file
@@ -0,0 +1,436 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Mesh of triangles which share their vertices, their material and their emission.
+ * The vertices are kept as coordinates in a single array, and the faces as triples of vertex indices
+ * in an index buffer - a face takes a few dozen bytes instead of the hundreds of bytes of a {@link Triangle}
+ * with its points, its plane and its vectors. The faces are organized in an acceleration structure of their
+ * own, which is built the first time the mesh is traced, and the mesh is a single bounded geometry of the
+ * collection which contains it. A ray is intersected with a face by the Moller-Trumbore algorithm,
+ * with the same boundaries as a {@link Triangle}.
+ */
+public class TriangleMesh extends Geometry {
+
+    /**
+     * Coordinates of the vertices, 3 values per vertex
+     */
+    private final double[] vertices;
+
+    /**
+     * Indices of the vertices of the faces, 3 values per face
+     */
+    private final int[] faces;
+
+    /**
+     * The box of all the vertices
+     */
+    private final BoundingBox box;
+
+    /**
+     * The kind of acceleration structure over the faces
+     */
+    private Acceleration acceleration = Acceleration.BOUNDING_VOLUME_HIERARCHY;
+
+    /**
+     * The acceleration structure over the faces, null until the mesh is traced
+     */
+    private volatile AccelerationStructure accelerator;
+
+    /**
+     * Traversal visitor of every rendering thread for the closest hit
+     */
+    private final ThreadLocal<ClosestHitVisitor> closestHitVisitors = ThreadLocal.withInitial(ClosestHitVisitor::new);
+
+    /**
+     * Traversal visitor which records the closest face of a ray, and shortens the traversal to it.
+     * A visitor is reused by the queries of a thread, so that a query creates no objects.
+     */
+    private final class ClosestHitVisitor implements AccelerationStructure.Visitor {
+        private Ray ray;
+        private Hit hit;
+        private boolean found;
+
+        @Override
+        public double visit(int face) {
+            if (hit.offer(intersect(face, ray, hit.distance), TriangleMesh.this)) {
+                hit.face = face;
+                found = true;
+            }
+            return hit.distance;
+        }
+    }
+
+    /**
+     * Constructs a mesh from shared vertices and an index buffer
+     *
+     * @param vertices coordinates of the vertices - x, y, z of every vertex
+     * @param faces    indices of the vertices of the faces - 3 vertices of every face,
+     *                 in the order of a {@link Triangle}
+     * @throws IllegalArgumentException if the mesh has no faces, if an array is not made of triples,
+     *                                  or if a face refers to a missing vertex
+     */
+    public TriangleMesh(double[] vertices, int[] faces) {
+        if (vertices.length % 3 != 0 || faces.length % 3 != 0)
+            throw new IllegalArgumentException("The vertices and the faces of a mesh must be triples");
+        if (faces.length == 0) throw new IllegalArgumentException("A mesh must have faces");
+        int vertexCount = vertices.length / 3;
+        for (int index : faces)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("A face of a mesh refers to a missing vertex " + index);
+        this.vertices = vertices;
+        this.faces = faces;
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int index : faces) {
+            int v = index * 3;
+            minX = Math.min(minX, vertices[v]);
+            minY = Math.min(minY, vertices[v + 1]);
+            minZ = Math.min(minZ, vertices[v + 2]);
+            maxX = Math.max(maxX, vertices[v]);
+            maxY = Math.max(maxY, vertices[v + 1]);
+            maxZ = Math.max(maxZ, vertices[v + 2]);
+        }
+        box = new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Sets the kind of acceleration structure over the faces
+     *
+     * @param acceleration the kind of acceleration structure
+     * @return this
+     */
+    public synchronized TriangleMesh setAcceleration(Acceleration acceleration) {
+        this.acceleration = acceleration;
+        accelerator = null;
+        return this;
+    }
+
+    /**
+     * Returns the amount of faces
+     *
+     * @return the amount of faces
+     */
+    public int getFaceCount() {
+        return faces.length / 3;
+    }
+
+    /**
+     * Returns the amount of vertices
+     *
+     * @return the amount of vertices
+     */
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * Returns a vertex
+     *
+     * @param index the index of the vertex
+     * @return the vertex
+     */
+    public Point getVertex(int index) {
+        return new Point(vertices[index * 3], vertices[index * 3 + 1], vertices[index * 3 + 2]);
+    }
+
+    /**
+     * Returns the index of a vertex of a face
+     *
+     * @param face   the index of the face
+     * @param corner the vertex of the face - 0, 1 or 2
+     * @return the index of the vertex
+     */
+    public int getFaceVertex(int face, int corner) {
+        return faces[face * 3 + corner];
+    }
+
+    /**
+     * Returns the memory taken by the mesh - its vertices, its index buffer and its acceleration structure
+     * (which is built if it is not built yet)
+     *
+     * @return the memory in bytes
+     */
+    public long getMemoryBytes() {
+        AccelerationStructure structure = accelerator;
+        if (structure == null) structure = buildAccelerator();
+        return (long) vertices.length * Double.BYTES + (long) faces.length * Integer.BYTES
+                + (long) structure.bounds.length * Double.BYTES + structure.getNodeBytes();
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    /**
+     * The normal of the mesh at a point is the normal of the face the point is on (the face whose plane is
+     * closest to the point, of the faces around it) - the faces are searched one by one, so prefer the normals
+     * of the hit records, which know their faces.
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        double px = point.getX(), py = point.getY(), pz = point.getZ();
+        int closest = 0;
+        double closestOutside = Double.POSITIVE_INFINITY, closestDistance = Double.POSITIVE_INFINITY;
+        for (int face = 0; face < faces.length / 3; ++face) {
+            int a = faces[face * 3] * 3, b = faces[face * 3 + 1] * 3, c = faces[face * 3 + 2] * 3;
+            double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1];
+            double e1z = vertices[b + 2] - vertices[a + 2];
+            double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1];
+            double e2z = vertices[c + 2] - vertices[a + 2];
+            double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+            double area = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (area == 0) continue;
+
+            double wx = px - vertices[a], wy = py - vertices[a + 1], wz = pz - vertices[a + 2];
+            double distance = Math.abs(nx * wx + ny * wy + nz * wz) / area;
+            // how far the projection of the point is outside the face, in barycentric coordinates
+            double d11 = e1x * e1x + e1y * e1y + e1z * e1z, d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+            double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+            double w1 = wx * e1x + wy * e1y + wz * e1z, w2 = wx * e2x + wy * e2y + wz * e2z;
+            double inverseDenominator = 1 / (d11 * d22 - d12 * d12);
+            double u = (d22 * w1 - d12 * w2) * inverseDenominator, v = (d11 * w2 - d12 * w1) * inverseDenominator;
+            double outside = Math.max(alignZero(-u), 0) + Math.max(alignZero(-v), 0)
+                    + Math.max(alignZero(u + v - 1), 0);
+            if (outside < closestOutside || outside == closestOutside && distance < closestDistance) {
+                closestOutside = outside;
+                closestDistance = distance;
+                closest = face;
+            }
+        }
+        return getFaceNormal(closest);
+    }
+
+    /**
+     * Returns the normal of a face
+     *
+     * @param face the index of the face
+     * @return the unit normal, by the order of the vertices of the face
+     */
+    public Vector getFaceNormal(int face) {
+        int a = faces[face * 3] * 3, b = faces[face * 3 + 1] * 3, c = faces[face * 3 + 2] * 3;
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1];
+        double e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1];
+        double e2z = vertices[c + 2] - vertices[a + 2];
+        return new Vector(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x).normalize();
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        AccelerationStructure structure = accelerator;
+        if (structure == null) structure = buildAccelerator();
+
+        List<GeoPoint> intersections = new LinkedList<>();
+        structure.traverse(ray, maxDistance, face -> {
+            double distance = intersect(face, ray, maxDistance);
+            if (distance != Double.POSITIVE_INFINITY)
+                intersections.add(new GeoPoint(new Face(face), ray.getPoint(distance)));
+            return maxDistance;
+        });
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * The faces are traversed through the acceleration structure, and every hit shortens the traversal.
+     * The record keeps the index of the closest face, for its normal.
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        AccelerationStructure structure = accelerator;
+        if (structure == null) structure = buildAccelerator();
+
+        ClosestHitVisitor visitor = closestHitVisitors.get();
+        visitor.ray = ray;
+        visitor.hit = hit;
+        visitor.found = false;
+        structure.traverse(ray, hit.distance, visitor);
+        visitor.ray = null;
+        visitor.hit = null;
+        return visitor.found;
+    }
+
+    /**
+     * The faces share the material of the mesh, so the traversal stops as soon as the ray is blocked
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minTransparency,
+                                             Hit occluder) {
+        AccelerationStructure structure = accelerator;
+        if (structure == null) structure = buildAccelerator();
+
+        Double3 kT = getMaterial().kT;
+        Double3[] transparency = {ktr};
+        structure.traverse(ray, maxDistance, face -> {
+            if (intersect(face, ray, maxDistance) == Double.POSITIVE_INFINITY) return maxDistance;
+            transparency[0] = transparency[0].product(kT);
+            if (!transparency[0].lowerThan(minTransparency)) return maxDistance;
+            if (occluder != null) occluder.geometry = new Face(face);
+            transparency[0] = Double3.ZERO;
+            return -1;
+        });
+        return transparency[0];
+    }
+
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        Hit hit = new Hit().reset(maxDistance);
+        return findClosestHitHelper(ray, hit) ? hit.distance : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * The normal of the face of the record, and the barycentric coordinates of the point on the face
+     */
+    @Override
+    protected void fillNormal(Hit hit) {
+        fillFace(hit, hit.face);
+    }
+
+    /**
+     * Fills in the normal and the barycentric coordinates of a hit record on a face
+     *
+     * @param hit  the record, whose point is set
+     * @param face the index of the face
+     */
+    private void fillFace(Hit hit, int face) {
+        int a = faces[face * 3] * 3, b = faces[face * 3 + 1] * 3, c = faces[face * 3 + 2] * 3;
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1];
+        double e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1];
+        double e2z = vertices[c + 2] - vertices[a + 2];
+        hit.setNormal(new Vector(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x).normalize());
+
+        double wx = hit.x - vertices[a], wy = hit.y - vertices[a + 1], wz = hit.z - vertices[a + 2];
+        double d11 = e1x * e1x + e1y * e1y + e1z * e1z, d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+        double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+        double w1 = wx * e1x + wy * e1y + wz * e1z, w2 = wx * e2x + wy * e2y + wz * e2z;
+        double inverseDenominator = 1 / (d11 * d22 - d12 * d12);
+        hit.u = (d22 * w1 - d12 * w2) * inverseDenominator;
+        hit.v = (d11 * w2 - d12 * w1) * inverseDenominator;
+        hit.face = face;
+    }
+
+    /**
+     * Intersects a ray with a face by the Moller-Trumbore algorithm
+     *
+     * @param face        the index of the face
+     * @param ray         the ray
+     * @param maxDistance the distance from the head of the ray - a farther point is ignored
+     * @return the distance of the intersection point, {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    private double intersect(int face, Ray ray, double maxDistance) {
+        int a = faces[face * 3] * 3, b = faces[face * 3 + 1] * 3, c = faces[face * 3 + 2] * 3;
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        double e1x = vertices[b] - ax, e1y = vertices[b + 1] - ay, e1z = vertices[b + 2] - az;
+        double e2x = vertices[c] - ax, e2y = vertices[c + 1] - ay, e2z = vertices[c + 2] - az;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+
+        // p = dir x e2, and the determinant is the (scaled) cosine of the angle of the ray with the normal
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double determinant = e1x * px + e1y * py + e1z * pz;
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        double area = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        // a degenerate face, or a ray parallel to the plane of the face
+        if (area == 0 || isZero(determinant / area)) return Double.POSITIVE_INFINITY;
+        double inverseDeterminant = 1 / determinant;
+
+        // the barycentric coordinates of the point of the plane - a point on an edge is not on the face
+        double tx = p0.getX() - ax, ty = p0.getY() - ay, tz = p0.getZ() - az;
+        double u = alignZero((tx * px + ty * py + tz * pz) * inverseDeterminant);
+        if (u <= 0 || alignZero(u - 1) >= 0) return Double.POSITIVE_INFINITY;
+        double qx = ty * e1z - tz * e1y, qy = tz * e1x - tx * e1z, qz = tx * e1y - ty * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * inverseDeterminant);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return Double.POSITIVE_INFINITY;
+
+        double distance = (e2x * qx + e2y * qy + e2z * qz) * inverseDeterminant;
+        // if the intersection is behind the ray or beyond the distance
+        return alignZero(distance) > 0 && alignZero(distance - maxDistance) <= 0 ? distance : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Builds the acceleration structure over the boxes of the faces
+     *
+     * @return the acceleration structure
+     */
+    private synchronized AccelerationStructure buildAccelerator() {
+        if (accelerator != null) return accelerator;
+        int faceCount = faces.length / 3;
+        double[] bounds = new double[faceCount * 6];
+        for (int face = 0; face < faceCount; ++face) {
+            int f = face * 6;
+            bounds[f] = bounds[f + 1] = bounds[f + 2] = Double.POSITIVE_INFINITY;
+            bounds[f + 3] = bounds[f + 4] = bounds[f + 5] = Double.NEGATIVE_INFINITY;
+            for (int corner = 0; corner < 3; ++corner) {
+                int v = faces[face * 3 + corner] * 3;
+                for (int axis = 0; axis < 3; ++axis) {
+                    bounds[f + axis] = Math.min(bounds[f + axis], vertices[v + axis]);
+                    bounds[f + axis + 3] = Math.max(bounds[f + axis + 3], vertices[v + axis]);
+                }
+            }
+        }
+        return accelerator = acceleration.build(bounds);
+    }
+
+    /**
+     * A face of the mesh as a geometry of its own, for the intersections of the list queries -
+     * it has the emission and the material of the mesh
+     */
+    private final class Face extends Geometry {
+
+        /**
+         * The index of the face
+         */
+        private final int face;
+
+        /**
+         * Constructs the geometry of a face
+         *
+         * @param face the index of the face
+         */
+        private Face(int face) {
+            this.face = face;
+        }
+
+        @Override
+        public Color getEmission() {
+            return TriangleMesh.this.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return TriangleMesh.this.getMaterial();
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return getFaceNormal(face);
+        }
+
+        @Override
+        protected void fillNormal(Hit hit) {
+            fillFace(hit, face);
+        }
+
+        @Override
+        protected double findClosestDistance(Ray ray, double maxDistance) {
+            return intersect(face, ray, maxDistance);
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            double distance = intersect(face, ray, maxDistance);
+            return distance == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(distance)));
+        }
+    }
+}
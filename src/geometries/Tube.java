@@ -56,21 +56,22 @@ public class Tube extends RadialGeometry {
     }
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
         Vector dir = ray.getDir();
         Vector v = axisRay.getDir();
         double dirV = dir.dotProduct(v);
 
         if (ray.getP0().equals(axisRay.getP0())) { // In case the ray starts on the p0.
             if (isZero(dirV))
-                return List.of(new Intersectable.GeoPoint(this, ray.getPoint(radius)));
+                return alignZero(radius - maxDistance) <= 0 ?
+                        List.of(new Intersectable.GeoPoint(this, ray.getPoint(radius))) : null;
 
             if (dir.equals(v.scale(dir.dotProduct(v))))
                 return null;
 
 
-            return List.of(new Intersectable.GeoPoint(this, ray.getPoint(
-                    Math.sqrt(radius * radius / dir.subtract(v.scale(dir.dotProduct(v))).lengthSquared()))));
+            double t = Math.sqrt(radius * radius / dir.subtract(v.scale(dir.dotProduct(v))).lengthSquared());
+            return alignZero(t - maxDistance) <= 0 ? List.of(new Intersectable.GeoPoint(this, ray.getPoint(t))) : null;
 
 
         }
@@ -85,7 +86,9 @@ public class Tube extends RadialGeometry {
             if (isZero(b)) { // If a constant equation.
                 return null;
             }
-            return List.of(new Intersectable.GeoPoint(this,ray.getPoint(-c / b))); // if it's linear, there's a solution.
+            if (alignZero(-c / b - maxDistance) > 0) // if it's linear, there's a solution - unless it is too far.
+                return null;
+            return List.of(new Intersectable.GeoPoint(this,ray.getPoint(-c / b)));
         }
 
         double discriminant = alignZero(b * b - 4 * a * c);
@@ -99,6 +102,10 @@ public class Tube extends RadialGeometry {
         if (discriminant <= 0) // No real solutions.
             return null;
 
+        // Solutions beyond the distance are dropped like the negative ones.
+        if (alignZero(t1 - maxDistance) > 0) t1 = 0;
+        if (alignZero(t2 - maxDistance) > 0) t2 = 0;
+
         if (t1 > 0 && t2 > 0) {
             List<GeoPoint> points = new LinkedList<>();
             points.add(new Intersectable.GeoPoint(this,ray.getPoint(t1)));
@@ -0,0 +1,249 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid of voxels over a set of bounded primitives.
+ * Every cell refers to the primitives whose bounding boxes overlap it, and a ray walks
+ * through the cells it pierces by 3D-DDA (Amanatides &amp; Woo). A primitive which spans
+ * many cells is reported once per ray thanks to a per-thread {@link Mailbox}.
+ * The resolution is chosen automatically from the amount of primitives and the
+ * scene bounds, so that cells are cubes and there are about {@link #DENSITY}
+ * cells per primitive.
+ */
+class UniformGrid extends AccelerationStructure {
+
+    /**
+     * Wanted amount of cells per primitive
+     */
+    private static final double DENSITY = 3;
+
+    /**
+     * Maximal amount of cells along an axis
+     */
+    private static final int MAX_RESOLUTION = 256;
+
+    /**
+     * Factor which widens the far distance of the grid box hit against rounding errors
+     */
+    private static final double ROBUSTNESS = 1 + 1e-9;
+
+    /**
+     * Grid bounds
+     */
+    private final double minX, minY, minZ, maxX, maxY, maxZ;
+
+    /**
+     * Amount of cells along every axis
+     */
+    private final int nx, ny, nz;
+
+    /**
+     * Size of a cell along every axis
+     */
+    private final double cellX, cellY, cellZ;
+
+    /**
+     * Inverse size of a cell along every axis (0 for an axis of zero size)
+     */
+    private final double invCellX, invCellY, invCellZ;
+
+    /**
+     * Start of the primitive range of every cell in {@link #cellPrimitives},
+     * the range of cell c is cellStart[c]..cellStart[c+1]
+     */
+    private final int[] cellStart;
+
+    /**
+     * Primitive indices of all the cells
+     */
+    private final int[] cellPrimitives;
+
+    /**
+     * Mailbox of every rendering thread
+     */
+    private final ThreadLocal<Mailbox> mailboxes;
+
+    /**
+     * Builds the grid over primitives with the given bounds
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     */
+    UniformGrid(double[] bounds) {
+        super(bounds);
+        double x0 = Double.POSITIVE_INFINITY, y0 = x0, z0 = x0;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = x1, z1 = x1;
+        for (int b = 0; b < bounds.length; b += 6) {
+            x0 = Math.min(x0, bounds[b]);
+            y0 = Math.min(y0, bounds[b + 1]);
+            z0 = Math.min(z0, bounds[b + 2]);
+            x1 = Math.max(x1, bounds[b + 3]);
+            y1 = Math.max(y1, bounds[b + 4]);
+            z1 = Math.max(z1, bounds[b + 5]);
+        }
+        if (size == 0) x0 = y0 = z0 = x1 = y1 = z1 = 0;
+        minX = x0;
+        minY = y0;
+        minZ = z0;
+        maxX = x1;
+        maxY = y1;
+        maxZ = z1;
+
+        // cubic cells: k cells per unit of length along every axis of non-zero size
+        double ex = maxX - minX, ey = maxY - minY, ez = maxZ - minZ;
+        int dimensions = 0;
+        double volume = 1;
+        for (double extent : new double[]{ex, ey, ez})
+            if (extent > 0) {
+                ++dimensions;
+                volume *= extent;
+            }
+        double k = dimensions == 0 ? 0 : Math.pow(DENSITY * size / volume, 1d / dimensions);
+        nx = resolution(ex, k);
+        ny = resolution(ey, k);
+        nz = resolution(ez, k);
+        cellX = ex / nx;
+        cellY = ey / ny;
+        cellZ = ez / nz;
+        invCellX = ex > 0 ? nx / ex : 0;
+        invCellY = ey > 0 ? ny / ey : 0;
+        invCellZ = ez > 0 ? nz / ez : 0;
+
+        // count the primitives of every cell, then fill the cells
+        cellStart = new int[nx * ny * nz + 1];
+        for (int i = 0; i < size; ++i)
+            forEachCell(i, cell -> ++cellStart[cell + 1]);
+        for (int c = 1; c < cellStart.length; ++c)
+            cellStart[c] += cellStart[c - 1];
+        cellPrimitives = new int[cellStart[cellStart.length - 1]];
+        int[] fill = new int[nx * ny * nz];
+        for (int i = 0; i < size; ++i) {
+            int primitive = i;
+            forEachCell(i, cell -> cellPrimitives[cellStart[cell] + fill[cell]++] = primitive);
+        }
+
+        mailboxes = ThreadLocal.withInitial(() -> new Mailbox(size));
+    }
+
+    /**
+     * Calculates the amount of cells along an axis
+     *
+     * @param extent the size of the grid along the axis
+     * @param k      the amount of cells per unit of length
+     * @return the amount of cells
+     */
+    private static int resolution(double extent, double k) {
+        return extent > 0 ? (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(extent * k))) : 1;
+    }
+
+    /**
+     * Calculates the index of the cell containing a coordinate along an axis
+     *
+     * @param coordinate the coordinate
+     * @param min        the minimal coordinate of the grid along the axis
+     * @param invCell    the inverse size of a cell along the axis
+     * @param n          the amount of cells along the axis
+     * @return the cell index
+     */
+    private static int cellIndex(double coordinate, double min, double invCell, int n) {
+        int index = (int) ((coordinate - min) * invCell);
+        return index < 0 ? 0 : Math.min(index, n - 1);
+    }
+
+    /**
+     * Calls an action for every cell overlapped by the bounding box of a primitive
+     *
+     * @param primitive the primitive
+     * @param action    the action, receiving cell indices
+     */
+    private void forEachCell(int primitive, IntConsumer action) {
+        int b = primitive * 6;
+        int x0 = cellIndex(bounds[b], minX, invCellX, nx), x1 = cellIndex(bounds[b + 3], minX, invCellX, nx);
+        int y0 = cellIndex(bounds[b + 1], minY, invCellY, ny), y1 = cellIndex(bounds[b + 4], minY, invCellY, ny);
+        int z0 = cellIndex(bounds[b + 2], minZ, invCellZ, nz), z1 = cellIndex(bounds[b + 5], minZ, invCellZ, nz);
+        for (int z = z0; z <= z1; ++z)
+            for (int y = y0; y <= y1; ++y)
+                for (int x = x0; x <= x1; ++x)
+                    action.accept((z * ny + y) * nx + x);
+    }
+
+    @Override
+    int getNodeCount() {
+        return nx * ny * nz;
+    }
+
+    @Override
+    long getNodeBytes() {
+        return (long) (cellStart.length + cellPrimitives.length) * Integer.BYTES;
+    }
+
+    @Override
+    void traverse(Ray ray, double maxDistance, Visitor visitor) {
+        if (size == 0) return;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double ix = inverse(dx), iy = inverse(dy), iz = inverse(dz);
+
+        // clip the ray by the grid box
+        double t1 = (minX - ox) * ix, t2 = (maxX - ox) * ix;
+        double tNear = Math.min(t1, t2), tFar = Math.max(t1, t2);
+        t1 = (minY - oy) * iy;
+        t2 = (maxY - oy) * iy;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+        t1 = (minZ - oz) * iz;
+        t2 = (maxZ - oz) * iz;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(Math.min(tFar, Math.max(t1, t2)), maxDistance) * ROBUSTNESS;
+        if (tFar < 0 || tNear > tFar) return;
+
+        // the cell where the ray enters the grid
+        double t = Math.max(tNear, 0);
+        int x = cellIndex(ox + dx * t, minX, invCellX, nx);
+        int y = cellIndex(oy + dy * t, minY, invCellY, ny);
+        int z = cellIndex(oz + dz * t, minZ, invCellZ, nz);
+
+        // distances to the next cell boundary along every axis, and between boundaries
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        double tMaxX = stepX == 0 ? Double.POSITIVE_INFINITY : (minX + (x + (stepX > 0 ? 1 : 0)) * cellX - ox) * ix;
+        double tMaxY = stepY == 0 ? Double.POSITIVE_INFINITY : (minY + (y + (stepY > 0 ? 1 : 0)) * cellY - oy) * iy;
+        double tMaxZ = stepZ == 0 ? Double.POSITIVE_INFINITY : (minZ + (z + (stepZ > 0 ? 1 : 0)) * cellZ - oz) * iz;
+        double tDeltaX = cellX * Math.abs(ix), tDeltaY = cellY * Math.abs(iy), tDeltaZ = cellZ * Math.abs(iz);
+
+        Mailbox mailbox = mailboxes.get();
+        mailbox.nextRay();
+        while (true) {
+            int cell = (z * ny + y) * nx + x;
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; ++i) {
+                int primitive = cellPrimitives[i];
+                if (mailbox.mark(primitive) && (maxDistance = visitor.visit(primitive)) < 0) return;
+            }
+            tFar = Math.min(tFar, maxDistance * ROBUSTNESS);
+
+            if (tMaxX < tMaxY && tMaxX < tMaxZ) {
+                if (tMaxX > tFar) return;
+                x += stepX;
+                if (x < 0 || x >= nx) return;
+                tMaxX += tDeltaX;
+            } else if (tMaxY < tMaxZ) {
+                if (tMaxY > tFar) return;
+                y += stepY;
+                if (y < 0 || y >= ny) return;
+                tMaxY += tDeltaY;
+            } else {
+                if (tMaxZ > tFar) return;
+                z += stepZ;
+                if (z < 0 || z >= nz) return;
+                tMaxZ += tDeltaZ;
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package geometries;
+
+import geometries.BVH.Node;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+
+import static geometries.BVH.countNodes;
+import static geometries.BVH.depth;
+
+/**
+ * Four-wide bounding volume hierarchy. The binary tree of {@link SAHBuilder} is collapsed,
+ * so that every node has up to {@link #WIDTH} children: an inner node adopts the children of
+ * its largest inner child until it has {@link #WIDTH} of them. A node stores the boxes of its
+ * children in structure-of-arrays form - all the minimal x of the children, then all the minimal
+ * y and so on - so that a ray tests all the children of a node in a single sweep over continuous
+ * memory, and then visits the children it hits from the nearest to the farthest.
+ * A collapsed hierarchy has about a third of the nodes of the binary one, so a ray takes
+ * fewer steps (and stack operations) to reach the same leaves.
+ * The children are tested by a scalar loop, or in the lanes of a vector by the optional kernel
+ * {@code WideBVHVectorKernel} of the {@code vector} source folder. The kernel is compiled apart from the
+ * rest of the project, with {@code --add-modules jdk.incubator.vector}, and it is loaded when the program
+ * runs with that module.
+ */
+class WideBVH extends AccelerationStructure {
+
+    /**
+     * Maximal amount of children of a node
+     */
+    static final int WIDTH = 4;
+
+    /**
+     * Amount of low bits of a leaf reference which hold the amount of primitives of the leaf
+     */
+    private static final int COUNT_BITS = 3;
+
+    /**
+     * Reference of an empty child slot - a leaf without primitives
+     */
+    private static final int EMPTY = ~0;
+
+    /**
+     * Factor which widens the far distance of a box hit against rounding errors
+     */
+    static final double ROBUSTNESS = 1 + 1e-9;
+
+    /**
+     * The vector test of the children, null if it is not available
+     */
+    private static final ChildTest VECTOR_TEST = loadVectorTest();
+
+    /**
+     * Test of the child boxes of a node against a ray
+     */
+    interface ChildTest {
+        /**
+         * Intersects a ray with the child boxes of a node
+         *
+         * @param boxes       the child boxes of the nodes, in structure-of-arrays form
+         * @param b           the index of the child boxes of the node
+         * @param ox          x coordinate of the head of the ray
+         * @param oy          y coordinate of the head of the ray
+         * @param oz          z coordinate of the head of the ray
+         * @param ix          inverse of the x component of the direction of the ray
+         * @param iy          inverse of the y component of the direction of the ray
+         * @param iz          inverse of the z component of the direction of the ray
+         * @param maxDistance the distance from the head of the ray - farther boxes are missed
+         * @param near        receives the entry distances of the children
+         * @return the mask of the children hit by the ray, a bit per child
+         */
+        int intersect(double[] boxes, int b, double ox, double oy, double oz, double ix, double iy, double iz,
+                      double maxDistance, double[] near);
+    }
+
+    /**
+     * Traversal stack of a rendering thread - pending children with their entry distances
+     */
+    private static final class Stack {
+        private final int[] children;
+        private final double[] distances;
+        private final double[] near = new double[WIDTH];
+
+        /**
+         * Constructs a stack
+         *
+         * @param depth the amount of levels of the hierarchy
+         */
+        private Stack(int depth) {
+            children = new int[depth * (WIDTH - 1) + 1];
+            distances = new double[children.length];
+        }
+    }
+
+    /**
+     * Primitive indices ordered so that every leaf refers to a continuous range
+     */
+    private final int[] order;
+
+    /**
+     * Child boxes of every node in structure-of-arrays form - {@link #WIDTH} minimal x,
+     * then {@link #WIDTH} minimal y, minimal z, maximal x, maximal y and maximal z.
+     * The box of an empty child slot is NaN, which no ray hits.
+     */
+    private final double[] childBounds;
+
+    /**
+     * Child references of every node - the index of an inner child node, or the complement
+     * of a leaf reference: the first primitive in the order array above the low
+     * {@link #COUNT_BITS} bits which hold the amount of primitives
+     */
+    private final int[] children;
+
+    /**
+     * Amount of nodes in the hierarchy
+     */
+    private final int nodeCount;
+
+    /**
+     * Traversal stack of every rendering thread
+     */
+    private final ThreadLocal<Stack> stacks;
+
+    /**
+     * The vector test of the children of a node, null for the scalar test
+     */
+    private final ChildTest vectorTest;
+
+    /**
+     * Builds the hierarchy over primitives with the given bounds
+     *
+     * @param bounds primitive bounds - minimal and maximal x, y, z of every primitive
+     */
+    WideBVH(double[] bounds) {
+        this(bounds, true);
+    }
+
+    /**
+     * Builds the hierarchy over primitives with the given bounds, choosing the child box test
+     *
+     * @param bounds     primitive bounds - minimal and maximal x, y, z of every primitive
+     * @param vectorized whether to test the children by the Vector API kernel when it is available,
+     *                   false for the scalar test
+     */
+    WideBVH(double[] bounds, boolean vectorized) {
+        super(bounds);
+        vectorTest = vectorized ? VECTOR_TEST : null;
+        // a leaf reference holds its first primitive above the count bits
+        if (size >= 1 << (Integer.SIZE - 1 - COUNT_BITS))
+            throw new IllegalArgumentException("Too many primitives for a wide hierarchy");
+        order = new int[size];
+        Node root = SAHBuilder.build(bounds, order);
+        // there are at most as many wide nodes as binary inner nodes (and one for a leaf root)
+        int maxNodes = Math.max(1, countNodes(root) / 2);
+        double[] boxes = new double[maxNodes * 6 * WIDTH];
+        int[] references = new int[maxNodes * WIDTH];
+        int count = root == null ? 0 : collapse(root, 0, boxes, references);
+        nodeCount = count;
+        childBounds = Arrays.copyOf(boxes, count * 6 * WIDTH);
+        children = Arrays.copyOf(references, count * WIDTH);
+        int depth = depth(root);
+        stacks = ThreadLocal.withInitial(() -> new Stack(depth));
+    }
+
+    /**
+     * Checks whether the children of a node are tested by the Vector API kernel
+     *
+     * @return true for the vector test, false for the scalar one
+     */
+    boolean isVectorized() {
+        return vectorTest != null;
+    }
+
+    /**
+     * Loads the vector test of the children, if the program runs with the Vector API and the kernel
+     * was compiled into the class path
+     *
+     * @return the vector test, null if it is not available
+     */
+    private static ChildTest loadVectorTest() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            return (ChildTest) Class.forName("geometries.WideBVHVectorKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    @Override
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    long getNodeBytes() {
+        return (long) childBounds.length * Double.BYTES + (long) children.length * Integer.BYTES;
+    }
+
+    /**
+     * Recursively collapses a binary sub-tree into wide nodes in depth-first order
+     *
+     * @param node       the root of the binary sub-tree
+     * @param index      the index of the wide node of the root
+     * @param boxes      the child boxes being filled
+     * @param references the child references being filled
+     * @return the index following the wide sub-tree
+     */
+    private static int collapse(Node node, int index, double[] boxes, int[] references) {
+        Node[] slots = new Node[WIDTH];
+        int slotCount = 0;
+        if (node.left == null)
+            slots[slotCount++] = node;
+        else {
+            slots[slotCount++] = node.left;
+            slots[slotCount++] = node.right;
+        }
+        // open the largest inner child until the node is full
+        while (slotCount < WIDTH) {
+            int largest = -1;
+            for (int i = 0; i < slotCount; ++i)
+                if (slots[i].left != null && (largest < 0 || area(slots[i]) > area(slots[largest])))
+                    largest = i;
+            if (largest < 0) break;
+            Node opened = slots[largest];
+            slots[largest] = opened.left;
+            slots[slotCount++] = opened.right;
+        }
+
+        int next = index + 1;
+        int b = index * 6 * WIDTH;
+        for (int i = 0; i < WIDTH; ++i) {
+            Node child = slots[i];
+            if (child == null) {
+                for (int j = 0; j < 6; ++j) boxes[b + j * WIDTH + i] = Double.NaN;
+                references[index * WIDTH + i] = EMPTY;
+                continue;
+            }
+            boxes[b + i] = child.minX;
+            boxes[b + WIDTH + i] = child.minY;
+            boxes[b + 2 * WIDTH + i] = child.minZ;
+            boxes[b + 3 * WIDTH + i] = child.maxX;
+            boxes[b + 4 * WIDTH + i] = child.maxY;
+            boxes[b + 5 * WIDTH + i] = child.maxZ;
+            if (child.left == null)
+                references[index * WIDTH + i] = ~(child.start << COUNT_BITS | child.count);
+            else {
+                references[index * WIDTH + i] = next;
+                next = collapse(child, next, boxes, references);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Calculates the surface area of a node box
+     *
+     * @param node the node
+     * @return the surface area
+     */
+    private static double area(Node node) {
+        double dx = node.maxX - node.minX, dy = node.maxY - node.minY, dz = node.maxZ - node.minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    @Override
+    void traverse(Ray ray, double maxDistance, Visitor visitor) {
+        if (nodeCount == 0) return;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double ix = inverse(dir.getX()), iy = inverse(dir.getY()), iz = inverse(dir.getZ());
+        double[] boxes = childBounds;
+        Stack stack = stacks.get();
+        int[] pending = stack.children;
+        double[] distances = stack.distances;
+        double[] near = stack.near;
+        ChildTest test = vectorTest;
+        int top = 0, node = 0;
+        while (true) {
+            int b = node * 6 * WIDTH, first = top, hits = 0;
+            if (test != null) hits = test.intersect(boxes, b, ox, oy, oz, ix, iy, iz, maxDistance, near);
+            else for (int i = 0; i < WIDTH; ++i) {
+                double t1 = (boxes[b + i] - ox) * ix, t2 = (boxes[b + 3 * WIDTH + i] - ox) * ix;
+                double tNear = Math.min(t1, t2), tFar = Math.max(t1, t2);
+                t1 = (boxes[b + WIDTH + i] - oy) * iy;
+                t2 = (boxes[b + 4 * WIDTH + i] - oy) * iy;
+                tNear = Math.max(tNear, Math.min(t1, t2));
+                tFar = Math.min(tFar, Math.max(t1, t2));
+                t1 = (boxes[b + 2 * WIDTH + i] - oz) * iz;
+                t2 = (boxes[b + 5 * WIDTH + i] - oz) * iz;
+                tNear = Math.max(tNear, Math.min(t1, t2));
+                tFar = Math.min(Math.min(tFar, Math.max(t1, t2)), maxDistance) * ROBUSTNESS;
+                near[i] = tNear;
+                if (tFar >= 0 && tNear <= tFar) hits |= 1 << i;
+            }
+
+            // push the children hit by the ray, keeping the pushed ones sorted with the nearest on top
+            for (int i = 0; i < WIDTH; ++i) {
+                if ((hits & 1 << i) == 0) continue;
+                double tNear = near[i];
+                int j = top++;
+                for (; j > first && distances[j - 1] < tNear; --j) {
+                    distances[j] = distances[j - 1];
+                    pending[j] = pending[j - 1];
+                }
+                distances[j] = tNear;
+                pending[j] = children[node * WIDTH + i];
+            }
+
+            // report the nearest pending leaves, until the nearest pending inner node
+            while (true) {
+                if (top == 0) return;
+                int child = pending[--top];
+                // skip the children entered beyond a hit reported since they were pushed
+                if (distances[top] > maxDistance * ROBUSTNESS) continue;
+                if (child >= 0) {
+                    node = child;
+                    break;
+                }
+                int leaf = ~child, start = leaf >>> COUNT_BITS;
+                for (int i = start; i < start + (leaf & (1 << COUNT_BITS) - 1); ++i)
+                    if ((maxDistance = visitor.visit(order[i])) < 0) return;
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package lighting;
+
+import primitives.Point;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hierarchy of the point lights (and spot lights) of a scene, for shading points lit by thousands of lights.
+ * Every node of the tree bounds the positions of its lights by a box, and keeps their total power and their
+ * weakest attenuation. A light is sampled by descending from the root, choosing a child with a probability
+ * proportional to its estimated contribution to the shading point, so that near, bright lights are sampled
+ * often and far, dim clusters rarely - and a cluster behind the surface is never sampled.
+ * Dividing the contribution of the sampled light by its probability estimates the contribution of all the
+ * lights without bias. Lights with no position (e.g. directional lights) are not clustered, and they are
+ * meant to be evaluated at every shading point.
+ */
+public class LightTree {
+
+    /**
+     * Attenuation of a light at the shading point itself, when it has no constant attenuation
+     */
+    private static final double MIN_ATTENUATION = 1e-9;
+
+    /**
+     * The largest uniform random number below 1
+     */
+    private static final double MAX_RANDOM = Math.nextDown(1.0);
+
+    /**
+     * A light sampled for a shading point, with its probability. A sample is meant to be reused
+     * (e.g. by every thread of the ray tracer).
+     */
+    public static final class Sample {
+
+        /**
+         * The sampled light
+         */
+        public LightSource light;
+
+        /**
+         * The index of the light in the list the tree is built from
+         */
+        public int index;
+
+        /**
+         * The probability of sampling the light
+         */
+        public double pdf;
+    }
+
+    /**
+     * The lights the tree is built from
+     */
+    private final LightSource[] lights;
+
+    /**
+     * The indices of the lights which are not clustered
+     */
+    private final int[] unclustered;
+
+    /**
+     * The amount of clustered lights
+     */
+    private final int size;
+
+    /**
+     * Boxes of the nodes - minimal and maximal x, y, z of the light positions of every node
+     */
+    private final double[] boxes;
+
+    /**
+     * Total power (the brightness of the intensity) of the lights of every node
+     */
+    private final double[] powers;
+
+    /**
+     * Weakest constant, linear and quadratic attenuation of the lights of every node
+     */
+    private final double[] attenuations;
+
+    /**
+     * The first child of every inner node (the second one follows it), or -1 - the light index of a leaf
+     */
+    private final int[] children;
+
+    /**
+     * The amount of nodes allocated so far
+     */
+    private int nodeCount;
+
+    /**
+     * Builds the tree over the point lights of a list of lights
+     *
+     * @param lights the lights
+     */
+    public LightTree(List<LightSource> lights) {
+        this.lights = lights.toArray(new LightSource[0]);
+        int[] clustered = new int[this.lights.length];
+        int[] others = new int[this.lights.length];
+        int clusteredCount = 0, othersCount = 0;
+        for (int i = 0; i < this.lights.length; ++i)
+            if (this.lights[i] instanceof PointLight) clustered[clusteredCount++] = i;
+            else others[othersCount++] = i;
+        unclustered = Arrays.copyOf(others, othersCount);
+        size = clusteredCount;
+
+        int nodes = Math.max(2 * size - 1, 0);
+        boxes = new double[nodes * 6];
+        powers = new double[nodes];
+        attenuations = new double[nodes * 3];
+        children = new int[nodes];
+        if (size > 0) {
+            nodeCount = 1;
+            build(0, Arrays.stream(clustered, 0, size).boxed().toArray(Integer[]::new), 0, size);
+        }
+    }
+
+    /**
+     * Returns the amount of clustered lights
+     *
+     * @return the amount of lights in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the indices of the lights which are not clustered (e.g. directional lights)
+     *
+     * @return the indices, in the list the tree is built from - the array must not be changed
+     */
+    public int[] getUnclustered() {
+        return unclustered;
+    }
+
+    /**
+     * Returns a light of the list the tree is built from
+     *
+     * @param index the index of the light
+     * @return the light
+     */
+    public LightSource getLight(int index) {
+        return lights[index];
+    }
+
+    /**
+     * Builds the node of a range of lights - a leaf for a single light, otherwise the lights are split
+     * at the median of the longest axis of their box, and the children of the node are consecutive
+     *
+     * @param node    the index of the node
+     * @param indices the indices of the lights, the range is reordered
+     * @param from    the first light of the range
+     * @param to      the end of the range
+     */
+    private void build(int node, Integer[] indices, int from, int to) {
+        int b = node * 6, a = node * 3;
+        Arrays.fill(boxes, b, b + 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(boxes, b + 3, b + 6, Double.NEGATIVE_INFINITY);
+        Arrays.fill(attenuations, a, a + 3, Double.POSITIVE_INFINITY);
+        for (int i = from; i < to; ++i) {
+            PointLight light = (PointLight) lights[indices[i]];
+            Point position = light.getPosition();
+            double[] coordinates = {position.getX(), position.getY(), position.getZ()};
+            for (int axis = 0; axis < 3; ++axis) {
+                boxes[b + axis] = Math.min(boxes[b + axis], coordinates[axis]);
+                boxes[b + axis + 3] = Math.max(boxes[b + axis + 3], coordinates[axis]);
+            }
+            powers[node] += light.getIntensity().brightness();
+            attenuations[a] = Math.min(attenuations[a], light.getKc());
+            attenuations[a + 1] = Math.min(attenuations[a + 1], light.getKl());
+            attenuations[a + 2] = Math.min(attenuations[a + 2], light.getKq());
+        }
+        if (to - from == 1) {
+            children[node] = -1 - indices[from];
+            return;
+        }
+
+        int axis = 0;
+        for (int i = 1; i < 3; ++i)
+            if (boxes[b + i + 3] - boxes[b + i] > boxes[b + axis + 3] - boxes[b + axis]) axis = i;
+        int splitAxis = axis;
+        Arrays.sort(indices, from, to, Comparator.comparingDouble(i -> coordinate((PointLight) lights[i], splitAxis)));
+        int middle = (from + to) / 2;
+        int left = nodeCount;
+        nodeCount += 2;
+        children[node] = left;
+        build(left, indices, from, middle);
+        build(left + 1, indices, middle, to);
+    }
+
+    /**
+     * Returns a coordinate of the position of a light
+     *
+     * @param light the light
+     * @param axis  the axis - 0 for x, 1 for y, 2 for z
+     * @return the coordinate
+     */
+    private static double coordinate(PointLight light, int axis) {
+        Point position = light.getPosition();
+        return axis == 0 ? position.getX() : axis == 1 ? position.getY() : position.getZ();
+    }
+
+    /**
+     * Samples a light for a shading point
+     *
+     * @param point  the shading point
+     * @param facing the normal of the surface at the point towards the viewer - lights behind the surface are
+     *               never sampled, null for sampling lights in all the directions
+     * @param u      a uniform random number in [0, 1)
+     * @param sample receives the sampled light and its probability
+     * @return false if no light of the tree may contribute to the point
+     */
+    public boolean sample(Point point, Vector facing, double u, Sample sample) {
+        if (size == 0) return false;
+        double px = point.getX(), py = point.getY(), pz = point.getZ();
+        double fx = 0, fy = 0, fz = 0;
+        if (facing != null) {
+            fx = facing.getX();
+            fy = facing.getY();
+            fz = facing.getZ();
+        }
+        if (importance(0, px, py, pz, fx, fy, fz, facing != null) <= 0) return false;
+        u = Math.min(u, MAX_RANDOM);
+
+        int node = 0;
+        double pdf = 1;
+        while (children[node] >= 0) {
+            int left = children[node];
+            double leftImportance = importance(left, px, py, pz, fx, fy, fz, facing != null);
+            double rightImportance = importance(left + 1, px, py, pz, fx, fy, fz, facing != null);
+            double total = leftImportance + rightImportance;
+            if (total <= 0) return false;
+            double leftProbability = leftImportance / total;
+            // the random number is stretched over the chosen child, to be reused by its descendants
+            if (u < leftProbability) {
+                u /= leftProbability;
+                pdf *= leftProbability;
+                node = left;
+            } else {
+                u = (u - leftProbability) / (1 - leftProbability);
+                pdf *= 1 - leftProbability;
+                node = left + 1;
+            }
+            // the stretched number may be rounded up to 1, which would choose a child of no importance
+            u = Math.min(u, MAX_RANDOM);
+        }
+        sample.index = -1 - children[node];
+        sample.light = lights[sample.index];
+        sample.pdf = pdf;
+        return true;
+    }
+
+    /**
+     * Estimates the contribution of the lights of a node to a shading point - their power attenuated by
+     * their weakest attenuation at the distance of the center of the node (but not closer than its radius)
+     *
+     * @param node   the node
+     * @param px     x coordinate of the shading point
+     * @param py     y coordinate of the shading point
+     * @param pz     z coordinate of the shading point
+     * @param fx     x coordinate of the normal towards the viewer
+     * @param fy     y coordinate of the normal towards the viewer
+     * @param fz     z coordinate of the normal towards the viewer
+     * @param facing whether the surface normal is given
+     * @return the estimated contribution, 0 if all the lights are behind the surface
+     */
+    private double importance(int node, double px, double py, double pz, double fx, double fy, double fz,
+                              boolean facing) {
+        int b = node * 6, a = node * 3;
+        double minX = boxes[b], minY = boxes[b + 1], minZ = boxes[b + 2];
+        double maxX = boxes[b + 3], maxY = boxes[b + 4], maxZ = boxes[b + 5];
+        // the corner of the box farthest along the normal is not in front of the surface
+        if (facing && fx * ((fx > 0 ? maxX : minX) - px) + fy * ((fy > 0 ? maxY : minY) - py)
+                + fz * ((fz > 0 ? maxZ : minZ) - pz) <= 0)
+            return 0;
+
+        double dx = (minX + maxX) / 2 - px, dy = (minY + maxY) / 2 - py, dz = (minZ + maxZ) / 2 - pz;
+        double rx = (maxX - minX) / 2, ry = (maxY - minY) / 2, rz = (maxZ - minZ) / 2;
+        double distanceSquared = Math.max(dx * dx + dy * dy + dz * dz, rx * rx + ry * ry + rz * rz);
+        double attenuation = attenuations[a] + attenuations[a + 1] * Math.sqrt(distanceSquared)
+                + attenuations[a + 2] * distanceSquared;
+        return powers[node] / Math.max(attenuation, MIN_ATTENUATION);
+    }
+}
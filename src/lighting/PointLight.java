@@ -58,6 +58,42 @@ public class PointLight extends Light implements LightSource{
         return this;
     }
 
+    /**
+     * getter for the position of the light
+     *
+     * @return the position
+     */
+    Point getPosition() {
+        return position;
+    }
+
+    /**
+     * getter for kC
+     *
+     * @return the constant attenuation
+     */
+    double getKc() {
+        return kC;
+    }
+
+    /**
+     * getter for kL
+     *
+     * @return the linear attenuation
+     */
+    double getKl() {
+        return kL;
+    }
+
+    /**
+     * getter for kQ
+     *
+     * @return the quadratic attenuation
+     */
+    double getKq() {
+        return kQ;
+    }
+
     @Override
     public Color getIntensity(Point point) {
         double dis = position.distanceSquared(point);
@@ -102,6 +102,10 @@ public class Color {
       return new Color(rgb.d1 / k.d1, rgb.d2 / k.d2, rgb.d3 / k.d3);
    }
 
+   /** Brightness of the color - the sum of its rgb components
+    * @return the brightness */
+   public double brightness() { return rgb.d1 + rgb.d2 + rgb.d3; }
+
    @Override
    public String toString() { return "rgb:" + rgb; }
 }
@@ -0,0 +1,233 @@
+package primitives;
+
+import java.util.Arrays;
+
+import static primitives.Util.isZero;
+
+/**
+ * A 4x4 matrix of a transformation in homogeneous coordinates.
+ * Points are transformed with an implicit w = 1 (so they are translated),
+ * and vectors with w = 0 (so they are not).
+ */
+public class Matrix {
+
+    /**
+     * The identity matrix
+     */
+    public static final Matrix IDENTITY = new Matrix(
+            1, 0, 0, 0,
+            0, 1, 0, 0,
+            0, 0, 1, 0,
+            0, 0, 0, 1);
+
+    /**
+     * The elements of the matrix, row by row
+     */
+    private final double[] m;
+
+    /**
+     * Constructs a matrix from its 16 elements.
+     *
+     * @param elements the elements of the matrix, row by row
+     * @throws IllegalArgumentException if there are not exactly 16 elements
+     */
+    public Matrix(double... elements) {
+        if (elements.length != 16)
+            throw new IllegalArgumentException("A matrix must have exactly 16 elements");
+        m = elements.clone();
+    }
+
+    /**
+     * Constructs a translation matrix.
+     *
+     * @param offset the translation
+     * @return the matrix
+     */
+    public static Matrix translation(Vector offset) {
+        return new Matrix(
+                1, 0, 0, offset.getX(),
+                0, 1, 0, offset.getY(),
+                0, 0, 1, offset.getZ(),
+                0, 0, 0, 1);
+    }
+
+    /**
+     * Constructs a scaling matrix.
+     *
+     * @param sx the scale along the x-axis
+     * @param sy the scale along the y-axis
+     * @param sz the scale along the z-axis
+     * @return the matrix
+     */
+    public static Matrix scaling(double sx, double sy, double sz) {
+        return new Matrix(
+                sx, 0, 0, 0,
+                0, sy, 0, 0,
+                0, 0, sz, 0,
+                0, 0, 0, 1);
+    }
+
+    /**
+     * Constructs a rotation matrix around an axis through the origin (Rodrigues' rotation formula).
+     *
+     * @param axis  the axis of the rotation
+     * @param angle the angle of the rotation in radians, counterclockwise when looking against the axis
+     * @return the matrix
+     */
+    public static Matrix rotation(Vector axis, double angle) {
+        Vector u = axis.normalize();
+        double x = u.getX(), y = u.getY(), z = u.getZ();
+        double cos = Math.cos(angle), sin = Math.sin(angle), k = 1 - cos;
+        return new Matrix(
+                cos + x * x * k, x * y * k - z * sin, x * z * k + y * sin, 0,
+                y * x * k + z * sin, cos + y * y * k, y * z * k - x * sin, 0,
+                z * x * k - y * sin, z * y * k + x * sin, cos + z * z * k, 0,
+                0, 0, 0, 1);
+    }
+
+    /**
+     * Returns an element of the matrix.
+     *
+     * @param row    the row of the element (0 to 3)
+     * @param column the column of the element (0 to 3)
+     * @return the element
+     */
+    public double get(int row, int column) {
+        return m[row * 4 + column];
+    }
+
+    /**
+     * Multiplies this matrix by another matrix - the product transforms
+     * by the other matrix first, and then by this matrix.
+     *
+     * @param other the other matrix
+     * @return the product
+     */
+    public Matrix multiply(Matrix other) {
+        double[] result = new double[16];
+        for (int row = 0; row < 4; ++row)
+            for (int column = 0; column < 4; ++column) {
+                double sum = 0;
+                for (int k = 0; k < 4; ++k)
+                    sum += m[row * 4 + k] * other.m[k * 4 + column];
+                result[row * 4 + column] = sum;
+            }
+        return new Matrix(result);
+    }
+
+    /**
+     * Calculates the transposed matrix.
+     *
+     * @return the transposed matrix
+     */
+    public Matrix transpose() {
+        double[] result = new double[16];
+        for (int row = 0; row < 4; ++row)
+            for (int column = 0; column < 4; ++column)
+                result[column * 4 + row] = m[row * 4 + column];
+        return new Matrix(result);
+    }
+
+    /**
+     * Calculates the inverse matrix by Gauss-Jordan elimination with partial pivoting.
+     *
+     * @return the inverse matrix
+     * @throws IllegalArgumentException if the matrix is singular
+     */
+    public Matrix inverse() {
+        double[] a = m.clone();
+        double[] result = IDENTITY.m.clone();
+        for (int column = 0; column < 4; ++column) {
+            int pivot = column;
+            for (int row = column + 1; row < 4; ++row)
+                if (Math.abs(a[row * 4 + column]) > Math.abs(a[pivot * 4 + column])) pivot = row;
+            if (isZero(a[pivot * 4 + column]))
+                throw new IllegalArgumentException("A singular matrix has no inverse");
+            swapRows(a, column, pivot);
+            swapRows(result, column, pivot);
+
+            double scale = 1 / a[column * 4 + column];
+            for (int k = 0; k < 4; ++k) {
+                a[column * 4 + k] *= scale;
+                result[column * 4 + k] *= scale;
+            }
+            for (int row = 0; row < 4; ++row) {
+                if (row == column) continue;
+                double factor = a[row * 4 + column];
+                if (factor == 0) continue;
+                for (int k = 0; k < 4; ++k) {
+                    a[row * 4 + k] -= factor * a[column * 4 + k];
+                    result[row * 4 + k] -= factor * result[column * 4 + k];
+                }
+            }
+        }
+        return new Matrix(result);
+    }
+
+    /**
+     * Swaps two rows of a matrix
+     *
+     * @param elements the elements of the matrix, row by row
+     * @param i        the first row
+     * @param j        the second row
+     */
+    private static void swapRows(double[] elements, int i, int j) {
+        if (i == j) return;
+        for (int k = 0; k < 4; ++k) {
+            double temp = elements[i * 4 + k];
+            elements[i * 4 + k] = elements[j * 4 + k];
+            elements[j * 4 + k] = temp;
+        }
+    }
+
+    /**
+     * Transforms a point.
+     *
+     * @param point the point
+     * @return the transformed point
+     */
+    public Point transformPoint(Point point) {
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        double w = m[12] * x + m[13] * y + m[14] * z + m[15];
+        return new Point(
+                (m[0] * x + m[1] * y + m[2] * z + m[3]) / w,
+                (m[4] * x + m[5] * y + m[6] * z + m[7]) / w,
+                (m[8] * x + m[9] * y + m[10] * z + m[11]) / w);
+    }
+
+    /**
+     * Transforms a vector (a direction, which is not translated).
+     *
+     * @param vector the vector
+     * @return the transformed vector
+     * @throws IllegalArgumentException if the matrix transforms the vector to the zero vector
+     */
+    public Vector transformVector(Vector vector) {
+        double x = vector.getX(), y = vector.getY(), z = vector.getZ();
+        return new Vector(
+                m[0] * x + m[1] * y + m[2] * z,
+                m[4] * x + m[5] * y + m[6] * z,
+                m[8] * x + m[9] * y + m[10] * z);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Matrix other)) return false;
+        for (int i = 0; i < 16; ++i)
+            if (!isZero(m[i] - other.m[i])) return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        double sum = 0;
+        for (double element : m) sum += element;
+        return (int) Math.round(sum);
+    }
+
+    @Override
+    public String toString() {
+        return "Matrix" + Arrays.toString(m);
+    }
+}
@@ -28,6 +28,8 @@ public class Camera {
     private ImageWriter imageWriter;
     private RayTracerBase rayTracer;
     private double printInterval;
+    private int packetSize = 1;
+    private boolean frustumCulling = true;
 
     /**
      * Constructor for a new Camera.
@@ -62,6 +64,34 @@ public class Camera {
         return this;
     }
 
+    /**
+     * Sets the size of the square tiles of pixels whose primary rays are traced together as a packet.
+     * Neighboring primary rays are coherent, so a packet culls whole nodes of the acceleration structure
+     * at once; the secondary rays are traced one by one.
+     *
+     * @param packetSize the width of a tile in pixels - 1 (every ray on its own), 2, 4 or 8
+     * @return the camera itself
+     * @throws IllegalArgumentException if the size is not 1, 2, 4 or 8
+     */
+    public Camera setPacketSize(int packetSize) {
+        if (packetSize != 1 && packetSize != 2 && packetSize != 4 && packetSize != 8)
+            throw new IllegalArgumentException("Packet size must be 1, 2, 4 or 8");
+        this.packetSize = packetSize;
+        return this;
+    }
+
+    /**
+     * Sets whether the geometries outside the view volume of the camera are culled before rendering,
+     * so that the primary rays are not tested against them. The secondary rays still see the whole scene.
+     *
+     * @param frustumCulling true for culling (the default), false for tracing the primary rays through the whole scene
+     * @return the camera itself
+     */
+    public Camera setFrustumCulling(boolean frustumCulling) {
+        this.frustumCulling = frustumCulling;
+        return this;
+    }
+
     /**
      * Gets position of the camera.
      *
@@ -233,8 +263,18 @@ public class Camera {
 
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
+        if (frustumCulling)
+            rayTracer.setViewFrustum(position, frustumNormals());
+        else
+            rayTracer.setViewFrustum(null);
         Pixel.initialize(nY, nX, printInterval);
-        if (this.threads >= 0)
+        if (packetSize > 1) {
+            int tileRows = (nY + packetSize - 1) / packetSize, tileCols = (nX + packetSize - 1) / packetSize;
+            IntStream rows = IntStream.range(0, tileRows);
+            (this.threads >= 0 ? rows : rows.parallel()) //
+                    .forEach(i -> IntStream.range(0, tileCols) //
+                            .forEach(j -> this.castPacket(nX, nY, j * packetSize, i * packetSize)));
+        } else if (this.threads >= 0)
             for (int i = 0; i < nX; i++)
                 for (int j = 0; j < nY; j++)
                     this.castRay(nX, nY, j, i);
@@ -246,6 +286,25 @@ public class Camera {
         return this;
     }
 
+    /**
+     * Calculates the normals of the side planes of the view volume - the planes through the position
+     * of the camera and the edges of the view plane - towards the inside of the volume
+     *
+     * @return the normals of the left, right, bottom and top planes
+     */
+    private Vector[] frustumNormals() {
+        Vector center = vTo.scale(distance);
+        Vector right = vRight.scale(width / 2), up = vUp.scale(height / 2);
+        Vector[] corners = {center.subtract(right).subtract(up), center.subtract(right).add(up),
+                center.add(right).add(up), center.add(right).subtract(up)};
+        Vector[] normals = new Vector[4];
+        for (int i = 0; i < 4; ++i) {
+            Vector normal = corners[i].crossProduct(corners[(i + 1) % 4]);
+            normals[i] = normal.dotProduct(vTo) < 0 ? normal.scale(-1) : normal;
+        }
+        return normals;
+    }
+
     /**
      * casts ray through pixel
      *
@@ -259,6 +318,27 @@ public class Camera {
         Pixel.pixelDone();
     }
 
+    /**
+     * casts the rays through a tile of pixels as a packet
+     *
+     * @param nX  the number of pixels in the width of the view plane
+     * @param nY  the number of pixels in the height of the view plane
+     * @param col the column of the first pixel of the tile
+     * @param row the row of the first pixel of the tile
+     */
+    private void castPacket(int nX, int nY, int col, int row) {
+        int cols = Math.min(packetSize, nX - col), size = cols * Math.min(packetSize, nY - row);
+        Ray[] rays = new Ray[size];
+        Color[] colors = new Color[size];
+        for (int k = 0; k < size; ++k)
+            rays[k] = constructRay(nX, nY, col + k % cols, row + k / cols);
+        rayTracer.traceRays(rays, colors, size);
+        for (int k = 0; k < size; ++k) {
+            this.imageWriter.writePixel(col + k % cols, row + k / cols, colors[k]);
+            Pixel.pixelDone();
+        }
+    }
+
     /**
      * prints grid on top of image
      *
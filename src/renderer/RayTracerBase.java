@@ -1,5 +1,6 @@
 package renderer;
 
+import geometries.Geometries;
 import primitives.*;
 import scene.Scene;
 
@@ -14,6 +15,11 @@ public abstract class RayTracerBase {
      */
     protected final Scene scene;
 
+    /**
+     * The geometries which the primary rays may hit, null for all the geometries of the scene
+     */
+    private Geometries visibleGeometries;
+
     /**
      * Constructor
      * @param scene the scene
@@ -23,9 +29,43 @@ public abstract class RayTracerBase {
     }
 
     /**
-     * Traces a ray
+     * Sets the view volume of the primary rays, so that they are traced through the geometries inside it only
+     * (see {@link Geometries#cull}). The secondary rays (shadows, reflections and refractions) are traced
+     * through the whole scene. The camera sets the view volume before every rendering.
+     *
+     * @param position the position of the camera, null for tracing the primary rays through the whole scene
+     * @param normals  the normals of the planes bounding the view volume, towards its inside
+     */
+    public void setViewFrustum(Point position, Vector... normals) {
+        visibleGeometries = position == null ? null : scene.geometries.cull(position, normals);
+    }
+
+    /**
+     * Returns the geometries which the primary rays may hit
+     *
+     * @return the geometries inside the view volume, all the geometries of the scene if it is not set
+     */
+    protected Geometries getVisibleGeometries() {
+        return visibleGeometries == null ? scene.geometries : visibleGeometries;
+    }
+
+    /**
+     * Traces a primary ray
      * @param ray the ray
      * @return the color of the ray
      */
     public abstract Color traceRay(Ray ray);
+
+    /**
+     * Traces a packet of coherent rays (e.g. the primary rays of a tile of pixels).
+     * Tracers which have no packet tracing trace the rays one by one.
+     *
+     * @param rays   the rays
+     * @param colors receives the colors of the rays
+     * @param size   the amount of rays, at most 64
+     */
+    public void traceRays(Ray[] rays, Color[] colors, int size) {
+        for (int k = 0; k < size; ++k)
+            colors[k] = traceRay(rays[k]);
+    }
 }
@@ -1,11 +1,16 @@
 package renderer;
 
-import geometries.Intersectable.GeoPoint;
+import geometries.Geometry;
+import geometries.Hit;
+import geometries.Intersectable;
 import lighting.LightSource;
+import lighting.LightTree;
 import primitives.*;
 import scene.Scene;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 import static primitives.Util.alignZero;
 
@@ -30,6 +35,59 @@ public class RayTracerBasic extends RayTracerBase {
      */
     private static final Double3 INIT_CALC_COLOR_K = Double3.ONE;
 
+    /**
+     * The hit records of every rendering thread, one per recursion level - a record is reused by all
+     * the rays of its level, so that finding the intersections of the rays creates no objects
+     */
+    private final ThreadLocal<Hit[]> hits = ThreadLocal.withInitial(() -> {
+        Hit[] levels = new Hit[MAX_CALC_COLOR_LEVEL + 1];
+        for (int level = 0; level < levels.length; ++level)
+            levels[level] = new Hit();
+        return levels;
+    });
+
+    /**
+     * The hit records of the primary rays of a packet, for every rendering thread
+     */
+    private final ThreadLocal<Hit[]> packetHits = ThreadLocal.withInitial(() -> {
+        Hit[] packet = new Hit[Long.SIZE];
+        for (int k = 0; k < packet.length; ++k)
+            packet[k] = new Hit();
+        return packet;
+    });
+
+    /**
+     * The shadow cache of every rendering thread - a record per light source (in the order of the lights
+     * of the scene) of the last geometry which blocked its light. Adjacent points are usually shaded by
+     * the same geometry, so it is tested alone before the whole scene is searched.
+     * The cache is dropped before every rendering, as the geometries of the scene may have changed.
+     */
+    private volatile ThreadLocal<Hit[]> occluders = ThreadLocal.withInitial(() -> new Hit[0]);
+
+    /**
+     * The amount of shadow rays traced
+     */
+    private final LongAdder shadowQueries = new LongAdder();
+
+    /**
+     * The amount of shadow rays blocked by the cached geometry
+     */
+    private final LongAdder shadowCacheHits = new LongAdder();
+
+    /**
+     * The amount of lights sampled at every shading point, 0 for evaluating all the lights
+     */
+    private int lightSamples = 0;
+
+    /**
+     * The hierarchy of the lights of the scene for sampling them, null until it is needed
+     */
+    private volatile LightTree lightTree;
+
+    /**
+     * The light sample of every rendering thread
+     */
+    private final ThreadLocal<LightTree.Sample> samples = ThreadLocal.withInitial(LightTree.Sample::new);
 
     /**
      * Constructor
@@ -41,81 +99,182 @@ public class RayTracerBasic extends RayTracerBase {
     }
 
 
+    /**
+     * Sets the amount of lights sampled at every shading point, which trades the time of shading against noise.
+     * The point lights (and spot lights) of the scene are organized in a {@link LightTree}, and the lights are
+     * sampled by their estimated contribution to the point - every sampled light casts a single shadow ray,
+     * instead of a shadow ray for every light of the scene. The other lights (e.g. directional lights) are
+     * evaluated at every point. A scene of no more point lights than samples is shaded exactly.
+     *
+     * @param lightSamples the amount of lights sampled at every point, 0 (the default) for evaluating all the lights
+     * @return the ray tracer itself
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public RayTracerBasic setLightSamples(int lightSamples) {
+        if (lightSamples < 0) throw new IllegalArgumentException("The amount of light samples must not be negative");
+        this.lightSamples = lightSamples;
+        return this;
+    }
+
+    /**
+     * The shadow cache and the light hierarchy are dropped too, before a new rendering
+     */
+    @Override
+    public void setViewFrustum(Point position, Vector... normals) {
+        super.setViewFrustum(position, normals);
+        occluders = ThreadLocal.withInitial(() -> new Hit[0]);
+        lightTree = null;
+    }
+
     @Override
     public Color traceRay(Ray ray) {
-        GeoPoint closestPoint = findClosestIntersection(ray);
-        return closestPoint == null ? scene.background : calcColor(closestPoint, ray);
+        Hit hit = findClosestIntersection(getVisibleGeometries(), ray, MAX_CALC_COLOR_LEVEL);
+        return hit == null ? scene.background : calcColor(hit, ray);
+    }
+
+
+    /**
+     * The closest intersections of the packet are found together,
+     * and the secondary rays of every intersection are traced one by one.
+     */
+    @Override
+    public void traceRays(Ray[] rays, Color[] colors, int size) {
+        Hit[] packet = packetHits.get();
+        for (int k = 0; k < size; ++k)
+            packet[k].reset(Double.POSITIVE_INFINITY);
+        getVisibleGeometries().findClosestHits(rays, packet, size);
+        for (int k = 0; k < size; ++k)
+            colors[k] = packet[k].geometry == null ? scene.background : calcColor(packet[k], rays[k]);
     }
 
+    /**
+     * Returns the statistics of the shadow cache, over all the rays traced so far
+     *
+     * @return the statistics
+     */
+    public ShadowCacheStatistics getShadowCacheStatistics() {
+        return new ShadowCacheStatistics(shadowQueries.sum(), shadowCacheHits.sum());
+    }
 
     /**
      * Calculate the color intensity in a point
      *
-     * @param gp the point;
+     * @param hit the point;
      * @return the color intensity in a point
      */
-    private Color calcColor(GeoPoint gp, Ray ray) {
-        return calcColor(gp, ray, MAX_CALC_COLOR_LEVEL, INIT_CALC_COLOR_K)
+    private Color calcColor(Hit hit, Ray ray) {
+        return calcColor(hit, ray, MAX_CALC_COLOR_LEVEL, INIT_CALC_COLOR_K)
                 .add(scene.ambientLight.getIntensity());
     }
 
     /**
      * function calculates color of point
      *
-     * @param geoPoint point to color
+     * @param hit point to color - the record of its level, which the rays of the next level do not change
      * @return color
      */
-    private Color calcColor(GeoPoint geoPoint, Ray ray, int level, Double3 k) {
+    private Color calcColor(Hit hit, Ray ray, int level, Double3 k) {
+        Geometry geometry = hit.geometry;
+        Point point = hit.getPoint();
         Vector v = ray.getDir();
-        Vector n = geoPoint.geometry.getNormal(geoPoint.point);
+        Vector n = hit.getNormal();
         double vn = alignZero(v.dotProduct(n));
         if (vn == 0) return Color.BLACK;
 
-        Color color = calcLocalEffects(geoPoint, v, n, vn, k);
-        return 1 == level ? color : color.add(calcGlobalEffects(geoPoint, v, n, vn, level, k));
+        Color color = calcLocalEffects(geometry, point, v, n, vn, k);
+        return 1 == level ? color : color.add(calcGlobalEffects(geometry, point, v, n, vn, level, k));
     }
 
     /**
      * function calculates local effects of color on point
      *
-     * @param gp geometry point to color
-     * @param v  incoming ray direction
+     * @param geometry geometry to color
+     * @param point    point to color
+     * @param v        incoming ray direction
      * @param n  normal to the geometry at the point
      * @param vn dot product of v and n
      * @return color
      */
-    private Color calcLocalEffects(GeoPoint gp, Vector v, Vector n, double vn, Double3 k) {
-        Color color = gp.geometry.getEmission();
-        Material material = gp.geometry.getMaterial();
-        for (LightSource lightSource : scene.lights) {
-            Vector lightVector = lightSource.getL(gp.point);
-            double nl = alignZero(n.dotProduct(lightVector));
-            if (alignZero(nl * vn) > 0) {
-                Double3 ktr = transparency(gp, lightSource, lightVector, n);
-                if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
-                    Color lightIntensity = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(lightIntensity.scale(calcDiffusive(material, nl) //
-                            .add(calcSpecular(material, n, lightVector, nl, v))));
-                }
-            }
+    private Color calcLocalEffects(Geometry geometry, Point point, Vector v, Vector n, double vn, Double3 k) {
+        Color color = geometry.getEmission();
+        Material material = geometry.getMaterial();
+        Hit[] lightOccluders = getOccluders();
+        LightTree tree = lightSamples == 0 ? null : getLightTree();
+        if (tree == null || tree.size() <= lightSamples) {
+            int light = 0;
+            for (LightSource lightSource : scene.lights)
+                color = color.add(calcLightEffect(lightSource, lightOccluders[light++], material, point, v, n, vn, k));
+            return color;
         }
+
+        for (int light : tree.getUnclustered())
+            color = color.add(calcLightEffect(tree.getLight(light), lightOccluders[light], material, point, v, n,
+                    vn, k));
+        // stratified samples - a random number in every part of [0, 1)
+        LightTree.Sample sample = samples.get();
+        Vector facing = vn < 0 ? n : n.scale(-1);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < lightSamples; ++i)
+            if (tree.sample(point, facing, (i + random.nextDouble()) / lightSamples, sample))
+                color = color.add(calcLightEffect(sample.light, lightOccluders[sample.index], material, point, v, n,
+                        vn, k).scale(1 / (lightSamples * sample.pdf)));
         return color;
     }
 
+    /**
+     * function calculates the effect of a light source on point
+     *
+     * @param lightSource the light source
+     * @param occluder    the shadow cache of the light source
+     * @param material    the material of the geometry
+     * @param point       point to color
+     * @param v           incoming ray direction
+     * @param n           normal to the geometry at the point
+     * @param vn          dot product of v and n
+     * @param k           the attenuation of the ray so far
+     * @return the color, black if the light does not reach the point
+     */
+    private Color calcLightEffect(LightSource lightSource, Hit occluder, Material material, Point point, Vector v,
+                                  Vector n, double vn, Double3 k) {
+        Vector lightVector = lightSource.getL(point);
+        double nl = alignZero(n.dotProduct(lightVector));
+        if (alignZero(nl * vn) <= 0) return Color.BLACK;
+        Double3 ktr = transparency(point, lightSource, lightVector, n, occluder);
+        if (ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
+        Color lightIntensity = lightSource.getIntensity(point).scale(ktr);
+        return lightIntensity.scale(calcDiffusive(material, nl).add(calcSpecular(material, n, lightVector, nl, v)));
+    }
+
+    /**
+     * Returns the hierarchy of the lights of the scene, it is built if it is not built yet
+     *
+     * @return the light hierarchy
+     */
+    private LightTree getLightTree() {
+        LightTree tree = lightTree;
+        if (tree != null) return tree;
+        synchronized (this) {
+            if (lightTree == null) lightTree = new LightTree(scene.lights);
+            return lightTree;
+        }
+    }
+
     /**
      * Calculates reflected ray and refraction ray
      *
-     * @param geoPoint geometry point
+     * @param geometry geometry
+     * @param point    point on the geometry
      * @param v        incoming ray direction
      * @param n        normal to the geometry at the point
      * @param vn       dot product of v and n
      * @param k        k value
      * @return color
      */
-    private Color calcGlobalEffects(GeoPoint geoPoint, Vector v, Vector n, double vn, int level, Double3 k) {
-        Material material = geoPoint.geometry.getMaterial();
-        Ray reflectedRay = constructReflectionRay(geoPoint, v, n, vn);
-        Ray refractedRay = constructRefractionRay(geoPoint, v, n);
+    private Color calcGlobalEffects(Geometry geometry, Point point, Vector v, Vector n, double vn, int level,
+                                    Double3 k) {
+        Material material = geometry.getMaterial();
+        Ray reflectedRay = constructReflectionRay(point, v, n, vn);
+        Ray refractedRay = constructRefractionRay(point, v, n);
         return calcGlobalEffect(level, material.kR, k, reflectedRay)
                 .add(calcGlobalEffect(level, material.kT, k, refractedRay));
     }
@@ -132,8 +291,8 @@ public class RayTracerBasic extends RayTracerBase {
     private Color calcGlobalEffect(int level, Double3 kx, Double3 k, Ray ray) {
         Double3 kkx = kx.product(k);
         if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
-        GeoPoint reflectedPoint = findClosestIntersection(ray);
-        return (reflectedPoint == null ? scene.background : calcColor(reflectedPoint, ray, level - 1, kkx)).scale(kx);
+        Hit hit = findClosestIntersection(ray, level - 1);
+        return (hit == null ? scene.background : calcColor(hit, ray, level - 1, kkx)).scale(kx);
     }
 
     /**
@@ -169,86 +328,122 @@ public class RayTracerBasic extends RayTracerBase {
      *
      * @param l           light vector
      * @param n           normal of geometry
-     * @param gp          geometry point
+     * @param point       geometry point
      * @param lightSource light source
+     * @param occluder    the shadow cache of the light source
      * @return true if point is shaded
      */
     @SuppressWarnings("unused")
-    private boolean unshaded(GeoPoint gp, Vector l, Vector n, LightSource lightSource) {
-        Ray shadowRay = new Ray(gp.point, l.scale(-1), n);
+    private boolean unshaded(Point point, Vector l, Vector n, LightSource lightSource, Hit occluder) {
+        Ray shadowRay = new Ray(point, l.scale(-1), n);
 
-        var intersections = scene.geometries.findGeoIntersections(shadowRay);
-        if (intersections == null) return true;
-
-        double lightDistance = lightSource.getDistance(gp.point);
-        for (GeoPoint geoPoint : intersections) {
-            if (alignZero(geoPoint.point.distance(gp.point) - lightDistance) <= 0)
-                return false;
-        }
-        return true;
+        // any geometry between the point and the light shades it, whatever its transparency
+        return findTransparency(shadowRay, lightSource.getDistance(shadowRay.getP0()), Double.POSITIVE_INFINITY,
+                occluder) != Double3.ZERO;
     }
 
     /**
      * function will return double that represents transparency
      *
-     * @param geoPoint    geometry point to check
+     * @param point       geometry point to check
      * @param lightSource light source
      * @param l           light vector
      * @param n           normal vector
+     * @param occluder    the shadow cache of the light source
      * @return transparency value
      */
-    private Double3 transparency(GeoPoint geoPoint, LightSource lightSource, Vector l, Vector n) {
+    private Double3 transparency(Point point, LightSource lightSource, Vector l, Vector n, Hit occluder) {
         Vector lightDirection = l.scale(-1); // from point to light source
-        Ray lightRay = new Ray(geoPoint.point, lightDirection, n);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay);
-
-        Double3 ktr = Double3.ONE;
-        if (intersections == null) return ktr;
-
-        double distance = lightSource.getDistance(geoPoint.point);
-        for (GeoPoint intersection : intersections) {
-            if (distance > intersection.point.distance(geoPoint.point)) {
-                ktr = ktr.product(intersection.geometry.getMaterial().kT);
-                if (ktr.lowerThan(MIN_CALC_COLOR_K)) return Double3.ZERO;
-            }
+        Ray lightRay = new Ray(point, lightDirection, n);
+        // the query stops at the light, and at the first geometry which blocks the light
+        return findTransparency(lightRay, lightSource.getDistance(lightRay.getP0()), MIN_CALC_COLOR_K, occluder);
+    }
+
+    /**
+     * Calculates the transparency of the scene along a shadow ray, testing the cached geometry of the light first.
+     * A geometry which blocks the ray by itself blocks it together with all the others, so the result is the same
+     * as searching the whole scene.
+     *
+     * @param ray             the shadow ray
+     * @param maxDistance     the distance of the light from the head of the ray
+     * @param minTransparency the transparency below which the ray is blocked
+     * @param occluder        the shadow cache of the light - it receives the geometry which blocks the ray
+     * @return the transparency, {@link Double3#ZERO} if the ray is blocked
+     */
+    private Double3 findTransparency(Ray ray, double maxDistance, double minTransparency, Hit occluder) {
+        shadowQueries.increment();
+        Geometry cached = occluder.geometry;
+        if (cached != null && cached.findTransparency(ray, maxDistance, minTransparency) == Double3.ZERO) {
+            shadowCacheHits.increment();
+            return Double3.ZERO;
+        }
+        return scene.geometries.findTransparency(ray, maxDistance, minTransparency, occluder);
+    }
+
+    /**
+     * Returns the shadow cache of the rendering thread, with a record for every light source of the scene
+     *
+     * @return the records, in the order of the lights
+     */
+    private Hit[] getOccluders() {
+        Hit[] lightOccluders = occluders.get();
+        int lights = scene.lights.size();
+        if (lightOccluders.length < lights) {
+            lightOccluders = Arrays.copyOf(lightOccluders, lights);
+            for (int light = 0; light < lights; ++light)
+                if (lightOccluders[light] == null) lightOccluders[light] = new Hit();
+            occluders.set(lightOccluders);
         }
-        return ktr;
+        return lightOccluders;
     }
 
     /**
      * function will construct a reflection ray
      *
-     * @param geoPoint geometry point to check
+     * @param point    geometry point to check
      * @param vector   direction of ray to point
      * @param normal   normal vector
      * @param vn       dot product of v and n
      * @return reflection ray
      */
-    private Ray constructReflectionRay(GeoPoint geoPoint,  Vector vector,Vector normal, double vn) {
+    private Ray constructReflectionRay(Point point,  Vector vector,Vector normal, double vn) {
         Vector reflectedVector = vector.subtract(normal.scale(2 * vn));
-        return new Ray(geoPoint.point, reflectedVector, normal);
+        return new Ray(point, reflectedVector, normal);
     }
 
     /**
      * function will construct a refraction ray
      *
-     * @param geoPoint geometry point to check
+     * @param point    geometry point to check
      * @param normal   normal vector
      * @param vector   direction of ray to point
      * @return refraction ray
      */
-    private Ray constructRefractionRay(GeoPoint geoPoint,Vector vector,  Vector normal) {
-        return new Ray(geoPoint.point, vector, normal);
+    private Ray constructRefractionRay(Point point,Vector vector,  Vector normal) {
+        return new Ray(point, vector, normal);
     }
 
     /**
      * Find the closest intersection point with a ray.
      *
-     * @param ray The ray to checks intersections with.
-     * @return The closest intersection point with the ray.
+     * @param ray   The ray to checks intersections with.
+     * @param level The recursion level of the ray, whose hit record is filled in.
+     * @return The hit record of the closest intersection point with the ray, null if there is none.
+     */
+    private Hit findClosestIntersection(Ray ray, int level) {
+        return findClosestIntersection(scene.geometries, ray, level);
+    }
+
+    /**
+     * Find the closest intersection point of a ray with some geometries.
+     *
+     * @param geometries The geometries (e.g. the geometries inside the view volume for a primary ray).
+     * @param ray        The ray to checks intersections with.
+     * @param level      The recursion level of the ray, whose hit record is filled in.
+     * @return The hit record of the closest intersection point with the ray, null if there is none.
      */
-    private GeoPoint findClosestIntersection(Ray ray) {
-        var intersections = scene.geometries.findGeoIntersections(ray);
-        return intersections == null ? null : ray.findClosestGeoPoint(intersections);
+    private Hit findClosestIntersection(Intersectable geometries, Ray ray, int level) {
+        Hit hit = hits.get()[level].reset(Double.POSITIVE_INFINITY);
+        return geometries.findClosestHit(ray, hit) ? hit : null;
     }
 }
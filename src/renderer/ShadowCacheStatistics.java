@@ -0,0 +1,20 @@
+package renderer;
+
+/**
+ * Statistics of the shadow cache of a {@link RayTracerBasic} - the last geometry which blocked the light
+ * of every light source, which is tested before the whole scene
+ *
+ * @param queries the amount of shadow rays traced
+ * @param hits    the amount of shadow rays blocked by the cached geometry, without searching the scene
+ */
+public record ShadowCacheStatistics(long queries, long hits) {
+
+    /**
+     * The part of the shadow rays blocked by the cached geometry
+     *
+     * @return the hit rate, between 0 and 1 (0 if no shadow ray was traced)
+     */
+    public double hitRate() {
+        return queries == 0 ? 0 : (double) hits / queries;
+    }
+}
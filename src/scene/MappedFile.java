@@ -0,0 +1,99 @@
+package scene;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reader of a binary file through a window of it mapped into memory. A mapping is limited to 2 GB,
+ * so the window is moved along larger files - a read position is translated to an index in the mapping,
+ * which is remapped when the bytes to read are outside it. Every thread which reads the file in parallel
+ * has a reader of its own.
+ */
+final class MappedFile {
+
+    /**
+     * The largest size of a window, and of the bytes read at once
+     */
+    static final int WINDOW = 1 << 30;
+
+    /**
+     * The file
+     */
+    private final FileChannel channel;
+
+    /**
+     * The size of the file
+     */
+    private final long size;
+
+    /**
+     * The byte order of the numbers of the file
+     */
+    private final ByteOrder order;
+
+    /**
+     * The mapped window, null before the first read
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * The position of the window in the file
+     */
+    private long base;
+
+    /**
+     * Constructs a reader of a file
+     *
+     * @param channel the file
+     * @param order   the byte order of the numbers of the file
+     * @throws IOException if the size of the file cannot be read
+     */
+    MappedFile(FileChannel channel, ByteOrder order) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.order = order;
+    }
+
+    /**
+     * Returns the size of the file
+     *
+     * @return the size in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns the mapped window - the bytes of a position are read from the index returned by
+     * {@link #at(long, int)}
+     *
+     * @return the window
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Maps the bytes at a position of the file, if they are not in the window yet
+     *
+     * @param position the position in the file
+     * @param bytes    the amount of bytes to read, at most 1 GB
+     * @return the index of the position in the window
+     * @throws IOException if the file ends before the bytes, there are more bytes than a window,
+     *                     or the file cannot be mapped
+     */
+    int at(long position, int bytes) throws IOException {
+        if (bytes > WINDOW) throw new IOException("Too many bytes to read at once at byte " + position);
+        if (buffer == null || position < base || position + bytes > base + buffer.limit()) {
+            if (position < 0 || position + bytes > size)
+                throw new IOException("Unexpected end of file at byte " + position);
+            base = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+            buffer.order(order);
+        }
+        return (int) (position - base);
+    }
+}
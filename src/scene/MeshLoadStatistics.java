@@ -0,0 +1,21 @@
+package scene;
+
+/**
+ * Statistics of loading a mesh file
+ *
+ * @param bytes    the size of the file
+ * @param vertices the amount of vertices loaded
+ * @param faces    the amount of triangular faces loaded
+ * @param nanos    the time the loading took, in nanoseconds
+ */
+public record MeshLoadStatistics(long bytes, int vertices, int faces, long nanos) {
+
+    /**
+     * The throughput of the loading
+     *
+     * @return the megabytes (of 2^20 bytes) loaded per second, 0 if no time was measured
+     */
+    public double megabytesPerSecond() {
+        return nanos == 0 ? 0 : bytes / (double) (1 << 20) / (nanos / 1e9);
+    }
+}
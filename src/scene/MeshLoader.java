@@ -0,0 +1,29 @@
+package scene;
+
+import geometries.TriangleMesh;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Loader of the triangles of a mesh file format into a {@link TriangleMesh}
+ */
+public interface MeshLoader {
+
+    /**
+     * Loads the triangles of a file
+     *
+     * @param file the file
+     * @return the mesh, with the default material and emission
+     * @throws IOException              if the file cannot be read, or it is malformed
+     * @throws IllegalArgumentException if the file has no faces, or a face refers to a missing vertex
+     */
+    TriangleMesh load(Path file) throws IOException;
+
+    /**
+     * Returns the statistics of the last file loaded
+     *
+     * @return the statistics, null if no file was loaded
+     */
+    MeshLoadStatistics getStatistics();
+}
@@ -0,0 +1,425 @@
+package scene;
+
+import geometries.TriangleMesh;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Loader of the triangles of Wavefront OBJ files into a {@link TriangleMesh}.
+ * The file is mapped into memory in chunks of whole lines, which are parsed in parallel straight into
+ * arrays of coordinates and of vertex indices - the numbers are parsed from the bytes of the mapping,
+ * without creating a string per token - and the arrays of the chunks are concatenated into the mesh.
+ * Only the vertex positions ({@code v}) and the faces ({@code f}) are loaded, a face of more than
+ * three vertices is split into a fan of triangles, and every other line (normals, texture coordinates,
+ * groups, materials, comments) is skipped.
+ */
+public class ObjLoader implements MeshLoader {
+
+    /**
+     * Powers of ten which are exact doubles, for parsing numbers
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * The largest mantissa which is an exact double
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * The approximate size of a chunk of the file in bytes
+     */
+    private int chunkSize = 8 << 20;
+
+    /**
+     * The statistics of the last file loaded
+     */
+    private volatile MeshLoadStatistics statistics;
+
+    /**
+     * Sets the approximate size of the chunks which are parsed in parallel - a chunk ends at the end of a line
+     *
+     * @param chunkSize the size in bytes
+     * @return this
+     * @throws IllegalArgumentException if the size is not positive or it is larger than 1 GB
+     */
+    public ObjLoader setChunkSize(int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > 1 << 30)
+            throw new IllegalArgumentException("The chunk size must be positive and at most 1 GB");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    @Override
+    public MeshLoadStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public TriangleMesh load(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            long size = channel.size();
+            long[] boundaries = boundaries(channel, size);
+            Chunk[] chunks = new Chunk[boundaries.length - 1];
+            try {
+                IntStream.range(0, chunks.length).parallel().forEach(i -> {
+                    try {
+                        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, boundaries[i],
+                                boundaries[i + 1] - boundaries[i]);
+                        chunks[i] = new Chunk(buffer, boundaries[i]).parse();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw new IOException("Cannot load " + file + ": " + e.getCause().getMessage(), e.getCause());
+            }
+
+            // the chunks are placed one after the other in the arrays of the mesh
+            int[] vertexOffsets = new int[chunks.length + 1];
+            int[] faceOffsets = new int[chunks.length + 1];
+            for (int i = 0; i < chunks.length; ++i) {
+                if ((long) vertexOffsets[i] + chunks[i].vertexCount > Integer.MAX_VALUE
+                        || (long) faceOffsets[i] + chunks[i].faceCount > Integer.MAX_VALUE)
+                    throw new IOException("The file " + file + " is too large for a mesh");
+                vertexOffsets[i + 1] = vertexOffsets[i] + chunks[i].vertexCount;
+                faceOffsets[i + 1] = faceOffsets[i] + chunks[i].faceCount;
+            }
+            double[] vertices = new double[vertexOffsets[chunks.length]];
+            int[] faces = new int[faceOffsets[chunks.length]];
+            IntStream.range(0, chunks.length).parallel().forEach(i -> {
+                Chunk chunk = chunks[i];
+                System.arraycopy(chunk.vertices, 0, vertices, vertexOffsets[i], chunk.vertexCount);
+                System.arraycopy(chunk.faces, 0, faces, faceOffsets[i], chunk.faceCount);
+                // relative indices are counted from the first vertex of the chunk
+                for (int r = 0; r < chunk.relativeCount; ++r)
+                    faces[faceOffsets[i] + chunk.relative[r]] += vertexOffsets[i] / 3;
+            });
+
+            TriangleMesh mesh = new TriangleMesh(vertices, faces);
+            statistics = new MeshLoadStatistics(size, vertices.length / 3, faces.length / 3,
+                    System.nanoTime() - start);
+            return mesh;
+        }
+    }
+
+    /**
+     * Splits a file into chunks of whole lines of about the chunk size
+     *
+     * @param channel the file
+     * @param size    the size of the file
+     * @return the offsets of the chunks, and the size of the file at the end
+     * @throws IOException if the file cannot be read
+     */
+    private long[] boundaries(FileChannel channel, long size) throws IOException {
+        int count = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        long[] boundaries = new long[count + 1];
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        for (int i = 1; i < count; ++i) {
+            // a chunk starts after the first end of line from its nominal offset
+            long position = Math.max((long) i * chunkSize, boundaries[i - 1]);
+            long boundary = size;
+            search:
+            while (position < size) {
+                window.clear();
+                int read = channel.read(window, position);
+                if (read <= 0) break;
+                for (int j = 0; j < read; ++j)
+                    if (window.get(j) == '\n') {
+                        boundary = position + j + 1;
+                        break search;
+                    }
+                position += read;
+            }
+            boundaries[i] = boundary;
+        }
+        boundaries[count] = size;
+        return boundaries;
+    }
+
+    /**
+     * The vertices and the faces of a chunk of a file, and the parser of the chunk
+     */
+    private static final class Chunk {
+
+        /**
+         * The bytes of the chunk
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * The offset of the chunk in the file, for the messages of malformed files
+         */
+        private final long offset;
+
+        /**
+         * The position of the parser in the chunk
+         */
+        private int position;
+
+        /**
+         * Coordinates of the vertices of the chunk
+         */
+        private double[] vertices = new double[3 * 1024];
+
+        /**
+         * The amount of coordinates
+         */
+        private int vertexCount;
+
+        /**
+         * Indices of the vertices of the faces of the chunk - a relative index is counted from
+         * the first vertex of the chunk
+         */
+        private int[] faces = new int[3 * 1024];
+
+        /**
+         * The amount of indices
+         */
+        private int faceCount;
+
+        /**
+         * Positions of the relative indices in the indices of the faces
+         */
+        private int[] relative = new int[0];
+
+        /**
+         * The amount of relative indices
+         */
+        private int relativeCount;
+
+        /**
+         * The indices of the vertices of the face being parsed
+         */
+        private int[] polygon = new int[16];
+
+        /**
+         * Whether the indices of the face being parsed are relative
+         */
+        private boolean[] polygonRelative = new boolean[16];
+
+        /**
+         * Constructs the parser of a chunk
+         *
+         * @param buffer the bytes of the chunk
+         * @param offset the offset of the chunk in the file
+         */
+        private Chunk(ByteBuffer buffer, long offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        /**
+         * Parses the lines of the chunk
+         *
+         * @return this
+         * @throws IOException if the chunk is malformed
+         */
+        private Chunk parse() throws IOException {
+            int limit = buffer.limit();
+            while (position < limit) {
+                skipSpaces();
+                if (position + 1 < limit && buffer.get(position) == 'v' && isSpace(buffer.get(position + 1))) {
+                    ++position;
+                    if (vertexCount + 3 > vertices.length) vertices = Arrays.copyOf(vertices, vertices.length * 2);
+                    vertices[vertexCount] = parseDouble();
+                    vertices[vertexCount + 1] = parseDouble();
+                    vertices[vertexCount + 2] = parseDouble();
+                    vertexCount += 3;
+                } else if (position + 1 < limit && buffer.get(position) == 'f' && isSpace(buffer.get(position + 1))) {
+                    ++position;
+                    parseFace();
+                }
+                skipLine();
+            }
+            return this;
+        }
+
+        /**
+         * Parses the vertices of a face, and splits it into triangles
+         *
+         * @throws IOException if the face is malformed
+         */
+        private void parseFace() throws IOException {
+            int count = 0;
+            for (skipSpaces(); position < buffer.limit() && !isEndOfLine(buffer.get(position)); skipSpaces()) {
+                int index = parseInt();
+                if (index == 0) throw malformed("a vertex index 0");
+                if (count == polygon.length) {
+                    polygon = Arrays.copyOf(polygon, count * 2);
+                    polygonRelative = Arrays.copyOf(polygonRelative, count * 2);
+                }
+                // a negative index is relative to the vertices read so far
+                polygonRelative[count] = index < 0;
+                polygon[count++] = index < 0 ? vertexCount / 3 + index : index - 1;
+                // texture coordinates and normals are skipped
+                while (position < buffer.limit() && !isSpace(buffer.get(position))
+                        && !isEndOfLine(buffer.get(position)))
+                    ++position;
+            }
+            if (count < 3) throw malformed("a face of less than 3 vertices");
+
+            int triangles = count - 2;
+            if (faceCount + triangles * 3 > faces.length)
+                faces = Arrays.copyOf(faces, Math.max(faces.length * 2, faceCount + triangles * 3));
+            for (int i = 1; i + 1 < count; ++i) {
+                addIndex(0);
+                addIndex(i);
+                addIndex(i + 1);
+            }
+        }
+
+        /**
+         * Adds a vertex of the face being parsed to the indices of the faces
+         *
+         * @param vertex the vertex of the face
+         */
+        private void addIndex(int vertex) {
+            if (polygonRelative[vertex]) {
+                if (relativeCount == relative.length)
+                    relative = Arrays.copyOf(relative, Math.max(16, relativeCount * 2));
+                relative[relativeCount++] = faceCount;
+            }
+            faces[faceCount++] = polygon[vertex];
+        }
+
+        /**
+         * Parses an integer
+         *
+         * @return the integer
+         * @throws IOException if there is no integer at the position
+         */
+        private int parseInt() throws IOException {
+            int limit = buffer.limit();
+            boolean negative = position < limit && buffer.get(position) == '-';
+            if (negative || position < limit && buffer.get(position) == '+') ++position;
+            int start = position;
+            long value = 0;
+            for (; position < limit && isDigit(buffer.get(position)); ++position) {
+                value = value * 10 + buffer.get(position) - '0';
+                if (value > Integer.MAX_VALUE) throw malformed("a vertex index out of range");
+            }
+            if (position == start) throw malformed("a missing vertex index");
+            return (int) (negative ? -value : value);
+        }
+
+        /**
+         * Parses a decimal number, with an optional exponent. A number of up to 15 significant digits
+         * and a small exponent is calculated exactly from its digits, other numbers are parsed
+         * by {@link Double#parseDouble(String)}.
+         *
+         * @return the number
+         * @throws IOException if there is no number at the position
+         */
+        private double parseDouble() throws IOException {
+            skipSpaces();
+            int limit = buffer.limit();
+            int start = position;
+            boolean negative = position < limit && buffer.get(position) == '-';
+            if (negative || position < limit && buffer.get(position) == '+') ++position;
+
+            long mantissa = 0;
+            int exponent = 0;
+            boolean digits = false, exact = true;
+            for (; position < limit && isDigit(buffer.get(position)); ++position) {
+                digits = true;
+                if (mantissa < MAX_EXACT_MANTISSA / 10) mantissa = mantissa * 10 + buffer.get(position) - '0';
+                else exact = false;
+            }
+            if (position < limit && buffer.get(position) == '.')
+                for (++position; position < limit && isDigit(buffer.get(position)); ++position) {
+                    digits = true;
+                    if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                        mantissa = mantissa * 10 + buffer.get(position) - '0';
+                        --exponent;
+                    } else exact = false;
+                }
+            if (!digits) throw malformed("a missing coordinate");
+            if (position < limit && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+                ++position;
+                boolean negativeExponent = position < limit && buffer.get(position) == '-';
+                if (negativeExponent || position < limit && buffer.get(position) == '+') ++position;
+                int value = 0, exponentStart = position;
+                for (; position < limit && isDigit(buffer.get(position)); ++position)
+                    value = Math.min(value * 10 + buffer.get(position) - '0', 10000);
+                if (position == exponentStart) throw malformed("a missing exponent");
+                exponent += negativeExponent ? -value : value;
+            }
+
+            if (exact && exponent >= -22 && exponent <= 22) {
+                double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+                return negative ? -value : value;
+            }
+            // a rare long number is rounded correctly by the library
+            byte[] bytes = new byte[position - start];
+            buffer.get(start, bytes);
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        }
+
+        /**
+         * Skips spaces and tabs
+         */
+        private void skipSpaces() {
+            while (position < buffer.limit() && isSpace(buffer.get(position))) ++position;
+        }
+
+        /**
+         * Skips to the beginning of the next line
+         */
+        private void skipLine() {
+            while (position < buffer.limit() && buffer.get(position++) != '\n') {
+            }
+        }
+
+        /**
+         * Creates the exception of a malformed file at the position of the parser
+         *
+         * @param problem what is wrong
+         * @return the exception
+         */
+        private IOException malformed(String problem) {
+            return new IOException("Malformed OBJ file, " + problem + " at byte " + (offset + position));
+        }
+
+        /**
+         * Checks whether a byte is a space or a tab
+         *
+         * @param b the byte
+         * @return true if the byte separates tokens
+         */
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t';
+        }
+
+        /**
+         * Checks whether a byte ends a line
+         *
+         * @param b the byte
+         * @return true for the end of a line (or the carriage return before it)
+         */
+        private static boolean isEndOfLine(byte b) {
+            return b == '\n' || b == '\r';
+        }
+
+        /**
+         * Checks whether a byte is a decimal digit
+         *
+         * @param b the byte
+         * @return true for a digit
+         */
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+    }
+}
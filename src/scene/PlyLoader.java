@@ -0,0 +1,470 @@
+package scene;
+
+import geometries.TriangleMesh;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Loader of the triangles of binary PLY files (little or big endian) into a {@link TriangleMesh}.
+ * The text header is parsed for the layout of the elements, and the vertex and face elements are read
+ * through views of the file mapped into memory, in the byte order of the file, straight into the arrays
+ * of the mesh. The positions of the vertices, whose records are of a fixed size, are read in parallel.
+ * Only the x, y, z properties of the vertices and the vertex index list of the faces are loaded,
+ * a face of more than three vertices is split into a fan of triangles, and other elements and
+ * properties are skipped.
+ */
+public class PlyLoader implements MeshLoader {
+
+    /**
+     * The last line of the header
+     */
+    private static final String END_HEADER = "end_header";
+
+    /**
+     * The largest size of a header
+     */
+    private static final int MAX_HEADER = 1 << 16;
+
+    /**
+     * Amount of vertices read by a task
+     */
+    private static final int VERTICES_PER_TASK = 1 << 18;
+
+    /**
+     * The largest initial size of the vertex indices of the faces, which grow beyond it as they are read
+     */
+    private static final int INITIAL_FACE_INDICES = 3 << 20;
+
+    /**
+     * The statistics of the last file loaded
+     */
+    private volatile MeshLoadStatistics statistics;
+
+    /**
+     * The types of the properties
+     */
+    private enum Type {
+        CHAR(1), UCHAR(1), SHORT(2), USHORT(2), INT(4), UINT(4), FLOAT(4), DOUBLE(8);
+
+        /**
+         * The size of a value in bytes
+         */
+        private final int size;
+
+        /**
+         * Constructs a type
+         *
+         * @param size the size of a value in bytes
+         */
+        Type(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Finds a type by its name in the header, either the old or the sized name
+         *
+         * @param name the name
+         * @return the type
+         * @throws IOException for an unknown name
+         */
+        private static Type of(String name) throws IOException {
+            return switch (name) {
+                case "char", "int8" -> CHAR;
+                case "uchar", "uint8" -> UCHAR;
+                case "short", "int16" -> SHORT;
+                case "ushort", "uint16" -> USHORT;
+                case "int", "int32" -> INT;
+                case "uint", "uint32" -> UINT;
+                case "float", "float32" -> FLOAT;
+                case "double", "float64" -> DOUBLE;
+                default -> throw new IOException("Malformed PLY file, unknown type " + name);
+            };
+        }
+
+        /**
+         * Reads a value as a number
+         *
+         * @param buffer the buffer
+         * @param index  the index of the value in the buffer
+         * @return the value
+         */
+        private double read(ByteBuffer buffer, int index) {
+            return switch (this) {
+                case FLOAT -> buffer.getFloat(index);
+                case DOUBLE -> buffer.getDouble(index);
+                default -> readLong(buffer, index);
+            };
+        }
+
+        /**
+         * Reads a value as an integer
+         *
+         * @param buffer the buffer
+         * @param index  the index of the value in the buffer
+         * @return the value, truncated if it is a floating point value
+         */
+        private long readLong(ByteBuffer buffer, int index) {
+            return switch (this) {
+                case CHAR -> buffer.get(index);
+                case UCHAR -> Byte.toUnsignedInt(buffer.get(index));
+                case SHORT -> buffer.getShort(index);
+                case USHORT -> Short.toUnsignedInt(buffer.getShort(index));
+                case INT -> buffer.getInt(index);
+                case UINT -> Integer.toUnsignedLong(buffer.getInt(index));
+                case FLOAT -> (long) buffer.getFloat(index);
+                case DOUBLE -> (long) buffer.getDouble(index);
+            };
+        }
+    }
+
+    /**
+     * A property of an element
+     *
+     * @param name      the name of the property
+     * @param type      the type of the values
+     * @param countType the type of the count of a list, null for a single value
+     */
+    private record Property(String name, Type type, Type countType) {
+    }
+
+    /**
+     * An element of the file
+     *
+     * @param name       the name of the element
+     * @param count      the amount of records
+     * @param properties the properties of a record
+     */
+    private record Element(String name, long count, List<Property> properties) {
+
+        /**
+         * The size of a record
+         *
+         * @return the size in bytes, -1 if the records have lists and their size varies
+         */
+        private int stride() {
+            int stride = 0;
+            for (Property property : properties) {
+                if (property.countType != null) return -1;
+                stride += property.type.size;
+            }
+            return stride;
+        }
+
+        /**
+         * The smallest size of a record - a list may be empty, so it takes the size of its count at least
+         *
+         * @return the size in bytes
+         */
+        private int minimumBytes() {
+            int bytes = 0;
+            for (Property property : properties)
+                bytes += property.countType == null ? property.type.size : property.countType.size;
+            return bytes;
+        }
+
+        /**
+         * The offset of a single value property in a record of a fixed size
+         *
+         * @param name the name of the property
+         * @return the offset in bytes, -1 if there is no such property
+         */
+        private int offset(String name) {
+            int offset = 0;
+            for (Property property : properties) {
+                if (property.name.equals(name) && property.countType == null) return offset;
+                offset += property.type.size;
+            }
+            return -1;
+        }
+
+        /**
+         * Finds a single value property
+         *
+         * @param name the name of the property
+         * @return the property, null if there is no such property
+         */
+        private Property property(String name) {
+            for (Property property : properties)
+                if (property.name.equals(name) && property.countType == null) return property;
+            return null;
+        }
+    }
+
+    @Override
+    public MeshLoadStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public TriangleMesh load(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            List<Element> elements = new ArrayList<>();
+            ByteOrder[] order = new ByteOrder[1];
+            long position = parseHeader(channel, elements, order);
+            MappedFile reader = new MappedFile(channel, order[0]);
+
+            double[] vertices = null;
+            int[] faces = null;
+            for (Element element : elements) {
+                // the counts of the header are checked against the file before anything is allocated by them
+                int minimumBytes = element.minimumBytes();
+                if (minimumBytes > 0 && element.count > (reader.size() - position) / minimumBytes)
+                    throw new IOException("Malformed PLY file " + file + ", the file ends before "
+                            + element.count + " " + element.name + " records");
+                if (element.name.equals("vertex") && vertices == null) {
+                    if (element.count * 3 > Integer.MAX_VALUE)
+                        throw new IOException("The file " + file + " is too large for a mesh");
+                    vertices = new double[(int) element.count * 3];
+                    position = readVertices(channel, reader, order[0], element, position, vertices);
+                } else if (element.name.equals("face") && faces == null) {
+                    int[][] result = new int[1][];
+                    position = readFaces(reader, element, position, result);
+                    faces = result[0];
+                } else position = skip(reader, element, position);
+            }
+            if (vertices == null) vertices = new double[0];
+            if (faces == null) faces = new int[0];
+
+            TriangleMesh mesh = new TriangleMesh(vertices, faces);
+            statistics = new MeshLoadStatistics(reader.size(), vertices.length / 3, faces.length / 3,
+                    System.nanoTime() - start);
+            return mesh;
+        }
+    }
+
+    /**
+     * Parses the header of a file
+     *
+     * @param channel  the file
+     * @param elements receives the elements of the file
+     * @param order    receives the byte order of the file
+     * @return the position of the first element
+     * @throws IOException if the file is not a binary PLY file, or the header is malformed
+     */
+    private static long parseHeader(FileChannel channel, List<Element> elements, ByteOrder[] order)
+            throws IOException {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(MAX_HEADER, channel.size()));
+        byte[] bytes = new byte[buffer.limit()];
+        buffer.get(bytes);
+        String text = new String(bytes, StandardCharsets.US_ASCII);
+        int end = text.indexOf(END_HEADER + "\n");
+        int endLength = END_HEADER.length() + 1;
+        if (end < 0) {
+            end = text.indexOf(END_HEADER + "\r\n");
+            endLength = END_HEADER.length() + 2;
+        }
+        if (!text.startsWith("ply") || end < 0) throw new IOException("Not a PLY file");
+
+        for (String line : text.substring(0, end).split("\r?\n")) {
+            String[] tokens = line.trim().split("\\s+");
+            switch (tokens[0]) {
+                case "format" -> {
+                    if (tokens.length < 2) throw new IOException("Malformed PLY file, no format");
+                    order[0] = switch (tokens[1]) {
+                        case "binary_little_endian" -> ByteOrder.LITTLE_ENDIAN;
+                        case "binary_big_endian" -> ByteOrder.BIG_ENDIAN;
+                        default -> throw new IOException("Only binary PLY files are supported, not " + tokens[1]);
+                    };
+                }
+                case "element" -> {
+                    if (tokens.length < 3) throw new IOException("Malformed PLY file, " + line);
+                    long count;
+                    try {
+                        count = Long.parseLong(tokens[2]);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Malformed PLY file, " + line, e);
+                    }
+                    if (count < 0) throw new IOException("Malformed PLY file, " + line);
+                    elements.add(new Element(tokens[1], count, new ArrayList<>()));
+                }
+                case "property" -> {
+                    if (elements.isEmpty()) throw new IOException("Malformed PLY file, a property of no element");
+                    List<Property> properties = elements.get(elements.size() - 1).properties;
+                    if (tokens.length >= 5 && tokens[1].equals("list"))
+                        properties.add(new Property(tokens[4], Type.of(tokens[3]), Type.of(tokens[2])));
+                    else if (tokens.length >= 3) properties.add(new Property(tokens[2], Type.of(tokens[1]), null));
+                    else throw new IOException("Malformed PLY file, " + line);
+                }
+                default -> {
+                    // comments, obj_info and the magic line
+                }
+            }
+        }
+        if (order[0] == null) throw new IOException("Malformed PLY file, no format");
+        return end + endLength;
+    }
+
+    /**
+     * Reads the positions of the vertices - in parallel when the records are of a fixed size
+     *
+     * @param channel  the file
+     * @param reader   the reader of the file
+     * @param order    the byte order of the file
+     * @param element  the vertex element
+     * @param position the position of the element
+     * @param vertices receives the coordinates of the vertices
+     * @return the position after the element
+     * @throws IOException if the vertices have no position, or the file ends
+     */
+    private static long readVertices(FileChannel channel, MappedFile reader, ByteOrder order, Element element,
+                                     long position, double[] vertices) throws IOException {
+        Property x = element.property("x"), y = element.property("y"), z = element.property("z");
+        if (x == null || y == null || z == null) throw new IOException("Malformed PLY file, vertices with no position");
+        int stride = element.stride();
+        if (stride < 0) {
+            // records with lists are read one by one
+            for (int v = 0; v < element.count; ++v) {
+                for (Property property : element.properties) {
+                    int index = reader.at(position, property.countType == null ? property.type.size
+                            : property.countType.size);
+                    if (property.countType != null) {
+                        position += property.countType.size
+                                + (long) property.type.size * property.countType.readLong(reader.buffer(), index);
+                        continue;
+                    }
+                    if (property == x) vertices[v * 3] = property.type.read(reader.buffer(), index);
+                    else if (property == y) vertices[v * 3 + 1] = property.type.read(reader.buffer(), index);
+                    else if (property == z) vertices[v * 3 + 2] = property.type.read(reader.buffer(), index);
+                    position += property.type.size;
+                }
+            }
+            return position;
+        }
+
+        int xOffset = element.offset("x"), yOffset = element.offset("y"), zOffset = element.offset("z");
+        int count = (int) element.count;
+        long first = position;
+        try {
+            IntStream.range(0, (count + VERTICES_PER_TASK - 1) / VERTICES_PER_TASK).parallel().forEach(task -> {
+                try {
+                    MappedFile taskReader = new MappedFile(channel, order);
+                    int end = Math.min(count, (task + 1) * VERTICES_PER_TASK);
+                    for (int v = task * VERTICES_PER_TASK; v < end; ++v) {
+                        int index = taskReader.at(first + (long) v * stride, stride);
+                        ByteBuffer buffer = taskReader.buffer();
+                        vertices[v * 3] = x.type.read(buffer, index + xOffset);
+                        vertices[v * 3 + 1] = y.type.read(buffer, index + yOffset);
+                        vertices[v * 3 + 2] = z.type.read(buffer, index + zOffset);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return position + element.count * stride;
+    }
+
+    /**
+     * Reads the vertex indices of the faces, and splits them into triangles
+     *
+     * @param reader   the reader of the file
+     * @param element  the face element
+     * @param position the position of the element
+     * @param faces    receives the indices of the vertices of the triangles
+     * @return the position after the element
+     * @throws IOException if the faces have no vertex indices, a face has less than three vertices
+     *                     or more than a window of the file, or the file ends
+     */
+    private static long readFaces(MappedFile reader, Element element, long position, int[][] faces)
+            throws IOException {
+        Property indices = null;
+        for (Property property : element.properties)
+            if (property.countType != null
+                    && (property.name.equals("vertex_indices") || property.name.equals("vertex_index")))
+                indices = property;
+        if (indices == null) throw new IOException("Malformed PLY file, faces with no vertex indices");
+
+        int[] result = new int[(int) Math.min(element.count * 3, INITIAL_FACE_INDICES)];
+        int size = 0;
+        for (long f = 0; f < element.count; ++f)
+            for (Property property : element.properties) {
+                if (property.countType == null) {
+                    position += property.type.size;
+                    continue;
+                }
+                int countIndex = reader.at(position, property.countType.size);
+                long count = property.countType.readLong(reader.buffer(), countIndex);
+                position += property.countType.size;
+                int itemSize = property.type.size;
+                if (property != indices) {
+                    position += count * itemSize;
+                    continue;
+                }
+                if (count < 3)
+                    throw new IOException("Malformed PLY file, a face of less than 3 vertices at byte " + position);
+                if (count * itemSize > MappedFile.WINDOW)
+                    throw new IOException("Malformed PLY file, a face of " + count + " vertices at byte " + position);
+                if (size + (count - 2) * 3 > Integer.MAX_VALUE - 8)
+                    throw new IOException("The file is too large for a mesh");
+                if (size + (count - 2) * 3 > result.length)
+                    result = Arrays.copyOf(result, (int) Math.min(Math.max(result.length * 2L,
+                            size + (count - 2) * 3), Integer.MAX_VALUE - 8));
+                int index = reader.at(position, (int) (count * itemSize));
+                ByteBuffer buffer = reader.buffer();
+                int firstVertex = vertexIndex(property.type, buffer, index);
+                int previous = vertexIndex(property.type, buffer, index + itemSize);
+                // a fan of triangles around the first vertex
+                for (int i = 2; i < count; ++i) {
+                    int next = vertexIndex(property.type, buffer, index + i * itemSize);
+                    result[size++] = firstVertex;
+                    result[size++] = previous;
+                    result[size++] = next;
+                    previous = next;
+                }
+                position += count * itemSize;
+            }
+        faces[0] = size == result.length ? result : Arrays.copyOf(result, size);
+        return position;
+    }
+
+    /**
+     * Reads a vertex index
+     *
+     * @param type   the type of the index
+     * @param buffer the buffer
+     * @param index  the index of the value in the buffer
+     * @return the vertex index, -1 if it cannot be an index of an array (so that the mesh rejects it)
+     */
+    private static int vertexIndex(Type type, ByteBuffer buffer, int index) {
+        long value = type.readLong(buffer, index);
+        return value < 0 || value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    /**
+     * Skips an element
+     *
+     * @param reader   the reader of the file
+     * @param element  the element
+     * @param position the position of the element
+     * @return the position after the element
+     * @throws IOException if the file ends
+     */
+    private static long skip(MappedFile reader, Element element, long position) throws IOException {
+        int stride = element.stride();
+        if (stride >= 0) return position + element.count * stride;
+        for (long r = 0; r < element.count; ++r)
+            for (Property property : element.properties)
+                if (property.countType == null) position += property.type.size;
+                else {
+                    int index = reader.at(position, property.countType.size);
+                    position += property.countType.size
+                            + (long) property.type.size * property.countType.readLong(reader.buffer(), index);
+                }
+        return position;
+    }
+}
@@ -2,7 +2,10 @@ package scene;
 
 import lighting.*;
 import primitives.Color;
+import geometries.Acceleration;
 import geometries.Geometries;
+
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -31,6 +34,16 @@ public class Scene {
      */
     public Geometries geometries = new Geometries();
 
+    /**
+     * The kind of acceleration structure over the geometries of the scene.
+     */
+    public Acceleration acceleration = Acceleration.BOUNDING_VOLUME_HIERARCHY;
+
+    /**
+     * The directory for caching the acceleration structure between runs, null for not caching.
+     */
+    public Path accelerationCache = null;
+
     /**
      * The lights of the scene.
      */
@@ -74,7 +87,31 @@ public class Scene {
      * @return this
      */
     public Scene setGeometries(Geometries geometries) {
-        this.geometries = geometries;
+        this.geometries = geometries.setAcceleration(acceleration).setAccelerationCache(accelerationCache);
+        return this;
+    }
+
+    /**
+     * function sets the kind of acceleration structure over the geometries
+     *
+     * @param acceleration kind of acceleration structure
+     * @return this
+     */
+    public Scene setAcceleration(Acceleration acceleration) {
+        this.acceleration = acceleration;
+        geometries.setAcceleration(acceleration);
+        return this;
+    }
+
+    /**
+     * function sets the directory for caching the acceleration structure between runs
+     *
+     * @param directory the cache directory, null for not caching
+     * @return this
+     */
+    public Scene setAccelerationCache(Path directory) {
+        this.accelerationCache = directory;
+        geometries.setAccelerationCache(directory);
         return this;
     }
 
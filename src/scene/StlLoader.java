@@ -0,0 +1,156 @@
+package scene;
+
+import geometries.TriangleMesh;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Loader of the triangles of binary STL files into a {@link TriangleMesh}.
+ * A binary STL file is an 80 bytes header, the amount of triangles, and a record of 50 bytes for every
+ * triangle - its normal, its three vertices and an attribute - in little endian order. The records are read
+ * in parallel through views of the file mapped into memory, straight into the coordinates of the mesh.
+ * The vertices of an STL file are not shared, every triangle repeats the vertices of its neighbours,
+ * so by default the equal vertices are welded into one, which takes a fraction of the memory.
+ */
+public class StlLoader implements MeshLoader {
+
+    /**
+     * Size of the header of a file
+     */
+    private static final int HEADER_BYTES = 80 + Integer.BYTES;
+
+    /**
+     * Size of the record of a triangle
+     */
+    private static final int RECORD_BYTES = 50;
+
+    /**
+     * Offset of the first vertex in the record of a triangle, after the normal
+     */
+    private static final int VERTICES_OFFSET = 3 * Float.BYTES;
+
+    /**
+     * Amount of triangles read by a task
+     */
+    private static final int TRIANGLES_PER_TASK = 1 << 16;
+
+    /**
+     * Whether equal vertices are welded into one
+     */
+    private boolean weld = true;
+
+    /**
+     * The statistics of the last file loaded
+     */
+    private volatile MeshLoadStatistics statistics;
+
+    /**
+     * Sets whether equal vertices are welded into one vertex of the mesh
+     *
+     * @param weld true for welding the vertices, false for three vertices of every triangle
+     * @return this
+     */
+    public StlLoader setWeld(boolean weld) {
+        this.weld = weld;
+        return this;
+    }
+
+    @Override
+    public MeshLoadStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public TriangleMesh load(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            MappedFile reader = new MappedFile(channel, ByteOrder.LITTLE_ENDIAN);
+            if (reader.size() < HEADER_BYTES) throw new IOException("Not a binary STL file " + file);
+            int countIndex = reader.at(HEADER_BYTES - Integer.BYTES, Integer.BYTES);
+            long count = Integer.toUnsignedLong(reader.buffer().getInt(countIndex));
+            if (reader.size() != HEADER_BYTES + count * RECORD_BYTES)
+                throw new IOException("Not a binary STL file " + file);
+            if (count * 9 > Integer.MAX_VALUE) throw new IOException("The file " + file + " is too large for a mesh");
+
+            int triangles = (int) count;
+            int tasks = (triangles + TRIANGLES_PER_TASK - 1) / TRIANGLES_PER_TASK;
+            double[] corners = new double[triangles * 9];
+            try {
+                IntStream.range(0, tasks).parallel().forEach(task -> {
+                    try {
+                        MappedFile taskReader = new MappedFile(channel, ByteOrder.LITTLE_ENDIAN);
+                        int end = Math.min(triangles, (task + 1) * TRIANGLES_PER_TASK);
+                        for (int t = task * TRIANGLES_PER_TASK; t < end; ++t) {
+                            int index = taskReader.at(HEADER_BYTES + (long) t * RECORD_BYTES, RECORD_BYTES)
+                                    + VERTICES_OFFSET;
+                            ByteBuffer buffer = taskReader.buffer();
+                            for (int i = 0; i < 9; ++i)
+                                corners[t * 9 + i] = buffer.getFloat(index + i * Float.BYTES);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            int[] faces = new int[triangles * 3];
+            double[] vertices = weld ? weld(corners, faces) : corners;
+            if (!weld) Arrays.setAll(faces, i -> i);
+
+            TriangleMesh mesh = new TriangleMesh(vertices, faces);
+            statistics = new MeshLoadStatistics(reader.size(), vertices.length / 3, triangles,
+                    System.nanoTime() - start);
+            return mesh;
+        }
+    }
+
+    /**
+     * Welds equal vertices - every vertex is looked up in an open addressing hash table of the vertices
+     * kept so far, and the kept vertices are moved to the beginning of the array
+     *
+     * @param vertices the coordinates of the vertices of the triangles, three vertices of every triangle
+     * @param faces    receives the indices of the kept vertices of the triangles
+     * @return the coordinates of the kept vertices
+     */
+    private static double[] weld(double[] vertices, int[] faces) {
+        // a table of at least twice the vertices, so that the probes are short
+        int capacity = (int) Math.min(1L << 30, Long.highestOneBit(Math.max(faces.length, 1)) << 2);
+        int mask = capacity - 1;
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        int kept = 0;
+        for (int v = 0; v < faces.length; ++v) {
+            // adding 0 turns -0 into 0, so that equal coordinates have equal bits
+            double x = vertices[v * 3] + 0.0, y = vertices[v * 3 + 1] + 0.0, z = vertices[v * 3 + 2] + 0.0;
+            long hash = Double.doubleToLongBits(x) * 0x9E3779B97F4A7C15L;
+            hash = (hash ^ Double.doubleToLongBits(y)) * 0x9E3779B97F4A7C15L;
+            hash = (hash ^ Double.doubleToLongBits(z)) * 0x9E3779B97F4A7C15L;
+            int slot = (int) (hash >>> 32) & mask;
+            while (table[slot] >= 0) {
+                int k = table[slot];
+                if (vertices[k * 3] == x && vertices[k * 3 + 1] == y && vertices[k * 3 + 2] == z) break;
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] < 0) {
+                // the kept vertices precede the vertex, so it is moved backwards over read coordinates only
+                vertices[kept * 3] = x;
+                vertices[kept * 3 + 1] = y;
+                vertices[kept * 3 + 2] = z;
+                table[slot] = kept++;
+            }
+            faces[v] = table[slot];
+        }
+        return Arrays.copyOf(vertices, kept * 3);
+    }
+}
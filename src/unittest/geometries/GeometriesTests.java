@@ -1,12 +1,27 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 /**
@@ -46,4 +61,643 @@ public class GeometriesTests {
         assertNull(geometries.findIntersections(new Ray(new Point(0.5, 4, 0.5), new Vector(0, -1, 0))),
                 "findIntersections(), Empty list");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Geometries#findIntersections(primitives.Ray)}
+     * with enough geometries for a deep acceleration structure - every kind of structure
+     * must find exactly the intersections found by testing every geometry.
+     */
+    @Test
+    void findIntersectionsAccelerated() {
+        for (Acceleration acceleration : Acceleration.values())
+            assertAccelerated(acceleration);
+    }
+
+    /**
+     * Compares the intersections found through an acceleration structure
+     * with the intersections found by testing every geometry
+     *
+     * @param acceleration the kind of acceleration structure
+     */
+    private void assertAccelerated(Acceleration acceleration) {
+        Random random = new Random(42);
+        Geometries geometries = new Geometries().setAcceleration(acceleration);
+        List<Intersectable> list = new LinkedList<>();
+        for (int i = 0; i < 500; ++i) {
+            Point center = new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            Intersectable geometry = i % 2 == 0
+                    ? new Sphere(1 + random.nextDouble() * 3, center)
+                    : new Triangle(center, center.add(new Vector(4, 0, 1)), center.add(new Vector(0, 4, -1)));
+            geometries.add(geometry);
+            list.add(geometry);
+        }
+        Plane plane = new Plane(new Point(0, -1, 0), new Vector(0, 1, 0));
+        geometries.add(plane);
+        list.add(plane);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rays from all around the geometries
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 200 - 50, random.nextDouble() * 200 - 50, -60),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+            int expected = 0;
+            for (Intersectable geometry : list) {
+                var points = geometry.findIntersections(ray);
+                if (points != null) expected += points.size();
+            }
+            var result = geometries.findIntersections(ray);
+            assertEquals(expected, result == null ? 0 : result.size(),
+                    "findIntersections() failed, wrong amount of intersections through " + acceleration);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Rays starting inside the geometries, along the axes
+        Vector[] axes = {new Vector(1, 0, 0), new Vector(0, 1, 0), new Vector(0, 0, 1), new Vector(0, 0, -1)};
+        for (Vector axis : axes) {
+            Ray ray = new Ray(new Point(50, 50, 50), axis);
+            int expected = 0;
+            for (Intersectable geometry : list) {
+                var points = geometry.findIntersections(ray);
+                if (points != null) expected += points.size();
+            }
+            var result = geometries.findIntersections(ray);
+            assertEquals(expected, result == null ? 0 : result.size(),
+                    "findIntersections() failed, wrong amount of intersections along an axis through " + acceleration);
+        }
+
+        // TC03: Many geometries with the same center
+        Geometries coinciding = new Geometries().setAcceleration(acceleration);
+        for (int i = 1; i <= 50; ++i)
+            coinciding.add(new Sphere(i, new Point(10, 10, 10)));
+        assertEquals(100, coinciding.findIntersections(new Ray(new Point(-100, 10, 10), new Vector(1, 0, 0))).size(),
+                "findIntersections() failed, wrong amount of intersections with coinciding geometries through "
+                        + acceleration);
+
+        // TC04: Geometries in a lattice whose boxes touch, rays along the lattice and along the touching planes
+        Geometries lattice = new Geometries().setAcceleration(acceleration);
+        List<Intersectable> latticeList = new LinkedList<>();
+        for (int x = 0; x < 5; ++x)
+            for (int y = 0; y < 5; ++y)
+                for (int z = 0; z < 5; ++z) {
+                    Sphere sphere = new Sphere(1, new Point(2 * x, 2 * y, 2 * z));
+                    lattice.add(sphere);
+                    latticeList.add(sphere);
+                }
+        Ray[] rays = {new Ray(new Point(-5, 2, 4), new Vector(1, 0, 0)), new Ray(new Point(3, -5, 0.5), new Vector(0, 1, 0)),
+                new Ray(new Point(1, 1, -5), new Vector(0, 0, 1)), new Ray(new Point(-5, 3, 1), new Vector(1, 0.5, 0.5))};
+        for (Ray ray : rays) {
+            int expected = 0;
+            for (Intersectable geometry : latticeList) {
+                var points = geometry.findIntersections(ray);
+                if (points != null) expected += points.size();
+            }
+            var result = lattice.findIntersections(ray);
+            assertEquals(expected, result == null ? 0 : result.size(),
+                    "findIntersections() failed, wrong amount of intersections in a lattice through " + acceleration);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findGeoIntersections(Ray, double)} -
+     * every kind of structure must find exactly the intersections closer than the distance.
+     */
+    @Test
+    void findGeoIntersectionsMaxDistance() {
+        for (Acceleration acceleration : Acceleration.values()) {
+            Geometries geometries = new Geometries().setAcceleration(acceleration);
+            for (int i = 0; i < 100; ++i)
+                geometries.add(new Sphere(1, new Point(4 * i, 0, 0)));
+            geometries.add(new Plane(new Point(0, 0, 0), new Vector(1, 0, 0)));
+            Ray ray = new Ray(new Point(-2, 0, 0), new Vector(1, 0, 0));
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The distance ends between the geometries
+            assertEquals(21, geometries.findGeoIntersections(ray, 40).size(),
+                    "findGeoIntersections() failed, wrong amount of intersections up to a distance through "
+                            + acceleration);
+
+            // TC02: An infinite distance finds every intersection
+            assertEquals(201, geometries.findGeoIntersections(ray, Double.POSITIVE_INFINITY).size(),
+                    "findGeoIntersections() failed, wrong amount of intersections through " + acceleration);
+
+            // =============== Boundary Values Tests ==================
+            // TC03: The distance ends before the first geometry
+            assertNull(geometries.findGeoIntersections(ray, 0.5),
+                    "findGeoIntersections() failed, intersections beyond the distance through " + acceleration);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(Ray, double)} -
+     * every kind of structure must find the closest of the intersections found by testing every geometry.
+     */
+    @Test
+    void findClosestGeoIntersection() {
+        for (Acceleration acceleration : Acceleration.values()) {
+            Random random = new Random(7);
+            Geometries geometries = new Geometries().setAcceleration(acceleration);
+            for (int i = 0; i < 300; ++i) {
+                Point center = new Point(random.nextDouble() * 50, random.nextDouble() * 50, random.nextDouble() * 50);
+                geometries.add(i % 2 == 0
+                        ? new Sphere(1 + random.nextDouble() * 2, center)
+                        : new Triangle(center, center.add(new Vector(3, 0, 1)), center.add(new Vector(0, 3, -1))));
+            }
+            geometries.add(new Plane(new Point(0, 0, 40), new Vector(0, 0.2, 1)));
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: Rays from all around the geometries find the closest of all the intersections
+            for (int i = 0; i < 200; ++i) {
+                Ray ray = new Ray(new Point(random.nextDouble() * 100 - 25, random.nextDouble() * 100 - 25, -20),
+                        new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+                var intersections = geometries.findGeoIntersections(ray);
+                var expected = intersections == null ? null : ray.findClosestGeoPoint(intersections);
+                assertEquals(expected, geometries.findClosestGeoIntersection(ray),
+                        "findClosestGeoIntersection() failed, wrong closest intersection through " + acceleration);
+            }
+
+            // TC02: The closest intersection is beyond the distance
+            Geometries spheres = new Geometries().setAcceleration(acceleration);
+            for (int i = 0; i < 20; ++i)
+                spheres.add(new Sphere(1, new Point(4 * i, 0, 0)));
+            Ray ray = new Ray(new Point(-2, 0, 0), new Vector(1, 0, 0));
+            assertNull(spheres.findClosestGeoIntersection(ray, 0.5),
+                    "findClosestGeoIntersection() failed, an intersection beyond the distance through " + acceleration);
+
+            // =============== Boundary Values Tests ==================
+            // TC03: The distance ends exactly at the closest intersection
+            assertEquals(new Point(-1, 0, 0), spheres.findClosestGeoIntersection(ray, 1).point,
+                    "findClosestGeoIntersection() failed, wrong closest intersection through " + acceleration);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestHit(Ray, Hit)} -
+     * a reused record must hold the closest intersection and the normal at it, through every kind of structure.
+     */
+    @Test
+    void findClosestHit() {
+        for (Acceleration acceleration : Acceleration.values()) {
+            Random random = new Random(11);
+            Geometries geometries = new Geometries().setAcceleration(acceleration);
+            for (int i = 0; i < 300; ++i) {
+                Point center = new Point(random.nextDouble() * 50, random.nextDouble() * 50, random.nextDouble() * 50);
+                geometries.add(i % 2 == 0
+                        ? new Sphere(1 + random.nextDouble() * 2, center)
+                        : new Triangle(center, center.add(new Vector(3, 0, 1)), center.add(new Vector(0, 3, -1))));
+            }
+            geometries.add(new Plane(new Point(0, 0, 40), new Vector(0, 0.2, 1)));
+            Hit hit = new Hit();
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The record holds the closest intersection, and the normal of its geometry
+            for (int i = 0; i < 200; ++i) {
+                Ray ray = new Ray(new Point(random.nextDouble() * 100 - 25, random.nextDouble() * 100 - 25, -20),
+                        new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+                var expected = geometries.findClosestGeoIntersection(ray);
+                boolean found = geometries.findClosestHit(ray, hit.reset(Double.POSITIVE_INFINITY));
+                assertEquals(expected != null, found,
+                        "findClosestHit() failed, wrong result through " + acceleration);
+                if (!found) continue;
+                assertSame(expected.geometry, hit.geometry, "findClosestHit() failed, wrong geometry through " + acceleration);
+                assertEquals(expected.point, hit.getPoint(), "findClosestHit() failed, wrong point through " + acceleration);
+                assertEquals(expected.point.distance(ray.getP0()), hit.distance, 1e-9,
+                        "findClosestHit() failed, wrong distance through " + acceleration);
+                assertEquals(hit.geometry.getNormal(expected.point), hit.getNormal(),
+                        "findClosestHit() failed, wrong normal through " + acceleration);
+            }
+
+            // =============== Boundary Values Tests ==================
+            // TC02: No intersection up to the distance of the record
+            Ray ray = new Ray(new Point(25, 25, -20), new Vector(0, 0, 1));
+            assertFalse(geometries.findClosestHit(ray, hit.reset(1)),
+                    "findClosestHit() failed, an intersection beyond the distance through " + acceleration);
+            assertNull(hit.geometry, "findClosestHit() failed, the record is not clear through " + acceleration);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestHits(Ray[], Hit[], int)} -
+     * a packet of rays must find the same closest hits as its rays one by one, through every kind of structure.
+     */
+    @Test
+    void findClosestHits() {
+        for (Acceleration acceleration : Acceleration.values()) {
+            Random random = new Random(13);
+            Geometries geometries = new Geometries().setAcceleration(acceleration);
+            for (int i = 0; i < 500; ++i)
+                geometries.add(new Sphere(0.5 + random.nextDouble(),
+                        new Point(random.nextDouble() * 40, random.nextDouble() * 40, random.nextDouble() * 40)));
+            geometries.add(new Plane(new Point(0, 0, 60), new Vector(0, 0, 1)));
+            Hit[] hits = new Hit[64];
+            for (int k = 0; k < hits.length; ++k)
+                hits[k] = new Hit();
+            Hit single = new Hit();
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: Packets of coherent rays from a common origin, as the primary rays of a camera
+            Ray[] rays = new Ray[64];
+            Point eye = new Point(20, 20, -30);
+            for (int tile = 0; tile < 16; ++tile) {
+                for (int k = 0; k < 64; ++k)
+                    rays[k] = new Ray(eye, new Vector((tile % 4 * 8 + k % 8 - 16) / 40d,
+                            (tile / 4 * 8 + k / 8 - 16) / 40d, 1));
+                assertPacket(geometries, rays, hits, 64, single, acceleration);
+            }
+
+            // TC02: A packet of incoherent rays, in all the directions
+            for (int k = 0; k < 64; ++k)
+                rays[k] = new Ray(new Point(random.nextDouble() * 40, random.nextDouble() * 40, random.nextDouble() * 40),
+                        new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5));
+            assertPacket(geometries, rays, hits, 64, single, acceleration);
+
+            // =============== Boundary Values Tests ==================
+            // TC03: A packet of a single ray
+            assertPacket(geometries, rays, hits, 1, single, acceleration);
+        }
+    }
+
+    /**
+     * Compares the closest hits of a packet of rays with the closest hits of its rays one by one
+     *
+     * @param geometries   the geometries
+     * @param rays         the rays of the packet
+     * @param hits         the hit records of the packet
+     * @param size         the amount of rays in the packet
+     * @param single       a hit record for a single ray
+     * @param acceleration the kind of acceleration structure
+     */
+    private void assertPacket(Geometries geometries, Ray[] rays, Hit[] hits, int size, Hit single,
+                              Acceleration acceleration) {
+        for (int k = 0; k < size; ++k)
+            hits[k].reset(Double.POSITIVE_INFINITY);
+        geometries.findClosestHits(rays, hits, size);
+        for (int k = 0; k < size; ++k) {
+            boolean found = geometries.findClosestHit(rays[k], single.reset(Double.POSITIVE_INFINITY));
+            assertSame(single.geometry, hits[k].geometry,
+                    "findClosestHits() failed, wrong geometry in a packet through " + acceleration);
+            if (found)
+                assertEquals(single.distance, hits[k].distance, 1e-9,
+                        "findClosestHits() failed, wrong distance in a packet through " + acceleration);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findTransparency(Ray, double, double)} -
+     * every kind of structure must multiply the transparency of the intersections closer than the distance,
+     * and stop once the ray is blocked.
+     */
+    @Test
+    void findTransparency() {
+        for (Acceleration acceleration : Acceleration.values()) {
+            Geometries geometries = new Geometries().setAcceleration(acceleration);
+            for (int i = 0; i < 100; ++i)
+                geometries.add(new Sphere(1, new Point(4 * i, 0, 0)).setMaterial(new Material().setKt(0.5)));
+            Plane plane = new Plane(new Point(2, 0, 0), new Vector(1, 0, 0));
+            geometries.add(plane);
+            Ray ray = new Ray(new Point(-2, 0, 0), new Vector(1, 0, 0));
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The ray crosses a transparent sphere before the distance
+            assertEquals(new Double3(0.25), geometries.findTransparency(ray, 3, 0.001),
+                    "findTransparency() failed, wrong transparency through " + acceleration);
+
+            // TC02: An opaque plane blocks the ray
+            assertSame(Double3.ZERO, geometries.findTransparency(ray, 10, 0.001),
+                    "findTransparency() failed, an opaque plane does not block the ray through " + acceleration);
+
+            // TC03: The transparency falls below the threshold
+            assertSame(Double3.ZERO, geometries.findTransparency(ray, 3, 0.3),
+                    "findTransparency() failed, the ray is not blocked below the threshold through " + acceleration);
+
+            // TC04: The geometry which blocks the ray is reported, an unblocked ray does not change it
+            Hit occluder = new Hit();
+            assertSame(Double3.ZERO, geometries.findTransparency(ray, 10, 0.001, occluder),
+                    "findTransparency() failed, an opaque plane does not block the ray through " + acceleration);
+            assertSame(plane, occluder.geometry,
+                    "findTransparency() failed, wrong geometry blocks the ray through " + acceleration);
+            geometries.findTransparency(ray, 3, 0.001, occluder);
+            assertSame(plane, occluder.geometry,
+                    "findTransparency() failed, a ray which is not blocked changes the occluder through " + acceleration);
+
+            // =============== Boundary Values Tests ==================
+            // TC05: The distance ends before the first geometry
+            assertEquals(Double3.ONE, geometries.findTransparency(ray, 0.5, 0.001),
+                    "findTransparency() failed, geometries beyond the distance through " + acceleration);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#cull(Point, Vector...)} -
+     * a view volume along the z axis with the apex at the origin, bounded by the planes x = z, x = -z, y = z and y = -z.
+     *
+     * @param directory a temporary cache directory
+     */
+    @Test
+    void cull(@TempDir Path directory) throws IOException {
+        Vector[] normals = {new Vector(1, 0, 1), new Vector(-1, 0, 1), new Vector(0, 1, 1), new Vector(0, -1, 1)};
+        Point apex = new Point(0, 0, 0);
+        Sphere inside = new Sphere(1, new Point(0, 0, 10));
+        Sphere outside = new Sphere(1, new Point(20, 0, 10));
+        Sphere behind = new Sphere(1, new Point(0, 0, -10));
+        Sphere crossing = new Sphere(1, new Point(10.5, 0, 10));
+        Plane plane = new Plane(new Point(0, 0, 30), new Vector(0, 0, 1));
+        Geometries nested = new Geometries(behind, crossing);
+        Geometries geometries = new Geometries(inside, outside, nested, plane).setAccelerationCache(directory);
+        Ray toInside = new Ray(apex, new Vector(0, 0, 1));
+        Ray toOutside = new Ray(new Point(20, 0, 0), new Vector(0, 0, 1));
+        Ray toBehind = new Ray(apex, new Vector(0, 0, -1));
+        Ray toCrossing = new Ray(apex, new Vector(1, 0, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The geometries outside the volume are culled, the inside and the unbounded ones are kept
+        Geometries visible = geometries.cull(apex, normals);
+        assertEquals(List.of(new Point(0, 0, 9), new Point(0, 0, 11), new Point(0, 0, 30)),
+                visible.findIntersections(toInside), "cull() failed, a geometry inside the volume is culled");
+        assertEquals(List.of(new Point(20, 0, 30)), visible.findIntersections(toOutside),
+                "cull() failed, a geometry outside the volume is kept");
+
+        // TC02: The geometries of a nested collection are culled too
+        assertNull(visible.findIntersections(toBehind), "cull() failed, a nested geometry behind the apex is kept");
+
+        // TC03: The original collection keeps all the geometries
+        assertEquals(2, geometries.findIntersections(toBehind).size(),
+                "cull() failed, the original collection is changed");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A geometry crossing a plane of the volume is kept
+        assertEquals(3, visible.findIntersections(toCrossing).size(),
+                "cull() failed, a geometry crossing the boundary of the volume is culled");
+
+        // TC05: No geometry is culled - the collection itself is returned
+        assertSame(visible, visible.cull(apex, normals), "cull() failed, a copy is made although nothing is culled");
+
+        // TC06: Culling through the same volume again reuses the culled collection
+        assertSame(visible, geometries.cull(apex, normals.clone()), "cull() failed, the same volume is culled again");
+
+        // TC07: The culled collection is not stored in the cache - only the whole collection traced by TC03 is
+        try (var list = Files.list(directory)) {
+            assertEquals(1, list.count(), "cull() failed, the culled collection is stored in the cache");
+        }
+
+        // TC08: A geometry added to a nested collection makes the culled collection stale
+        nested.add(new Sphere(1, new Point(0, 0, 20)));
+        Geometries changed = geometries.cull(apex, normals);
+        assertEquals(5, changed.findIntersections(toInside).size(),
+                "cull() failed, a stale culled collection is reused after a change");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findIntersections(primitives.Ray)}
+     * through a lazily subdivided octree - it grows only where rays enter it,
+     * and it is subdivided safely by concurrent rays.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting for the tracing threads
+     */
+    @Test
+    void findIntersectionsLazyOctree() throws InterruptedException {
+        Random random = new Random(3);
+        Geometries geometries = new Geometries().setAcceleration(Acceleration.LAZY_OCTREE);
+        List<Sphere> spheres = new ArrayList<>();
+        List<Point> centers = new ArrayList<>();
+        for (int i = 0; i < 20_000; ++i) {
+            Point center = new Point(random.nextDouble() * 10_000, random.nextDouble() * 10_000, random.nextDouble() * 10_000);
+            Sphere sphere = new Sphere(1 + random.nextDouble() * 5, center);
+            geometries.add(sphere);
+            spheres.add(sphere);
+            centers.add(center);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Only the root exists before any ray, and rays towards a few spheres subdivide a part of the tree
+        assertEquals(1, geometries.getAccelerationStatistics().nodes(),
+                "findIntersections() failed, the octree was subdivided before any ray");
+        Point origin = new Point(-100, -100, -100);
+        for (int i = 0; i < 20; ++i)
+            geometries.findIntersections(new Ray(origin, centers.get(random.nextInt(100)).subtract(origin)));
+        int regionNodes = geometries.getAccelerationStatistics().nodes();
+        assertTrue(regionNodes > 1, "findIntersections() failed, the octree was not subdivided by rays");
+
+        // TC02: Rays of concurrent threads into all the regions find the same intersections as testing every sphere
+        int[] mismatches = new int[1];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; ++t) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                Random threadRandom = new Random(seed);
+                for (int i = 0; i < 50; ++i) {
+                    Ray ray = new Ray(origin, centers.get(threadRandom.nextInt(centers.size())).subtract(origin));
+                    int expected = 0;
+                    for (Sphere sphere : spheres) {
+                        var points = sphere.findIntersections(ray);
+                        if (points != null) expected += points.size();
+                    }
+                    var result = geometries.findIntersections(ray);
+                    if ((result == null ? 0 : result.size()) != expected)
+                        synchronized (mismatches) {
+                            ++mismatches[0];
+                        }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(0, mismatches[0], "findIntersections() failed, wrong intersections through a concurrently subdivided octree");
+        assertTrue(geometries.getAccelerationStatistics().nodes() > regionNodes,
+                "findIntersections() failed, rays into new regions did not subdivide the octree");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#getAccelerationStatistics()}
+     * on a collection large enough for the parallel build.
+     */
+    @Test
+    void getAccelerationStatistics() {
+        Random random = new Random(7);
+        Geometries geometries = new Geometries();
+        List<Intersectable> list = new LinkedList<>();
+        List<Point> centers = new ArrayList<>();
+        for (int i = 0; i < 100_000; ++i) {
+            Point center = new Point(random.nextDouble() * 1000, random.nextDouble() * 1000, random.nextDouble() * 1000);
+            Sphere sphere = new Sphere(0.5, center);
+            geometries.add(sphere);
+            list.add(sphere);
+            centers.add(center);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Statistics of the hierarchy
+        AccelerationStatistics statistics = geometries.getAccelerationStatistics();
+        assertEquals(100_000, statistics.primitives(), "getAccelerationStatistics() failed, wrong primitives");
+        assertTrue(statistics.nodes() >= 2 * 100_000 / BVH.MAX_LEAF_SIZE - 1,
+                "getAccelerationStatistics() failed, too few nodes");
+        assertTrue(statistics.nodes() < 2 * 100_000, "getAccelerationStatistics() failed, too many nodes");
+        assertEquals(statistics.nodes() * (6L * Double.BYTES + 2L * Integer.BYTES), statistics.nodeBytes(),
+                "getAccelerationStatistics() failed, wrong node memory of the flattened hierarchy");
+
+        // TC02: Compressed hierarchies of the same geometries take several times less node memory
+        long nodeBytes = statistics.nodeBytes();
+        assertTrue(geometries.setAcceleration(Acceleration.COMPRESSED_BOUNDING_VOLUME_HIERARCHY)
+                        .getAccelerationStatistics().nodeBytes() * 3 < nodeBytes,
+                "getAccelerationStatistics() failed, a 16 bit compressed hierarchy is not small enough");
+        assertTrue(geometries.setAcceleration(Acceleration.COMPRESSED_8_BIT_BOUNDING_VOLUME_HIERARCHY)
+                        .getAccelerationStatistics().nodeBytes() * 5 < nodeBytes,
+                "getAccelerationStatistics() failed, an 8 bit compressed hierarchy is not small enough");
+
+        // TC03: A wide hierarchy of the same geometries has less than half of the nodes
+        assertTrue(geometries.setAcceleration(Acceleration.WIDE_BOUNDING_VOLUME_HIERARCHY)
+                        .getAccelerationStatistics().nodes() * 2 < statistics.nodes(),
+                "getAccelerationStatistics() failed, a wide hierarchy has too many nodes");
+        geometries.setAcceleration(Acceleration.BOUNDING_VOLUME_HIERARCHY);
+
+        // TC04: The hierarchy built in parallel finds the same intersections as testing every geometry
+        for (int i = 0; i < 20; ++i) {
+            Point target = centers.get(random.nextInt(centers.size()));
+            Ray ray = new Ray(new Point(-100, -100, -100), target.subtract(new Point(-100, -100, -100)));
+            int expected = 0;
+            for (Intersectable geometry : list) {
+                var points = geometry.findIntersections(ray);
+                if (points != null) expected += points.size();
+            }
+            assertEquals(expected, geometries.findIntersections(ray).size(),
+                    "findIntersections() failed, wrong amount of intersections through a parallel built hierarchy");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#refit()}.
+     */
+    @Test
+    void refit() {
+        Random random = new Random(11);
+        Geometries geometries = new Geometries();
+        List<Sphere> spheres = new ArrayList<>();
+        List<Point> centers = new ArrayList<>();
+        for (int i = 0; i < 2000; ++i) {
+            Point center = new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            Sphere sphere = new Sphere(1, center);
+            geometries.add(sphere);
+            spheres.add(sphere);
+            centers.add(center);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Small moves are refitted, and the refitted hierarchy finds the moved spheres
+        assertFalse(geometries.refit(), "refit() failed, refitted a structure which was never built");
+        geometries.getAccelerationStatistics();
+        for (int i = 0; i < spheres.size(); ++i) {
+            Point center = centers.get(i).add(new Vector(0.1, 0.2, -0.1));
+            spheres.get(i).setCenter(center);
+            centers.set(i, center);
+        }
+        assertTrue(geometries.refit(), "refit() failed, a slightly moved hierarchy was not refitted");
+        assertIntersections(geometries, spheres, centers, random);
+
+        // TC02: Scattering the spheres degrades the hierarchy, so that it is rebuilt
+        for (int i = 0; i < spheres.size(); ++i) {
+            Point center = new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            spheres.get(i).setCenter(center);
+            centers.set(i, center);
+        }
+        assertFalse(geometries.refit(), "refit() failed, a scattered hierarchy was not rebuilt");
+        assertIntersections(geometries, spheres, centers, random);
+
+        // TC03: A structure which cannot be refitted is rebuilt
+        geometries.setAcceleration(Acceleration.UNIFORM_GRID).getAccelerationStatistics();
+        assertFalse(geometries.refit(), "refit() failed, a uniform grid was refitted");
+        assertIntersections(geometries, spheres, centers, random);
+    }
+
+    /**
+     * Checks that rays towards the spheres find the same intersections as testing every sphere
+     *
+     * @param geometries the collection of the spheres
+     * @param spheres    the spheres
+     * @param centers    the centers of the spheres
+     * @param random     random generator of the sphere to aim at
+     */
+    private void assertIntersections(Geometries geometries, List<Sphere> spheres, List<Point> centers, Random random) {
+        Point origin = new Point(-50, -50, -50);
+        for (int i = 0; i < 20; ++i) {
+            Ray ray = new Ray(origin, centers.get(random.nextInt(centers.size())).subtract(origin));
+            int expected = 0;
+            for (Sphere sphere : spheres) {
+                var points = sphere.findIntersections(ray);
+                if (points != null) expected += points.size();
+            }
+            assertEquals(expected, geometries.findIntersections(ray).size(),
+                    "findIntersections() failed, wrong amount of intersections with moved or cached spheres");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#setAccelerationCache(java.nio.file.Path)}.
+     *
+     * @param directory a temporary cache directory
+     * @throws IOException if the cache file cannot be read or written by the test
+     */
+    @Test
+    void setAccelerationCache(@TempDir Path directory) throws IOException {
+        Random random = new Random(11);
+        List<Sphere> spheres = new ArrayList<>();
+        List<Point> centers = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            Point center = new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            spheres.add(new Sphere(0.5 + random.nextDouble(), center));
+            centers.add(center);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The first collection builds the hierarchy and stores it
+        Geometries built = cached(spheres, directory);
+        AccelerationStatistics statistics = built.getAccelerationStatistics();
+        assertFalse(statistics.loaded(), "setAccelerationCache() failed, loaded a hierarchy from an empty cache");
+        List<Path> files;
+        try (var list = Files.list(directory)) {
+            files = list.toList();
+        }
+        assertEquals(1, files.size(), "setAccelerationCache() failed, the hierarchy was not stored");
+        Path file = files.get(0);
+
+        // TC02: A collection of the same geometries loads the hierarchy, and finds the same intersections
+        Geometries loaded = cached(spheres, directory);
+        assertTrue(loaded.getAccelerationStatistics().loaded(), "setAccelerationCache() failed, the hierarchy was not loaded");
+        assertEquals(statistics.nodes(), loaded.getAccelerationStatistics().nodes(),
+                "setAccelerationCache() failed, wrong amount of nodes of a loaded hierarchy");
+        assertIntersections(loaded, spheres, centers, random);
+
+        // TC03: Moving a geometry makes the cache stale, so that the hierarchy is built again
+        spheres.get(0).setCenter(new Point(200, 200, 200));
+        assertFalse(cached(spheres, directory).getAccelerationStatistics().loaded(),
+                "setAccelerationCache() failed, loaded a stale hierarchy");
+        spheres.get(0).setCenter(centers.get(0));
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A corrupt cache file is ignored, and it is replaced by the built hierarchy
+        byte[] content = Files.readAllBytes(file);
+        content[content.length - 1] ^= 1;
+        Files.write(file, content);
+        Geometries rebuilt = cached(spheres, directory);
+        assertFalse(rebuilt.getAccelerationStatistics().loaded(), "setAccelerationCache() failed, loaded a corrupt hierarchy");
+        assertIntersections(rebuilt, spheres, centers, random);
+        assertTrue(cached(spheres, directory).getAccelerationStatistics().loaded(),
+                "setAccelerationCache() failed, a corrupt cache file was not replaced");
+
+        // TC05: A truncated cache file is ignored
+        content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length / 2));
+        assertFalse(cached(spheres, directory).getAccelerationStatistics().loaded(),
+                "setAccelerationCache() failed, loaded a truncated hierarchy");
+    }
+
+    /**
+     * Creates a collection of spheres whose hierarchy is cached
+     *
+     * @param spheres   the spheres
+     * @param directory the cache directory
+     * @return the collection
+     */
+    private static Geometries cached(List<Sphere> spheres, Path directory) {
+        return new Geometries(spheres.toArray(new Intersectable[0])).setAccelerationCache(directory);
+    }
+}
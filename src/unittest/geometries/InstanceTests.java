@@ -0,0 +1,166 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.Instance class
+ */
+class InstanceTests {
+
+    /**
+     * Test method for {@link geometries.Instance#Instance(Intersectable, Matrix)}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: An invertible transformation
+        assertDoesNotThrow(() -> new Instance(new Sphere(1, Point.ZERO_POINT), Matrix.scaling(1, 2, 3)),
+                "The constructor throw error for nothing");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: A singular transformation
+        assertThrows(IllegalArgumentException.class,
+                () -> new Instance(new Sphere(1, Point.ZERO_POINT), Matrix.scaling(1, 0, 1)),
+                "The constructor accepted a singular transformation");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#getBoundingBox()}.
+     */
+    @Test
+    void getBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The box of a translated and rotated instance
+        Triangle triangle = new Triangle(new Point(0, 0, 0), new Point(2, 0, 0), new Point(0, 1, 0));
+        Instance instance = new Instance(triangle,
+                Matrix.translation(new Vector(0, 0, 5)).multiply(Matrix.rotation(new Vector(0, 0, 1), Math.PI / 2)));
+        BoundingBox box = instance.getBoundingBox();
+        assertEquals(new Point(-1, 0, 5), new Point(box.minX, box.minY, box.minZ), "getBoundingBox() failed, wrong minimum");
+        assertEquals(new Point(0, 2, 5), new Point(box.maxX, box.maxY, box.maxZ), "getBoundingBox() failed, wrong maximum");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: An instance of an unbounded geometry
+        assertNull(new Instance(new Plane(Point.ZERO_POINT, new Vector(0, 0, 1)), Matrix.IDENTITY).getBoundingBox(),
+                "getBoundingBox() failed, an instance of a plane is bounded");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#findGeoIntersections(Ray)}.
+     */
+    @Test
+    void findGeoIntersections() {
+        Sphere sphere = new Sphere(1, Point.ZERO_POINT);
+        sphere.setEmission(new Color(10, 20, 30)).setMaterial(new Material().setKd(0.4));
+        Instance instance = new Instance(sphere,
+                Matrix.translation(new Vector(5, 0, 0)).multiply(Matrix.scaling(2, 1, 1)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A ray crosses the scaled and translated sphere (2 points)
+        var result = instance.findGeoIntersections(new Ray(new Point(0, 0, 0), new Vector(1, 0, 0)));
+        assertEquals(List.of(new Point(3, 0, 0), new Point(7, 0, 0)), result.stream().map(gp -> gp.point).toList(),
+                "findGeoIntersections() failed, wrong points");
+
+        // TC02: The hits keep the emission and the material of the shared geometry
+        assertEquals(sphere.getEmission(), result.get(0).geometry.getEmission(),
+                "findGeoIntersections() failed, wrong emission");
+        assertSame(sphere.getMaterial(), result.get(0).geometry.getMaterial(),
+                "findGeoIntersections() failed, wrong material");
+
+        // TC03: The normal of a non-uniformly scaled sphere is transformed by the inverse transposed
+        Point point = new Point(5 + Math.sqrt(2), Math.sqrt(0.5), 0);
+        assertEquals(new Vector(0.25 * Math.sqrt(2), Math.sqrt(0.5), 0).normalize(),
+                result.get(0).geometry.getNormal(point), "findGeoIntersections() failed, wrong normal");
+
+        // TC04: A ray misses the instance, although it crosses the untransformed sphere
+        assertNull(instance.findGeoIntersections(new Ray(new Point(0, -5, 0), new Vector(0, 1, 0))),
+                "findGeoIntersections() failed, a ray which misses the instance");
+
+        // TC05: A maximal distance in the world is scaled into object space with the ray
+        result = instance.findGeoIntersections(new Ray(new Point(0, 0, 0), new Vector(1, 0, 0)), 5);
+        assertEquals(List.of(new Point(3, 0, 0)), result.stream().map(gp -> gp.point).toList(),
+                "findGeoIntersections() failed, wrong points up to a distance");
+        assertNull(instance.findGeoIntersections(new Ray(new Point(0, 0, 0), new Vector(1, 0, 0)), 2),
+                "findGeoIntersections() failed, points beyond the distance");
+
+        // TC06: The closest intersection is placed in the world, with a distance scaled into object space
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(1, 0, 0));
+        assertEquals(new Point(3, 0, 0), instance.findClosestGeoIntersection(ray).point,
+                "findClosestGeoIntersection() failed, wrong point");
+        assertEquals(new Point(3, 0, 0), instance.findClosestGeoIntersection(ray, 3).point,
+                "findClosestGeoIntersection() failed, wrong point up to a distance");
+        assertNull(instance.findClosestGeoIntersection(ray, 2),
+                "findClosestGeoIntersection() failed, a point beyond the distance");
+
+        // TC07: A hit record of the instance holds the world distance and the transformed normal
+        Hit hit = new Hit().reset(Double.POSITIVE_INFINITY);
+        assertTrue(instance.findClosestHit(ray, hit), "findClosestHit() failed, no hit");
+        assertEquals(3, hit.distance, 1e-9, "findClosestHit() failed, wrong distance");
+        assertEquals(new Vector(-1, 0, 0), hit.getNormal(), "findClosestHit() failed, wrong normal");
+        assertEquals(sphere.getEmission(), hit.geometry.getEmission(), "findClosestHit() failed, wrong emission");
+
+        // TC08: The geometry which blocks a ray is placed in the world, so that it blocks the ray by itself
+        Hit occluder = new Hit();
+        assertSame(Double3.ZERO, instance.findTransparency(ray, 10, 0.001, occluder),
+                "findTransparency() failed, the instance does not block the ray");
+        assertSame(Double3.ZERO, occluder.geometry.findTransparency(ray, 10, 0.001),
+                "findTransparency() failed, the occluder does not block the ray in the world");
+        assertEquals(Double3.ONE, occluder.geometry.findTransparency(new Ray(new Point(0, -5, 0),
+                new Vector(0, 1, 0)), 10, 0.001), "findTransparency() failed, the occluder is not placed");
+    }
+
+    /**
+     * Test method for a {@link geometries.Geometries} of instances of a shared {@link geometries.Geometries} -
+     * the two-level structure must find the same intersections as a flat collection of copies.
+     */
+    @Test
+    void findIntersectionsTwoLevel() {
+        Random random = new Random(5);
+        Geometries asset = new Geometries();
+        List<Point[]> triangles = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            Point p = new Point(random.nextDouble() * 10, random.nextDouble() * 10, random.nextDouble() * 10);
+            Point[] vertices = {p, p.add(new Vector(1, 0, 0.5)), p.add(new Vector(0, 1, -0.5))};
+            asset.add(new Triangle(vertices[0], vertices[1], vertices[2]));
+            triangles.add(vertices);
+        }
+
+        Geometries scene = new Geometries();
+        List<Intersectable> copies = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            Matrix transform = Matrix.translation(new Vector(i % 10 * 20, i / 10 * 20, 1))
+                    .multiply(Matrix.rotation(new Vector(0, 1, 1), i * 0.3));
+            scene.add(new Instance(asset, transform));
+            for (Point[] vertices : triangles)
+                copies.add(new Triangle(transform.transformPoint(vertices[0]), transform.transformPoint(vertices[1]),
+                        transform.transformPoint(vertices[2])));
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Rays through the instances
+        for (int i = 0; i < 100; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 200, random.nextDouble() * 200, -50),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+            int expected = 0;
+            for (Intersectable copy : copies) {
+                var points = copy.findIntersections(ray);
+                if (points != null) expected += points.size();
+            }
+            var result = scene.findIntersections(ray);
+            assertEquals(expected, result == null ? 0 : result.size(),
+                    "findIntersections() failed, wrong amount of intersections through the instances");
+        }
+
+        // TC02: The top level is built over the instances, and the asset is indexed once
+        assertEquals(100, scene.getAccelerationStatistics().primitives(),
+                "findIntersections() failed, wrong amount of primitives in the top level");
+        assertEquals(200, asset.getAccelerationStatistics().primitives(),
+                "findIntersections() failed, wrong amount of primitives in the asset");
+    }
+}
@@ -129,4 +129,41 @@ public class PolygonTests {
         ray = new Ray(new Point(0.25, 0.25, 1), new Vector(-1.25, -2.25, -1));
         assertNull(polygon.findIntersections(ray), "Ray intersects on edge's continuation of polygon BVA doesn't work.");
     }
+
+    /**
+     * Test method for {@link geometries.Polygon#findIntersections(primitives.Ray)} and
+     * {@link geometries.Polygon#isRayOnPolygon(Ray)} with a pentagon.
+     */
+    @Test
+    void findIntersectionsPentagon() {
+        Polygon polygon = new Polygon(new Point(0, 0, 0), new Point(2, 0, 0), new Point(3, 2, 0),
+                new Point(1, 3, 0), new Point(-1, 2, 0));
+        Vector down = new Vector(0, 0, -1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray intersects inside polygon.
+        assertEquals(List.of(new Point(1, 1.5, 0)), polygon.findIntersections(new Ray(new Point(1, 1.5, 1), down)),
+                "Ray intersects inside pentagon EP doesn't work.");
+
+        // TC02: Ray outside polygon against edge.
+        assertNull(polygon.findIntersections(new Ray(new Point(2.5, 0.5, 1), down)),
+                "Ray outside pentagon against edge EP doesn't work.");
+
+        // TC03: The line of a ray which points away from the polygon crosses it.
+        assertTrue(polygon.isRayOnPolygon(new Ray(new Point(1, 1.5, 1), new Vector(0, 0, 1))),
+                "Line of the ray crosses pentagon EP doesn't work.");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: Ray intersects on vertex of polygon.
+        assertNull(polygon.findIntersections(new Ray(new Point(3, 2, 1), down)),
+                "Ray intersects on vertex of pentagon BVA doesn't work.");
+
+        // TC05: Ray intersects on edge of polygon.
+        assertNull(polygon.findIntersections(new Ray(new Point(2, 2.5, 1), down)),
+                "Ray intersects on edge of pentagon BVA doesn't work.");
+
+        // TC06: Ray parallel to the polygon.
+        assertFalse(polygon.isRayOnPolygon(new Ray(new Point(1, 1.5, 1), new Vector(1, 0, 0))),
+                "Ray parallel to pentagon BVA doesn't work.");
+    }
 }
\ No newline at end of file
@@ -41,6 +41,26 @@ class SphereTests {
                 "getNormal() failed");
     }
 
+    /**
+     * Test method for {@link geometries.Sphere#setCenter(Point)}.
+     */
+    @Test
+    void setCenter() {
+        Sphere sphere = new Sphere(1d, new Point(0, 0, 0)).setCenter(new Point(5, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The normal and the bounding box follow the new center
+        assertEquals(new Vector(1, 0, 0), sphere.getNormal(new Point(6, 0, 0)),
+                "setCenter() failed, wrong normal");
+        assertEquals(new BoundingBox(4, -1, -1, 6, 1, 1), sphere.getBoundingBox(),
+                "setCenter() failed, wrong bounding box");
+
+        // TC02: A ray through the new center crosses the sphere there
+        assertEquals(List.of(new Point(4, 0, 0), new Point(6, 0, 0)),
+                sphere.findIntersections(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0))),
+                "setCenter() failed, wrong intersections");
+    }
+
     /**
      * Test method for {@link geometries.Sphere#findIntersections(Ray)} Sphere(geometries.SphereTest)}.
      */
@@ -158,4 +178,38 @@ class SphereTests {
         assertNull(sphere.findIntersections(ray),
                 "testFindIntersections() failed, Ray's line out of sphere");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Intersectable#findGeoIntersections(Ray, double)}.
+     */
+    @Test
+    void testFindGeoIntersectionsMaxDistance() {
+        Sphere sphere = new Sphere(1d, new Point(1, 0, 0));
+        Ray ray = new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Both points are closer than the distance (2 points)
+        assertEquals(2, sphere.findGeoIntersections(ray, 10).size(),
+                "findGeoIntersections() failed, Wrong number of points");
+
+        // TC02: Only the nearer point is closer than the distance (1 point)
+        var result = sphere.findGeoIntersections(ray, 2);
+        assertEquals(1, result.size(), "findGeoIntersections() failed, Wrong number of points");
+        assertEquals(new Point(0, 0, 0), result.get(0).point, "findGeoIntersections() failed, Wrong point");
+
+        // TC03: Both points are beyond the distance (0 points)
+        assertNull(sphere.findGeoIntersections(ray, 0.5), "findGeoIntersections() failed, points beyond the distance");
+
+        // TC04: Ray starts inside the sphere, and the point is beyond the distance (0 points)
+        assertNull(sphere.findGeoIntersections(new Ray(new Point(1.5, 0, 0), new Vector(-1, 0, 0)), 1),
+                "findGeoIntersections() failed, points beyond the distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC05: The distance ends exactly at the nearer point (1 point)
+        assertEquals(1, sphere.findGeoIntersections(ray, 1).size(),
+                "findGeoIntersections() failed, Wrong number of points");
+
+        // TC06: The distance ends exactly at the farther point (2 points)
+        assertEquals(2, sphere.findGeoIntersections(ray, 3).size(),
+                "findGeoIntersections() failed, Wrong number of points");
+    }
+}
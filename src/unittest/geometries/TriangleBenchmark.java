@@ -0,0 +1,109 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static primitives.Util.alignZero;
+
+/**
+ * Benchmark of the triangle intersection kernel - the Moller-Trumbore kernel over the precomputed edges
+ * of {@link Triangle} is compared with the former kernel, which intersected the plane of the triangle and
+ * then tested the ray against the planes through its head and every edge (with three vector subtractions,
+ * three cross products and three normalizations per ray).
+ * The results are printed, the benchmark never fails on timing.
+ */
+public class TriangleBenchmark {
+
+    /**
+     * Amount of triangles
+     */
+    private static final int TRIANGLES = 1_000;
+
+    /**
+     * Amount of rays
+     */
+    private static final int RAYS = 1_000;
+
+    /**
+     * The former kernel - the plane of the triangle, and the side of the ray to the plane of every edge
+     *
+     * @param triangle    the triangle
+     * @param ray         the ray
+     * @param maxDistance the distance from the head of the ray - a farther point is ignored
+     * @return the distance of the intersection point, {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    private static double formerDistance(Triangle triangle, Ray ray, double maxDistance) {
+        double distance = triangle.plane.findClosestDistance(ray, maxDistance);
+        if (distance == Double.POSITIVE_INFINITY) return distance;
+
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        Vector v1 = triangle.vertices.get(0).subtract(p0);
+        Vector v2 = triangle.vertices.get(1).subtract(p0);
+        double s1 = alignZero(dir.dotProduct(v1.crossProduct(v2).normalize()));
+        if (s1 == 0) return Double.POSITIVE_INFINITY;
+        Vector v3 = triangle.vertices.get(2).subtract(p0);
+        double s2 = alignZero(dir.dotProduct(v2.crossProduct(v3).normalize()));
+        if (s1 * s2 <= 0) return Double.POSITIVE_INFINITY;
+        double s3 = alignZero(dir.dotProduct(v3.crossProduct(v1).normalize()));
+        return s1 * s3 > 0 ? distance : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Intersects every ray with every triangle through a kernel
+     *
+     * @param triangles the triangles
+     * @param rays      the rays
+     * @param former    whether to use the former kernel
+     * @return the amount of intersections
+     */
+    private static int intersect(Triangle[] triangles, Ray[] rays, boolean former) {
+        int hits = 0;
+        for (Ray ray : rays)
+            for (Triangle triangle : triangles) {
+                double distance = former ? formerDistance(triangle, ray, Double.POSITIVE_INFINITY)
+                        : triangle.findClosestDistance(ray, Double.POSITIVE_INFINITY);
+                if (distance != Double.POSITIVE_INFINITY) ++hits;
+            }
+        return hits;
+    }
+
+    /**
+     * Compares the throughput of the kernels on random triangles and rays, after warm-up rounds
+     * which let the JIT compile both kernels. Both kernels must find the same intersections.
+     */
+    @Test
+    public void formerVersusMollerTrumbore() {
+        Random random = new Random(11);
+        Triangle[] triangles = new Triangle[TRIANGLES];
+        for (int i = 0; i < TRIANGLES; ++i) {
+            Point p = new Point(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, random.nextDouble() * 20);
+            triangles[i] = new Triangle(p, p.add(new Vector(2 + random.nextDouble(), 0, 1)),
+                    p.add(new Vector(0, 2 + random.nextDouble(), -1)));
+        }
+        Ray[] rays = new Ray[RAYS];
+        for (int k = 0; k < RAYS; ++k)
+            rays[k] = new Ray(new Point(0, 0, -20),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+
+        for (int round = 0; round < 3; ++round) {
+            long start = System.nanoTime();
+            int formerHits = intersect(triangles, rays, true);
+            double formerMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            int hits = intersect(triangles, rays, false);
+            double millis = (System.nanoTime() - start) / 1e6;
+
+            assertEquals(formerHits, hits, "The kernels found different intersections");
+            if (round > 0)
+                System.out.printf("triangle kernel: former %8.2f ms (%6.1f Mtests/s), Moller-Trumbore %8.2f ms "
+                                + "(%6.1f Mtests/s), %d hits%n", formerMillis, TRIANGLES * RAYS / formerMillis / 1e3,
+                        millis, TRIANGLES * RAYS / millis / 1e3, hits);
+        }
+    }
+}
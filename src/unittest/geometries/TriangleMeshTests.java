@@ -0,0 +1,272 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.TriangleMesh class
+ */
+class TriangleMeshTests {
+
+    /**
+     * Amount of vertices along a side of the height field of the tests
+     */
+    private static final int SIDE = 12;
+
+    /**
+     * Creates the vertices of a height field over the square [0, SIDE-1] x [0, SIDE-1]
+     *
+     * @return the coordinates of the vertices
+     */
+    private static double[] heightField() {
+        double[] vertices = new double[SIDE * SIDE * 3];
+        for (int j = 0; j < SIDE; ++j)
+            for (int i = 0; i < SIDE; ++i) {
+                int v = (j * SIDE + i) * 3;
+                vertices[v] = i;
+                vertices[v + 1] = j;
+                vertices[v + 2] = Math.sin(i * 0.7) * Math.cos(j * 0.5);
+            }
+        return vertices;
+    }
+
+    /**
+     * Creates the faces of the height field - two faces for every square of the grid
+     *
+     * @return the indices of the vertices of the faces
+     */
+    private static int[] heightFieldFaces() {
+        int[] faces = new int[(SIDE - 1) * (SIDE - 1) * 6];
+        int f = 0;
+        for (int j = 0; j < SIDE - 1; ++j)
+            for (int i = 0; i < SIDE - 1; ++i) {
+                int v = j * SIDE + i;
+                faces[f++] = v;
+                faces[f++] = v + 1;
+                faces[f++] = v + SIDE + 1;
+                faces[f++] = v;
+                faces[f++] = v + SIDE + 1;
+                faces[f++] = v + SIDE;
+            }
+        return faces;
+    }
+
+    /**
+     * Creates the faces of a mesh as triangles
+     *
+     * @param vertices the coordinates of the vertices
+     * @param faces    the indices of the vertices of the faces
+     * @return the triangles
+     */
+    private static Geometries triangles(double[] vertices, int[] faces) {
+        Geometries triangles = new Geometries();
+        for (int f = 0; f < faces.length; f += 3)
+            triangles.add(new Triangle(vertex(vertices, faces[f]), vertex(vertices, faces[f + 1]),
+                    vertex(vertices, faces[f + 2])));
+        return triangles;
+    }
+
+    /**
+     * Returns a vertex of a mesh as a point
+     *
+     * @param vertices the coordinates of the vertices
+     * @param index    the index of the vertex
+     * @return the point
+     */
+    private static Point vertex(double[] vertices, int index) {
+        return new Point(vertices[index * 3], vertices[index * 3 + 1], vertices[index * 3 + 2]);
+    }
+
+    /**
+     * Creates a random ray towards the height field
+     *
+     * @param random the random numbers
+     * @return the ray
+     */
+    private static Ray randomRay(Random random) {
+        Point head = new Point(random.nextDouble() * 20 - 4, random.nextDouble() * 20 - 4, random.nextDouble() * 6 + 2);
+        Point target = new Point(random.nextDouble() * SIDE, random.nextDouble() * SIDE, random.nextDouble() * 2 - 1);
+        return new Ray(head, target.subtract(head));
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        double[] vertices = {0, 0, 0, 1, 0, 0, 0, 1, 0};
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A proper mesh
+        assertEquals((SIDE - 1) * (SIDE - 1) * 2, new TriangleMesh(heightField(), heightFieldFaces()).getFaceCount(),
+                "TriangleMesh() failed, wrong amount of faces");
+
+        // TC02: The coordinates of the vertices are not triples
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1}, new int[]{0, 0, 0}),
+                "TriangleMesh() accepted vertices which are not triples");
+
+        // TC03: The indices of the faces are not triples
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[]{0, 1}),
+                "TriangleMesh() accepted faces which are not triples");
+
+        // TC04: A face refers to a missing vertex
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[]{0, 1, 3}),
+                "TriangleMesh() accepted a missing vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC05: A mesh with no faces
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[0]),
+                "TriangleMesh() accepted a mesh with no faces");
+
+        // TC06: A negative index of a vertex
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[]{0, 1, -1}),
+                "TriangleMesh() accepted a negative vertex");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // two faces folded along the y axis
+        TriangleMesh mesh = new TriangleMesh(new double[]{0, 0, 0, 0, 1, 0, -1, 0, 0, 0, 0, 1},
+                new int[]{0, 1, 2, 0, 1, 3});
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point on the first face
+        assertEquals(new Vector(0, 0, 1), mesh.getNormal(new Point(-0.2, 0.2, 0)),
+                "getNormal() failed, wrong normal of the first face");
+
+        // TC02: A point on the second face
+        assertEquals(new Vector(1, 0, 0), mesh.getNormal(new Point(0, 0.2, 0.2)),
+                "getNormal() failed, wrong normal of the second face");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findGeoIntersections(Ray)}.
+     */
+    @Test
+    void findGeoIntersections() {
+        double[] vertices = heightField();
+        int[] faces = heightFieldFaces();
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+        mesh.setEmission(new Color(10, 20, 30)).setMaterial(new Material().setKd(0.4));
+        Geometries triangles = triangles(vertices, faces);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Random rays intersect the mesh as they intersect its faces, and the faces have the mesh attributes
+        Random random = new Random(5);
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = randomRay(random);
+            var expected = triangles.findGeoIntersections(ray);
+            var result = mesh.findGeoIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "findGeoIntersections() failed, wrong amount of intersections");
+            if (result == null) continue;
+            for (Intersectable.GeoPoint intersection : result) {
+                assertEquals(mesh.getEmission(), intersection.geometry.getEmission(),
+                        "findGeoIntersections() failed, wrong emission of a face");
+                assertSame(mesh.getMaterial(), intersection.geometry.getMaterial(),
+                        "findGeoIntersections() failed, wrong material of a face");
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC02: A ray through the shared edge of two faces
+        assertNull(mesh.findGeoIntersections(new Ray(new Point(0.5, 0.5, 5), new Vector(0, 0, -1))),
+                "findGeoIntersections() failed, a ray through an edge intersects the mesh");
+
+        // TC03: A ray parallel to the faces of a flat mesh
+        TriangleMesh flat = new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, new int[]{0, 1, 2});
+        assertNull(flat.findGeoIntersections(new Ray(new Point(-1, 0.2, 0), new Vector(1, 0, 0))),
+                "findGeoIntersections() failed, a parallel ray intersects the mesh");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findClosestHit(Ray, Hit)}.
+     */
+    @Test
+    void testFindClosestHit() {
+        double[] vertices = heightField();
+        int[] faces = heightFieldFaces();
+        Geometries triangles = triangles(vertices, faces);
+        Hit expected = new Hit(), result = new Hit();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest hits of random rays are the closest hits of the faces, with their normals and their
+        // barycentric coordinates, with every acceleration structure
+        for (Acceleration acceleration : Acceleration.values()) {
+            TriangleMesh mesh = new TriangleMesh(vertices, faces).setAcceleration(acceleration);
+            Random random = new Random(7);
+            for (int i = 0; i < 500; ++i) {
+                Ray ray = randomRay(random);
+                boolean found = triangles.findClosestHit(ray, expected.reset(Double.POSITIVE_INFINITY));
+                assertEquals(found, mesh.findClosestHit(ray, result.reset(Double.POSITIVE_INFINITY)),
+                        acceleration + ": findClosestHit() failed, wrong hit");
+                if (!found) continue;
+                assertSame(mesh, result.geometry, acceleration + ": findClosestHit() failed, wrong geometry");
+                assertEquals(expected.distance, result.distance, 1e-9,
+                        acceleration + ": findClosestHit() failed, wrong distance");
+                assertEquals(expected.getNormal(), result.getNormal(),
+                        acceleration + ": findClosestHit() failed, wrong normal");
+                assertEquals(expected.u, result.u, 1e-9, acceleration + ": findClosestHit() failed, wrong u");
+                assertEquals(expected.v, result.v, 1e-9, acceleration + ": findClosestHit() failed, wrong v");
+            }
+        }
+
+        // TC02: A mesh in a collection and in an instance is hit as its faces
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+        Matrix transform = Matrix.translation(new Vector(3, -2, 1)).multiply(Matrix.scaling(2, 1, 3));
+        Geometries scene = new Geometries(new Sphere(1, new Point(-10, -10, 0)), new Instance(mesh, transform));
+        Instance placedTriangles = new Instance(triangles, transform);
+        Random random = new Random(9);
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = randomRay(random);
+            boolean found = placedTriangles.findClosestHit(ray, expected.reset(Double.POSITIVE_INFINITY));
+            assertEquals(found, scene.findClosestHit(ray, result.reset(Double.POSITIVE_INFINITY)),
+                    "findClosestHit() failed, wrong hit of an instance");
+            if (!found) continue;
+            assertEquals(expected.distance, result.distance, 1e-9,
+                    "findClosestHit() failed, wrong distance of an instance");
+            assertEquals(expected.getNormal(), result.getNormal(),
+                    "findClosestHit() failed, wrong normal of an instance");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC03: The closest hit is beyond the distance of the record
+        Ray ray = new Ray(new Point(2.5, 2.2, 5), new Vector(0, 0, -1));
+        assertFalse(mesh.findClosestHit(ray, result.reset(2)), "findClosestHit() failed, a far face is hit");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findTransparency(Ray, double, double, Hit)}.
+     */
+    @Test
+    void findTransparency() {
+        TriangleMesh mesh = new TriangleMesh(heightField(), heightFieldFaces());
+        mesh.setMaterial(new Material().setKt(0.5));
+        Hit occluder = new Hit();
+        Ray ray = new Ray(new Point(2.5, 2.2, 5), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A ray through a transparent face
+        assertEquals(new Double3(0.5), mesh.findTransparency(ray, 10, 0.1),
+                "findTransparency() failed, wrong transparency");
+
+        // TC02: A ray blocked by a face reports the face
+        Double3 ktr = mesh.findTransparency(ray, 10, 0.6, occluder.reset(Double.POSITIVE_INFINITY));
+        assertEquals(Double3.ZERO, ktr, "findTransparency() failed, the ray is not blocked");
+        assertNotNull(occluder.geometry, "findTransparency() failed, no occluder");
+        assertEquals(Double3.ZERO, occluder.geometry.findTransparency(ray, 10, 0.6),
+                "findTransparency() failed, wrong occluder");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: The faces are beyond the distance
+        assertEquals(Double3.ONE, mesh.findTransparency(ray, 2, 0.1), "findTransparency() failed, a far face");
+    }
+}
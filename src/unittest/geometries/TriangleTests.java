@@ -5,6 +5,8 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -109,4 +111,59 @@ class TriangleTests {
         assertNull(tr.findIntersections(ray),
                 "testFindIntersections() failed, On edge's continuation");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestHit(Ray, Hit)} -
+     * the hit record of a triangle holds the barycentric coordinates of the point.
+     */
+    @Test
+    void testFindClosestHit() {
+        Triangle tr = new Triangle(new Point(1, 0, 0), new Point(1, 5, 0), new Point(6, 0, 0));
+        Hit hit = new Hit();
+
+        //============ Equivalence Partitions Tests ==============
+        // TC01: Inside triangle - the point (2, 1, 0) is 1/5 along both edges
+        Ray ray = new Ray(new Point(2, 1, 3), new Vector(0, 0, -1));
+        assertTrue(tr.findClosestHit(ray, hit.reset(Double.POSITIVE_INFINITY)),
+                "testFindClosestHit() failed, Inside triangle");
+        assertEquals(3, hit.distance, 1e-9, "testFindClosestHit() failed, wrong distance");
+        assertEquals(0.2, hit.u, 1e-9, "testFindClosestHit() failed, wrong weight of the second vertex");
+        assertEquals(0.2, hit.v, 1e-9, "testFindClosestHit() failed, wrong weight of the third vertex");
+
+        //============ Boundary Values Tests ==============
+        // TC02: Parallel to the plane of the triangle
+        ray = new Ray(new Point(2, 1, 1), new Vector(1, 0, 0));
+        assertFalse(tr.findClosestHit(ray, hit.reset(Double.POSITIVE_INFINITY)),
+                "testFindClosestHit() failed, Parallel to the plane");
+
+        // TC03: Starts on the triangle
+        ray = new Ray(new Point(2, 1, 0), new Vector(0, 0, 1));
+        assertFalse(tr.findClosestHit(ray, hit.reset(Double.POSITIVE_INFINITY)),
+                "testFindClosestHit() failed, Starts on the triangle");
+    }
+
+    /**
+     * Test method for {@link geometries.Triangle#setVertices(Point, Point, Point)}.
+     */
+    @Test
+    void setVertices() {
+        Triangle tr = new Triangle(new Point(0, 0, 0), new Point(1, 0, 0), new Point(0, 1, 0))
+                .setVertices(new Point(0, 0, 5), new Point(1, 0, 5), new Point(0, 1, 5));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The intersections and the bounding box follow the new vertices
+        assertEquals(List.of(new Point(0.25, 0.25, 5)),
+                tr.findIntersections(new Ray(new Point(0.25, 0.25, 10), new Vector(0, 0, -1))),
+                "setVertices() failed, wrong intersection");
+        assertEquals(new BoundingBox(0, 0, 5, 1, 1, 5), tr.getBoundingBox(),
+                "setVertices() failed, wrong bounding box");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Vertices on the same line are rejected, and the triangle stays as it was
+        assertThrows(IllegalArgumentException.class,
+                () -> tr.setVertices(new Point(0, 0, 0), new Point(1, 0, 0), new Point(2, 0, 0)),
+                "setVertices() failed, vertices on the same line");
+        assertEquals(new BoundingBox(0, 0, 5, 1, 1, 5), tr.getBoundingBox(),
+                "setVertices() failed, a rejected move changed the triangle");
+    }
+}
@@ -0,0 +1,89 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark of the child box test of {@link WideBVH} - the scalar loop over the children of a node is
+ * compared with the Vector API kernel, which is used when the kernel of the {@code vector} source folder
+ * is compiled and the program runs with {@code --add-modules jdk.incubator.vector}. Otherwise only the
+ * scalar test is measured.
+ * The results are printed, the benchmark never fails on timing.
+ */
+public class WideBVHBenchmark {
+
+    /**
+     * Amount of primitive boxes
+     */
+    private static final int BOXES = 100_000;
+
+    /**
+     * Amount of rays
+     */
+    private static final int RAYS = 50_000;
+
+    /**
+     * Traverses the hierarchy with every ray, visiting every primitive the ray may hit
+     *
+     * @param hierarchy the hierarchy
+     * @param rays      the rays
+     * @return the sum of the indices of the visited primitives, which identifies the visits
+     */
+    private static long traverse(WideBVH hierarchy, Ray[] rays) {
+        long[] sum = {0};
+        for (Ray ray : rays)
+            hierarchy.traverse(ray, Double.POSITIVE_INFINITY, primitive -> {
+                sum[0] += primitive + 1;
+                return Double.POSITIVE_INFINITY;
+            });
+        return sum[0];
+    }
+
+    /**
+     * Compares the throughput of the child box tests on random boxes and rays, after warm-up rounds
+     * which let the JIT compile both tests. Both tests must visit the same primitives.
+     */
+    @Test
+    public void scalarVersusVector() {
+        Random random = new Random(9);
+        double[] bounds = new double[BOXES * 6];
+        for (int i = 0; i < BOXES; ++i)
+            for (int axis = 0; axis < 3; ++axis) {
+                double min = random.nextDouble() * 100 - 50;
+                bounds[i * 6 + axis] = min;
+                bounds[i * 6 + 3 + axis] = min + random.nextDouble();
+            }
+        Ray[] rays = new Ray[RAYS];
+        for (int k = 0; k < RAYS; ++k)
+            rays[k] = new Ray(new Point(0, 0, -100),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+
+        WideBVH scalar = new WideBVH(bounds, false), vector = new WideBVH(bounds, true);
+        if (!vector.isVectorized())
+            System.out.println("wide BVH: the Vector API is not available, measuring the scalar test only");
+
+        for (int round = 0; round < 4; ++round) {
+            long start = System.nanoTime();
+            long scalarVisits = traverse(scalar, rays);
+            double scalarSeconds = (System.nanoTime() - start) / 1e9;
+            if (!vector.isVectorized()) {
+                if (round > 0) System.out.printf("wide BVH: scalar %6.2f Mrays/s%n", RAYS / scalarSeconds / 1e6);
+                continue;
+            }
+            start = System.nanoTime();
+            long vectorVisits = traverse(vector, rays);
+            double vectorSeconds = (System.nanoTime() - start) / 1e9;
+
+            assertEquals(scalarVisits, vectorVisits, "The child box tests visited different primitives");
+            if (round > 0)
+                System.out.printf("wide BVH: scalar %6.2f Mrays/s, vector %6.2f Mrays/s%n",
+                        RAYS / scalarSeconds / 1e6, RAYS / vectorSeconds / 1e6);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link lighting.LightTree}
+ */
+class LightTreeTests {
+
+    /**
+     * Amount of evenly spread random numbers for sampling
+     */
+    private static final int SAMPLES = 100000;
+
+    /**
+     * Test method for {@link lighting.LightTree#sample(Point, Vector, double, LightTree.Sample)}.
+     */
+    @Test
+    void sample() {
+        Random random = new Random(3);
+        List<LightSource> lights = new ArrayList<>();
+        for (int i = 0; i < 200; ++i)
+            lights.add(new PointLight(new Color(random.nextDouble() * 100, random.nextDouble() * 100, 50),
+                    new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 10 + 1))
+                    .setKl(0.01).setKq(0.001));
+        lights.add(new DirectionalLight(new Color(10, 10, 10), new Vector(0, 0, -1)));
+        LightTree tree = new LightTree(lights);
+        Point point = new Point(30, 60, 0);
+        LightTree.Sample sample = new LightTree.Sample();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The point lights are clustered, the directional light is not
+        assertEquals(200, tree.size(), "LightTree() failed, wrong amount of clustered lights");
+        assertArrayEquals(new int[]{200}, tree.getUnclustered(), "LightTree() failed, wrong unclustered lights");
+
+        // TC02: Every light is sampled with its probability, and the estimate of the total light is unbiased
+        int[] counts = new int[lights.size()];
+        double[] pdfs = new double[lights.size()];
+        double estimate = 0;
+        for (int i = 0; i < SAMPLES; ++i) {
+            assertTrue(tree.sample(point, null, (i + 0.5) / SAMPLES, sample), "sample() failed, no light sampled");
+            ++counts[sample.index];
+            pdfs[sample.index] = sample.pdf;
+            estimate += sample.light.getIntensity(point).brightness() / sample.pdf / SAMPLES;
+        }
+        double total = 0;
+        for (int i = 0; i < 200; ++i) {
+            total += lights.get(i).getIntensity(point).brightness();
+            assertEquals(pdfs[i], (double) counts[i] / SAMPLES, 1e-3, "sample() failed, wrong probability");
+        }
+        assertEquals(total, estimate, total * 0.01, "sample() failed, biased estimate of the total light");
+
+        // TC03: Lights behind the surface are never sampled
+        Vector facing = new Vector(0, 0, -1);
+        for (int i = 0; i < 1000; ++i)
+            assertFalse(tree.sample(point, facing, (i + 0.5) / 1000, sample),
+                    "sample() failed, a light behind the surface is sampled");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A single point light is always sampled with probability 1
+        tree = new LightTree(List.of(lights.get(0)));
+        assertTrue(tree.sample(point, null, 0.7, sample), "sample() failed, the single light is not sampled");
+        assertSame(lights.get(0), sample.light, "sample() failed, wrong light");
+        assertEquals(1, sample.pdf, 1e-12, "sample() failed, wrong probability of the single light");
+
+        // TC05: No point lights
+        tree = new LightTree(List.of(lights.get(200)));
+        assertEquals(0, tree.size(), "LightTree() failed, a directional light is clustered");
+        assertFalse(tree.sample(point, null, 0.5, sample), "sample() failed, a light is sampled from an empty tree");
+
+        // TC06: A random number next to 1 never samples a subtree of no importance - the light at z = 1 is behind
+        // the surface, and it is the second child of the subtree of the lights at x = 10
+        for (int power = 1; power <= 40; ++power) {
+            tree = new LightTree(List.of(
+                    new PointLight(new Color(power, power, power), new Point(-10, 0, -1)).setKq(0.01),
+                    new PointLight(new Color(30, 30, 30), new Point(10, 0, -1)).setKq(0.01),
+                    new PointLight(new Color(30, 30, 30), new Point(10, 0, 1)).setKq(0.01)));
+            assertTrue(tree.sample(Point.ZERO_POINT, facing, Math.nextDown(1.0), sample),
+                    "sample() failed, no light sampled");
+            assertEquals(1, sample.index, "sample() failed, a light behind the surface is sampled");
+            assertTrue(sample.pdf > 0, "sample() failed, a sample of no probability");
+        }
+    }
+}
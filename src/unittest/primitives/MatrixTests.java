@@ -0,0 +1,84 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.Matrix class
+ */
+class MatrixTests {
+
+    /**
+     * Test method for {@link primitives.Matrix#Matrix(double...)}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Sixteen elements, row by row
+        Matrix matrix = new Matrix(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15);
+        assertEquals(6, matrix.get(1, 2), "testConstructor() failed, wrong element");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Wrong amount of elements
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(1, 2, 3),
+                "testConstructor() failed, a matrix of 3 elements");
+    }
+
+    /**
+     * Test method for {@link primitives.Matrix#multiply(primitives.Matrix)}.
+     */
+    @Test
+    void testMultiply() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The product applies the right matrix first
+        Matrix matrix = Matrix.translation(new Vector(1, 0, 0)).multiply(Matrix.scaling(2, 2, 2));
+        assertEquals(new Point(3, 2, 2), matrix.transformPoint(new Point(1, 1, 1)),
+                "testMultiply() failed, wrong order of the transformations");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Multiplying by the identity
+        assertEquals(matrix, matrix.multiply(Matrix.IDENTITY), "testMultiply() failed, multiplying by the identity");
+    }
+
+    /**
+     * Test method for {@link primitives.Matrix#inverse()}.
+     */
+    @Test
+    void testInverse() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A matrix times its inverse is the identity
+        Matrix matrix = Matrix.translation(new Vector(1, -2, 3))
+                .multiply(Matrix.rotation(new Vector(1, 1, 0), 0.7))
+                .multiply(Matrix.scaling(2, 3, 0.5));
+        assertEquals(Matrix.IDENTITY, matrix.multiply(matrix.inverse()), "testInverse() failed, wrong inverse");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: A singular matrix has no inverse
+        assertThrows(IllegalArgumentException.class, () -> Matrix.scaling(1, 0, 1).inverse(),
+                "testInverse() failed, a singular matrix");
+    }
+
+    /**
+     * Test method for {@link primitives.Matrix#transformPoint(primitives.Point)}
+     * and {@link primitives.Matrix#transformVector(primitives.Vector)}.
+     */
+    @Test
+    void testTransform() {
+        Matrix matrix = Matrix.translation(new Vector(0, 0, 5)).multiply(Matrix.rotation(new Vector(0, 0, 1), Math.PI / 2));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point is rotated and translated
+        assertEquals(new Point(0, 1, 5), matrix.transformPoint(new Point(1, 0, 0)),
+                "testTransform() failed, wrong point");
+
+        // TC02: A vector is rotated but not translated
+        assertEquals(new Vector(0, 1, 0), matrix.transformVector(new Vector(1, 0, 0)),
+                "testTransform() failed, wrong vector");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: A vector transformed to the zero vector
+        assertThrows(IllegalArgumentException.class, () -> Matrix.scaling(0, 1, 1).transformVector(new Vector(1, 0, 0)),
+                "testTransform() failed, a vector transformed to zero");
+    }
+}
@@ -0,0 +1,109 @@
+package renderer;
+
+import geometries.Acceleration;
+import geometries.AccelerationStatistics;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static java.awt.Color.*;
+
+/**
+ * Benchmark of the acceleration structures - for every kind of structure, the time of building
+ * the structure is compared with the time of tracing the scene through it.
+ * For a render of a single frame the trace time dominates, while for an animation which rebuilds
+ * the scene for every frame the build time is paid again and again.
+ * The results are printed, the benchmark never fails on timing.
+ */
+public class AccelerationBenchmark {
+
+    /**
+     * Width and height of the benchmark images, in pixels
+     */
+    private static final int RESOLUTION = 200;
+
+    /**
+     * Creates the scene of the final image of {@link ImageForStage7Test}
+     *
+     * @return the scene
+     */
+    private static Scene finalImageScene() {
+        ImageForStage7Test test = new ImageForStage7Test();
+        test.createRoom();
+        test.createLights();
+        test.createTable();
+        test.createChess();
+        test.scene.setAmbientLight(new AmbientLight(new Color(WHITE), new Double3(0.1)));
+        return test.scene;
+    }
+
+    /**
+     * Creates a scene of many small spheres and triangles in front of the camera
+     *
+     * @return the scene
+     */
+    private static Scene crowdScene() {
+        Scene scene = new Scene("Crowd scene")
+                .setAmbientLight(new AmbientLight(new Color(WHITE), new Double3(0.1)));
+        scene.addLight(new PointLight(new Color(500, 500, 500), new Point(0, 150, 200)));
+        Random random = new Random(3);
+        Material material = new Material().setKd(0.6).setKs(0.3).setShininess(30);
+        for (int i = 0; i < 20_000; ++i) {
+            Point center = new Point(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100,
+                    -random.nextDouble() * 400);
+            if (i % 2 == 0)
+                scene.geometries.add(new Sphere(1 + random.nextDouble() * 2, center)
+                        .setEmission(new Color(BLUE).reduce(2)).setMaterial(material));
+            else
+                scene.geometries.add(new Triangle(center, center.add(new Vector(3, 0, 1)), center.add(new Vector(0, 3, -1)))
+                        .setEmission(new Color(GREEN).reduce(2)).setMaterial(material));
+        }
+        return scene;
+    }
+
+    /**
+     * Builds and traces a scene through an acceleration structure, and prints the timings
+     *
+     * @param name         the name of the scene
+     * @param sceneFactory creates the scene (a new scene for every structure)
+     * @param acceleration the kind of acceleration structure
+     * @param print        whether to print the timings (false for a warm-up run)
+     */
+    private static void benchmark(String name, Supplier<Scene> sceneFactory, Acceleration acceleration,
+                                  boolean print) {
+        Scene scene = sceneFactory.get().setAcceleration(acceleration);
+        AccelerationStatistics statistics = scene.geometries.getAccelerationStatistics();
+
+        Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(200, 200).setVPDistance(1000)
+                .setImageWriter(new ImageWriter(name + " " + acceleration, RESOLUTION, RESOLUTION))
+                .setRayTracer(new RayTracerBasic(scene));
+        long start = System.nanoTime();
+        camera.renderImage();
+        double traceMillis = (System.nanoTime() - start) / 1e6;
+
+        if (print) System.out.printf("%-12s %-34s %8d primitives %8d nodes %10d bytes %10.2f ms build %10.2f ms trace%n",
+                name, acceleration, statistics.primitives(), statistics.nodes(), statistics.nodeBytes(),
+                statistics.buildMillis(), traceMillis);
+    }
+
+    /**
+     * Compares build and trace time of every kind of acceleration structure on the test scenes,
+     * after a warm-up round which lets the JIT compile the code of every structure
+     */
+    @Test
+    public void buildVersusTrace() {
+        for (int round = 0; round < 2; ++round)
+            for (Acceleration acceleration : Acceleration.values()) {
+                benchmark("final image", AccelerationBenchmark::finalImageScene, acceleration, round > 0);
+                benchmark("crowd", AccelerationBenchmark::crowdScene, acceleration, round > 0);
+            }
+    }
+}
@@ -3,7 +3,9 @@ package renderer;
 import org.junit.jupiter.api.Test;
 import primitives.Ray;
 import primitives.Vector;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static primitives.Point.ZERO_POINT;
 
 /**
@@ -53,4 +55,29 @@ public class CameraTest {
                 camera.setVPSize(8, 8).constructRay(4, 4, 1, 0), badRay);
     }
 
+    /**
+     * Test method for {@link renderer.Camera#setPacketSize(int)}.
+     */
+    @Test
+    void testSetPacketSize() {
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, -1, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: A packet of 4x4 rays
+        assertDoesNotThrow(() -> camera.setPacketSize(4), "setPacketSize() failed for a valid size");
+
+        // EP02: A size which is not a power of two
+        assertThrows(IllegalArgumentException.class, () -> camera.setPacketSize(3),
+                "setPacketSize() accepted a size which is not a power of two");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: Every ray on its own
+        assertDoesNotThrow(() -> camera.setPacketSize(1), "setPacketSize() failed for a single ray");
+
+        // BV02: The largest packet, and a packet larger than it
+        assertDoesNotThrow(() -> camera.setPacketSize(8), "setPacketSize() failed for the largest packet");
+        assertThrows(IllegalArgumentException.class, () -> camera.setPacketSize(16),
+                "setPacketSize() accepted a packet of more than 64 rays");
+    }
+
 }
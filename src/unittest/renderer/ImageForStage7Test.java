@@ -18,7 +18,10 @@ import static java.awt.Color.*;
  */
 public class ImageForStage7Test {
 
-    private final Scene scene = new Scene("Test scene");
+    /**
+     * The scene of the final image, also used by {@link AccelerationBenchmark}
+     */
+    final Scene scene = new Scene("Test scene");
     private final Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
             .setVPSize(200, 200).setVPDistance(1000) //
             .setRayTracer(new RayTracerBasic(scene));
@@ -11,6 +11,7 @@ import scene.Scene;
 
 import static java.awt.Color.BLUE;
 import static java.awt.Color.WHITE;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Testing basic shadows
@@ -24,9 +25,10 @@ public class ShadowTests {
     private final Material trMaterial = new Material().setKd(0.5).setKs(0.5).setShininess(30);
 
     private final Scene scene = new Scene("Test scene");
+    private final RayTracerBasic rayTracer = new RayTracerBasic(scene);
     private final Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
             .setVPSize(200, 200).setVPDistance(1000)
-            .setRayTracer(new RayTracerBasic(scene));
+            .setRayTracer(rayTracer);
 
     /**
      * Helper function for the tests in this module
@@ -43,6 +45,17 @@ public class ShadowTests {
         camera.setImageWriter(new ImageWriter(pictName, 400, 400))
                 .renderImage() //
                 .writeToImage();
+        assertShadowCache(pictName);
+    }
+
+    /**
+     * Checks that the shadow cache blocked shadow rays of the rendered image
+     *
+     * @param pictName the name of the image
+     */
+    private void assertShadowCache(String pictName) {
+        ShadowCacheStatistics statistics = rayTracer.getShadowCacheStatistics();
+        assertTrue(statistics.hits() > 0, "The shadow cache blocked no shadow ray of " + pictName);
     }
 
     /**
@@ -121,5 +134,6 @@ public class ShadowTests {
         camera.setImageWriter(new ImageWriter("shadowTrianglesSphere", 600, 600)) //
                 .renderImage() //
                 .writeToImage();
+        assertShadowCache("shadowTrianglesSphere");
     }
 }
@@ -10,6 +10,7 @@ import primitives.*;
 import scene.Scene;
 
 import static java.awt.Color.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Testing basic create image of sphere in box
@@ -21,9 +22,10 @@ public class SphereInBox {
     private final Material trMaterial = new Material().setKd(0.5).setKs(0.5).setShininess(30);
 
     private final Scene scene = new Scene("Test scene");
+    private final RayTracerBasic rayTracer = new RayTracerBasic(scene);
     private final Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
             .setVPSize(200, 200).setVPDistance(1000)
-            .setRayTracer(new RayTracerBasic(scene));
+            .setRayTracer(rayTracer);
 
     /**
      * function for the tests in this module
@@ -94,5 +96,9 @@ public class SphereInBox {
         camera.setImageWriter(new ImageWriter("sphereInBox", 600, 600))
                 .renderImage()
                 .writeToImage();
+
+        // adjacent points are shaded by the same polygon
+        ShadowCacheStatistics statistics = rayTracer.getShadowCacheStatistics();
+        assertTrue(statistics.hits() > 0, "The shadow cache blocked no shadow ray");
     }
 }
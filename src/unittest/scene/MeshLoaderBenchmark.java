@@ -0,0 +1,173 @@
+package scene;
+
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark of the mesh loaders on synthetic files of a height field of millions of faces - a binary PLY
+ * file, a binary STL file and an OBJ file of the same mesh. Every file is loaded a few times, so that
+ * the JIT compiles the loaders and the file is in the page cache, and the throughput is printed.
+ * The loaded meshes must have all the faces of the height field, the benchmark never fails on timing.
+ */
+public class MeshLoaderBenchmark {
+
+    /**
+     * Amount of vertices along a side of the height field
+     */
+    private static final int SIDE = 1001;
+
+    /**
+     * Amount of faces of the height field
+     */
+    private static final int FACES = (SIDE - 1) * (SIDE - 1) * 2;
+
+    /**
+     * Amount of loads of every file
+     */
+    private static final int ROUNDS = 4;
+
+    /**
+     * Returns the height of a vertex of the height field
+     *
+     * @param i the column of the vertex
+     * @param j the row of the vertex
+     * @return the height
+     */
+    private static float height(int i, int j) {
+        return (float) (Math.sin(i * 0.05) * Math.cos(j * 0.03));
+    }
+
+    /**
+     * Returns a vertex of a face of the height field - two faces for every square of the grid
+     *
+     * @param face   the index of the face
+     * @param corner the vertex of the face
+     * @return the index of the vertex
+     */
+    private static int faceVertex(int face, int corner) {
+        int square = face / 2, v = square / (SIDE - 1) * SIDE + square % (SIDE - 1);
+        int[] corners = face % 2 == 0 ? new int[]{v, v + 1, v + SIDE + 1} : new int[]{v, v + SIDE + 1, v + SIDE};
+        return corners[corner];
+    }
+
+    /**
+     * Maps a new file for writing
+     *
+     * @param file the file
+     * @param size the size of the file
+     * @return the mapping, in little endian order
+     * @throws IOException if the file cannot be created
+     */
+    private static MappedByteBuffer create(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    /**
+     * Writes the height field as a binary PLY file
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    private static void writePly(Path file) throws IOException {
+        byte[] header = ("ply\nformat binary_little_endian 1.0\nelement vertex " + SIDE * SIDE
+                + "\nproperty float x\nproperty float y\nproperty float z\nelement face " + FACES
+                + "\nproperty list uchar int vertex_indices\nend_header\n").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = create(file, header.length + SIDE * SIDE * 12L + FACES * 13L);
+        buffer.put(header);
+        for (int j = 0; j < SIDE; ++j)
+            for (int i = 0; i < SIDE; ++i) buffer.putFloat(i).putFloat(j).putFloat(height(i, j));
+        for (int face = 0; face < FACES; ++face)
+            buffer.put((byte) 3).putInt(faceVertex(face, 0)).putInt(faceVertex(face, 1)).putInt(faceVertex(face, 2));
+    }
+
+    /**
+     * Writes the height field as a binary STL file
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeStl(Path file) throws IOException {
+        ByteBuffer buffer = create(file, 84 + FACES * 50L);
+        buffer.position(80);
+        buffer.putInt(FACES);
+        for (int face = 0; face < FACES; ++face) {
+            buffer.putFloat(0).putFloat(0).putFloat(1);
+            for (int corner = 0; corner < 3; ++corner) {
+                int v = faceVertex(face, corner);
+                buffer.putFloat(v % SIDE).putFloat(v / SIDE).putFloat(height(v % SIDE, v / SIDE));
+            }
+            buffer.putShort((short) 0);
+        }
+    }
+
+    /**
+     * Writes the height field as an OBJ file
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeObj(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int j = 0; j < SIDE; ++j)
+                for (int i = 0; i < SIDE; ++i) writer.write("v " + i + " " + j + " " + height(i, j) + "\n");
+            for (int face = 0; face < FACES; ++face)
+                writer.write("f " + (faceVertex(face, 0) + 1) + " " + (faceVertex(face, 1) + 1) + " "
+                        + (faceVertex(face, 2) + 1) + "\n");
+        }
+    }
+
+    /**
+     * Loads a file a few times and prints the throughput of the last load
+     *
+     * @param name   the name of the format
+     * @param loader the loader
+     * @param file   the file
+     * @throws IOException if the file cannot be loaded
+     */
+    private static void measure(String name, MeshLoader loader, Path file) throws IOException {
+        for (int round = 0; round < ROUNDS; ++round) {
+            TriangleMesh mesh = loader.load(file);
+            assertEquals(FACES, mesh.getFaceCount(), name + ": wrong amount of faces");
+            assertEquals(SIDE * SIDE, mesh.getVertexCount(), name + ": wrong amount of vertices");
+        }
+        MeshLoadStatistics statistics = loader.getStatistics();
+        System.out.printf("%-4s %8.1f MB %8.1f ms %8.1f MB/s %8.2f Mfaces/s%n", name,
+                statistics.bytes() / (double) (1 << 20), statistics.nanos() / 1e6, statistics.megabytesPerSecond(),
+                statistics.faces() / (statistics.nanos() / 1e3));
+    }
+
+    /**
+     * Compares the throughput of the loaders of the formats
+     */
+    @Test
+    void benchmark(@TempDir Path directory) throws IOException {
+        Path ply = directory.resolve("field.ply"), stl = directory.resolve("field.stl");
+        Path obj = directory.resolve("field.obj");
+        writePly(ply);
+        writeStl(stl);
+        writeObj(obj);
+
+        System.out.printf("%d faces, %d vertices%n", FACES, SIDE * SIDE);
+        measure("PLY", new PlyLoader(), ply);
+        measure("STL", new StlLoader(), stl);
+        measure("OBJ", new ObjLoader(), obj);
+    }
+}
@@ -0,0 +1,104 @@
+package scene;
+
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Point;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link scene.ObjLoader}
+ */
+class ObjLoaderTests {
+
+    /**
+     * Writes a text file
+     *
+     * @param directory the directory of the file
+     * @param content   the content of the file
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    private static Path write(Path directory, String content) throws IOException {
+        return Files.writeString(directory.resolve("mesh.obj"), content, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Test method for {@link scene.ObjLoader#load(Path)}.
+     */
+    @Test
+    void load(@TempDir Path directory) throws IOException {
+        ObjLoader loader = new ObjLoader();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Vertices, a triangle and a quad with texture coordinates and normals, among other lines
+        TriangleMesh mesh = loader.load(write(directory, """
+                # a square and a triangle
+                o square
+                v 0 0 0
+                v 1.5 0 0
+                v 1.5 -2.5e-1 1E1
+                vt 0.5 0.5
+                vn 0 0 1
+                v\t0 +1 .5
+                usemtl red
+                f 1/1/1 2/1/1 3/1/1 4/1/1\r
+                f 1//1 2//1 4//1
+                """));
+        assertEquals(4, mesh.getVertexCount(), "load() failed, wrong amount of vertices");
+        assertEquals(new Point(1.5, -0.25, 10), mesh.getVertex(2), "load() failed, wrong vertex");
+        assertEquals(new Point(0, 1, 0.5), mesh.getVertex(3), "load() failed, wrong vertex");
+        assertEquals(3, mesh.getFaceCount(), "load() failed, wrong amount of faces");
+        int[][] expected = {{0, 1, 2}, {0, 2, 3}, {0, 1, 3}};
+        for (int face = 0; face < 3; ++face)
+            for (int corner = 0; corner < 3; ++corner)
+                assertEquals(expected[face][corner], mesh.getFaceVertex(face, corner), "load() failed, wrong face");
+        assertEquals(new MeshLoadStatistics(loader.getStatistics().bytes(), 4, 3, loader.getStatistics().nanos()),
+                loader.getStatistics(), "load() failed, wrong statistics");
+
+        // TC02: Relative indices and numbers of many digits, over many small chunks
+        Random random = new Random(11);
+        StringBuilder content = new StringBuilder();
+        double[] coordinates = new double[3000];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            coordinates[i] = random.nextDouble() * 1000 - 500;
+            coordinates[i + 1] = random.nextGaussian();
+            coordinates[i + 2] = random.nextDouble() * 1e-30;
+            content.append("v ").append(coordinates[i]).append(' ').append(coordinates[i + 1]).append(' ')
+                    .append(coordinates[i + 2]).append('\n');
+            if (i >= 6) content.append("f -3 -2 -1\n");
+        }
+        mesh = loader.setChunkSize(64).load(write(directory, content.toString()));
+        assertEquals(1000, mesh.getVertexCount(), "load() failed, wrong amount of vertices in chunks");
+        assertEquals(998, mesh.getFaceCount(), "load() failed, wrong amount of faces in chunks");
+        for (int i = 0; i < 1000; ++i)
+            assertEquals(new Point(coordinates[i * 3], coordinates[i * 3 + 1], coordinates[i * 3 + 2]),
+                    mesh.getVertex(i), "load() failed, a number is not parsed exactly");
+        for (int face = 0; face < 998; ++face)
+            assertEquals(face + 2, mesh.getFaceVertex(face, 2), "load() failed, wrong relative index");
+
+        // TC03: A malformed vertex
+        Path malformed = write(directory, "v 0 0 0\nv 1 x 0\nv 0 1 0\nf 1 2 3\n");
+        assertThrows(IOException.class, () -> loader.load(malformed), "load() accepted a malformed vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A face of two vertices
+        Path line = write(directory, "v 0 0 0\nv 1 0 0\nf 1 2\n");
+        assertThrows(IOException.class, () -> loader.load(line), "load() accepted a face of two vertices");
+
+        // TC05: A face of a missing vertex
+        Path missing = write(directory, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n");
+        assertThrows(IllegalArgumentException.class, () -> loader.load(missing), "load() accepted a missing vertex");
+
+        // TC06: A file with no faces and no end of line at its end
+        Path empty = write(directory, "v 0 0 0");
+        assertThrows(IllegalArgumentException.class, () -> loader.load(empty), "load() accepted a mesh with no faces");
+    }
+}
@@ -0,0 +1,153 @@
+package scene;
+
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Point;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link scene.PlyLoader}
+ */
+class PlyLoaderTests {
+
+    /**
+     * Writes a PLY file
+     *
+     * @param directory the directory of the file
+     * @param header    the header of the file, up to the end of the header
+     * @param body      the binary content after the header
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    private static Path write(Path directory, String header, ByteBuffer body) throws IOException {
+        byte[] text = (header + "end_header\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] content = new byte[text.length + body.position()];
+        System.arraycopy(text, 0, content, 0, text.length);
+        body.flip().get(content, text.length, body.limit());
+        return Files.write(directory.resolve("mesh.ply"), content);
+    }
+
+    /**
+     * Test method for {@link scene.PlyLoader#load(Path)}.
+     */
+    @Test
+    void load(@TempDir Path directory) throws IOException {
+        PlyLoader loader = new PlyLoader();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Little endian float vertices with colors, and a quad and a triangle
+        ByteBuffer body = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        float[][] positions = {{0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0.5f}};
+        for (float[] position : positions)
+            body.putFloat(position[0]).putFloat(position[1]).putFloat(position[2]).put((byte) 200);
+        body.put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+        body.put((byte) 3).putInt(0).putInt(2).putInt(3);
+        TriangleMesh mesh = loader.load(write(directory, """
+                ply
+                format binary_little_endian 1.0
+                comment a square
+                element vertex 4
+                property float x
+                property float y
+                property float z
+                property uchar red
+                element face 2
+                property list uchar int vertex_indices
+                """, body));
+        assertEquals(4, mesh.getVertexCount(), "load() failed, wrong amount of vertices");
+        assertEquals(new Point(0, 1, 0.5), mesh.getVertex(3), "load() failed, wrong vertex");
+        assertEquals(3, mesh.getFaceCount(), "load() failed, wrong amount of faces");
+        int[][] expected = {{0, 1, 2}, {0, 2, 3}, {0, 2, 3}};
+        for (int face = 0; face < 3; ++face)
+            for (int corner = 0; corner < 3; ++corner)
+                assertEquals(expected[face][corner], mesh.getFaceVertex(face, corner), "load() failed, wrong face");
+        assertEquals(3, loader.getStatistics().faces(), "load() failed, wrong statistics");
+
+        // TC02: Big endian double vertices, an element with lists before the faces, and a face property
+        body = ByteBuffer.allocate(1024).order(ByteOrder.BIG_ENDIAN);
+        for (int v = 0; v < 3; ++v) body.putDouble(v == 1 ? 2.5 : 0).putDouble(v == 2 ? -1.25 : 0).putDouble(v);
+        body.put((byte) 2).putShort((short) 7).putShort((short) 8);
+        body.put((byte) 0);
+        body.putInt(9).putShort((short) 3).putShort((short) 2).putShort((short) 1).putShort((short) 0);
+        mesh = loader.load(write(directory, """
+                ply
+                format binary_big_endian 1.0
+                element vertex 3
+                property double x
+                property double y
+                property double z
+                element extra 2
+                property list uchar short values
+                element face 1
+                property int flags
+                property list ushort ushort vertex_index
+                """, body));
+        assertEquals(new Point(2.5, 0, 1), mesh.getVertex(1), "load() failed, wrong big endian vertex");
+        assertEquals(new Point(0, -1.25, 2), mesh.getVertex(2), "load() failed, wrong big endian vertex");
+        assertEquals(1, mesh.getFaceCount(), "load() failed, wrong amount of big endian faces");
+        assertEquals(2, mesh.getFaceVertex(0, 0), "load() failed, wrong big endian face");
+        assertEquals(0, mesh.getFaceVertex(0, 2), "load() failed, wrong big endian face");
+
+        // TC03: A text PLY file
+        Path ascii = write(directory, "ply\nformat ascii 1.0\nelement vertex 0\n", ByteBuffer.allocate(0));
+        assertThrows(IOException.class, () -> loader.load(ascii), "load() accepted a text PLY file");
+
+        // TC04: Vertices with no position
+        Path noPosition = write(directory, "ply\nformat binary_little_endian 1.0\nelement vertex 1\n"
+                + "property float x\nproperty float y\n", ByteBuffer.allocate(8));
+        assertThrows(IOException.class, () -> loader.load(noPosition), "load() accepted vertices with no z");
+
+        // =============== Boundary Values Tests ==================
+        // TC05: The file ends before the faces
+        ByteBuffer truncated = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        truncated.putFloat(0).putFloat(0).putFloat(0).put((byte) 3).putInt(0);
+        Path end = write(directory, "ply\nformat binary_little_endian 1.0\nelement vertex 1\n"
+                + "property float x\nproperty float y\nproperty float z\n"
+                + "element face 1\nproperty list uchar int vertex_indices\n", truncated);
+        assertThrows(IOException.class, () -> loader.load(end), "load() accepted a truncated file");
+
+        // TC06: A face of two vertices
+        ByteBuffer line = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        line.putFloat(0).putFloat(0).putFloat(0).put((byte) 2).putInt(0).putInt(0);
+        Path twoVertices = write(directory, "ply\nformat binary_little_endian 1.0\nelement vertex 1\n"
+                + "property float x\nproperty float y\nproperty float z\n"
+                + "element face 1\nproperty list uchar int vertex_indices\n", line);
+        assertThrows(IOException.class, () -> loader.load(twoVertices), "load() accepted a face of two vertices");
+
+        // TC07: More vertices in the header than in the file
+        ByteBuffer vertex = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        vertex.putFloat(0).putFloat(0).putFloat(0);
+        Path vertices = write(directory, "ply\nformat binary_little_endian 1.0\nelement vertex 500000000\n"
+                + "property float x\nproperty float y\nproperty float z\n", vertex);
+        assertThrows(IOException.class, () -> loader.load(vertices), "load() accepted a vertex count beyond the file");
+
+        // TC08: More faces in the header than in the file
+        ByteBuffer face = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        face.putFloat(0).putFloat(0).putFloat(0).put((byte) 3).putInt(0).putInt(0).putInt(0);
+        Path faces = write(directory, "ply\nformat binary_little_endian 1.0\nelement vertex 1\n"
+                + "property float x\nproperty float y\nproperty float z\n"
+                + "element face 2000000000\nproperty list uchar int vertex_indices\n", face);
+        assertThrows(IOException.class, () -> loader.load(faces), "load() accepted a face count beyond the file");
+
+        // TC09: A face of more vertex indices than can be read at once, in a sparse file larger than the indices
+        ByteBuffer large = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        large.putFloat(0).putFloat(0).putFloat(0).putInt(270_000_000);
+        Path largeFace = write(directory, "ply\nformat binary_little_endian 1.0\nelement vertex 1\n"
+                + "property float x\nproperty float y\nproperty float z\n"
+                + "element face 1\nproperty list uint int vertex_indices\n", large);
+        try (RandomAccessFile file = new RandomAccessFile(largeFace.toFile(), "rw")) {
+            file.setLength(file.length() + 270_000_000L * Integer.BYTES);
+        }
+        assertThrows(IOException.class, () -> loader.load(largeFace), "load() accepted a face larger than a window");
+    }
+}
@@ -0,0 +1,84 @@
+package scene;
+
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Point;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link scene.StlLoader}
+ */
+class StlLoaderTests {
+
+    /**
+     * Writes a binary STL file
+     *
+     * @param directory the directory of the file
+     * @param triangles the coordinates of the vertices of the triangles, 9 values of every triangle
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    private static Path write(Path directory, float[] triangles) throws IOException {
+        int count = triangles.length / 9;
+        ByteBuffer buffer = ByteBuffer.allocate(84 + count * 50).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(80);
+        buffer.putInt(count);
+        for (int t = 0; t < count; ++t) {
+            buffer.putFloat(0).putFloat(0).putFloat(1);
+            for (int i = 0; i < 9; ++i) buffer.putFloat(triangles[t * 9 + i]);
+            buffer.putShort((short) 0);
+        }
+        return Files.write(directory.resolve("mesh.stl"), buffer.array());
+    }
+
+    /**
+     * Test method for {@link scene.StlLoader#load(Path)}.
+     */
+    @Test
+    void load(@TempDir Path directory) throws IOException {
+        // two triangles of a square, sharing an edge - one of its vertices is written as -0
+        Path file = write(directory, new float[]{0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 0, 0, 1, 1, -0f, 0, 1.5f, 0});
+        StlLoader loader = new StlLoader();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The shared vertices are welded
+        TriangleMesh mesh = loader.load(file);
+        assertEquals(4, mesh.getVertexCount(), "load() failed, the vertices are not welded");
+        assertEquals(2, mesh.getFaceCount(), "load() failed, wrong amount of faces");
+        assertEquals(new Point(0, 1.5, 0), mesh.getVertex(3), "load() failed, wrong vertex");
+        int[][] expected = {{0, 1, 2}, {0, 2, 3}};
+        for (int face = 0; face < 2; ++face)
+            for (int corner = 0; corner < 3; ++corner)
+                assertEquals(expected[face][corner], mesh.getFaceVertex(face, corner), "load() failed, wrong face");
+        assertEquals(new MeshLoadStatistics(84 + 2 * 50, 4, 2, loader.getStatistics().nanos()),
+                loader.getStatistics(), "load() failed, wrong statistics");
+
+        // TC02: Three vertices of every triangle without welding
+        mesh = loader.setWeld(false).load(file);
+        assertEquals(6, mesh.getVertexCount(), "load() failed, the vertices are welded");
+        assertEquals(5, mesh.getFaceVertex(1, 2), "load() failed, wrong face without welding");
+
+        // TC03: A text STL file
+        Path ascii = Files.writeString(directory.resolve("text.stl"), "solid square\nendsolid square\n");
+        assertThrows(IOException.class, () -> loader.load(ascii), "load() accepted a text STL file");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A truncated file
+        byte[] content = Files.readAllBytes(file);
+        Path truncated = Files.write(directory.resolve("truncated.stl"), Arrays.copyOf(content, 120));
+        assertThrows(IOException.class, () -> loader.load(truncated), "load() accepted a truncated file");
+
+        // TC05: A file with no triangles
+        Path empty = write(directory, new float[0]);
+        assertThrows(IllegalArgumentException.class, () -> loader.load(empty), "load() accepted no triangles");
+    }
+}
@@ -0,0 +1,56 @@
+package geometries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static geometries.WideBVH.ROBUSTNESS;
+import static geometries.WideBVH.WIDTH;
+
+/**
+ * Child box test of {@link WideBVH} on the incubating Vector API - the slabs of the {@link WideBVH#WIDTH}
+ * children of a node are intersected in the lanes of one vector, so the test of a node takes a few
+ * vector instructions. The lanes follow the scalar test operation by operation, so both tests find
+ * exactly the same children.
+ * The class is in a source folder of its own, which is compiled with {@code --add-modules jdk.incubator.vector}
+ * into the classes of the project, and {@link WideBVH} loads it by reflection only when the program runs
+ * with that module - so the project itself builds and runs without the incubating module.
+ */
+final class WideBVHVectorKernel implements WideBVH.ChildTest {
+
+    /**
+     * A vector of the children of a node
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+
+    /**
+     * Constructs the kernel
+     *
+     * @throws UnsupportedOperationException if the processor has no vectors of the children of a node,
+     *                                       so that the kernel would be emulated by scalar code
+     */
+    WideBVHVectorKernel() {
+        if (DoubleVector.SPECIES_PREFERRED.length() < WIDTH)
+            throw new UnsupportedOperationException("No vectors of " + WIDTH + " doubles");
+    }
+
+    @Override
+    public int intersect(double[] boxes, int b, double ox, double oy, double oz, double ix, double iy, double iz,
+                         double maxDistance, double[] near) {
+        DoubleVector t1 = DoubleVector.fromArray(SPECIES, boxes, b).sub(ox).mul(ix);
+        DoubleVector t2 = DoubleVector.fromArray(SPECIES, boxes, b + 3 * WIDTH).sub(ox).mul(ix);
+        DoubleVector tNear = t1.min(t2), tFar = t1.max(t2);
+        t1 = DoubleVector.fromArray(SPECIES, boxes, b + WIDTH).sub(oy).mul(iy);
+        t2 = DoubleVector.fromArray(SPECIES, boxes, b + 4 * WIDTH).sub(oy).mul(iy);
+        tNear = tNear.max(t1.min(t2));
+        tFar = tFar.min(t1.max(t2));
+        t1 = DoubleVector.fromArray(SPECIES, boxes, b + 2 * WIDTH).sub(oz).mul(iz);
+        t2 = DoubleVector.fromArray(SPECIES, boxes, b + 5 * WIDTH).sub(oz).mul(iz);
+        tNear = tNear.max(t1.min(t2));
+        tFar = tFar.min(t1.max(t2)).min(maxDistance).mul(ROBUSTNESS);
+        VectorMask<Double> hits = tFar.compare(VectorOperators.GE, 0).and(tNear.compare(VectorOperators.LE, tFar));
+        tNear.intoArray(near, 0);
+        return (int) hits.toLong();
+    }
+}